@@ -0,0 +1,75 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentHistoryChangedEvent;
+import com.copro.connect.model.ResidentHistory;
+import com.copro.connect.repository.ResidentHistoryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dernières entrées d'historique, tous résidents confondus (tableau de bord).
+ * <p>
+ * Les {@value #MAX_ENTRIES} plus récentes sont chargées en une requête et servies pour toute
+ * taille inférieure. Chaque enregistrement d'historique sur cette instance, ou observé sur
+ * residents_history par le change stream ({@link ResidentHistoryChangedEvent}), incrémente la
+ * version des données : un chargement commencé avant ne peut plus être servi. La durée de vie
+ * reste un filet de sécurité quand le change stream est désactivé.
+ */
+@Component
+public class RecentHistoryCache {
+
+    static final String CACHE_NAME = "residents.history.recent";
+
+    /**
+     * Taille maximale demandée par le tableau de bord
+     */
+    static final int MAX_ENTRIES = 50;
+
+    private final ResidentHistoryRepository residentHistoryRepository;
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<Long, List<ResidentHistory>> entries;
+
+    public RecentHistoryCache(ResidentHistoryRepository residentHistoryRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${residents.history.recent-ttl-seconds:30}") long ttlSeconds) {
+        this.residentHistoryRepository = residentHistoryRepository;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(2)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+    }
+
+    /**
+     * Les {@code limit} entrées les plus récentes ; partagées, elles ne doivent pas être modifiées
+     */
+    public List<ResidentHistory> get(int limit) {
+        if (limit > MAX_ENTRIES) {
+            return residentHistoryRepository.findAllByOrderByChangedAtDesc(PageRequest.of(0, limit));
+        }
+        List<ResidentHistory> recent = entries.get(version.get(), v ->
+                List.copyOf(residentHistoryRepository.findAllByOrderByChangedAtDesc(PageRequest.of(0, MAX_ENTRIES))));
+        return recent.subList(0, Math.min(limit, recent.size()));
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    @EventListener
+    public void onHistoryChanged(ResidentHistoryChangedEvent event) {
+        invalidate();
+    }
+}
@@ -0,0 +1,74 @@
+package com.copro.connect.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les calculs identiques simultanés : le premier appelant exécute le calcul,
+ * les suivants attendent le même {@link CompletableFuture} et partagent son résultat
+ * (ou son exception). Rien n'est conservé une fois le calcul terminé.
+ * <p>
+ * Métrique {@code coalescer.requests} (tags {@code key}, {@code outcome=executed|coalesced}) :
+ * la part de {@code coalesced} donne le taux de requêtes regroupées.
+ * Les clés doivent rester en nombre limité (noms de calcul, pas d'identifiants).
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescer {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Supplier<V> computation) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            counter(key, "coalesced").increment();
+            return (V) await(existing);
+        }
+
+        counter(key, "executed").increment();
+        try {
+            V value = computation.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Les appels suivants relancent un calcul frais
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private Counter counter(String key, String outcome) {
+        return Counter.builder("coalescer.requests")
+                .description("Calculs demandés, exécutés ou regroupés avec un calcul en cours")
+                .tag("key", key)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache borné (taille + TTL) devant {@code residentRepository.findById}.
+ * <p>
+ * Alimenté à la lecture, remplacé à chaque écriture publiée par {@code ResidentService}
+ * (ou reçue d'une autre instance). Le chargement d'une clé et son remplacement sont
+ * atomiques côté Caffeine : une lecture lente de la base ne peut pas écraser une écriture
+ * plus récente. Les résidents retournés sont partagés et ne doivent pas être modifiés.
+ * <p>
+ * Métriques exposées sous {@code cache.*} avec le tag {@code cache=residents.by-id}
+ * (hits/misses, évictions, durée de chargement).
+ */
+@Slf4j
+@Component
+public class ResidentByIdCache {
+
+    static final String CACHE_NAME = "residents.by-id";
+
+    private final ResidentRepository residentRepository;
+    private final Cache<String, Resident> residents;
+
+    public ResidentByIdCache(ResidentRepository residentRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${residents.by-id-cache.max-size:5000}") long maxSize,
+                             @Value("${residents.by-id-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.residentRepository = residentRepository;
+        this.residents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, residents, CACHE_NAME);
+    }
+
+    /**
+     * Résident par id, lu en base au premier accès (les absences ne sont pas mises en cache)
+     */
+    public Optional<Resident> find(String id) {
+        return Optional.ofNullable(residents.get(id, key -> residentRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Résidents trouvés parmi {@code ids} : les absents du cache sont lus en une seule requête $in
+     */
+    public Map<String, Resident> findAll(Collection<String> ids) {
+        return residents.getAll(ids, missing -> {
+            Map<String, Resident> loaded = new HashMap<>();
+            residentRepository.findAllById(List.copyOf(missing)).forEach(resident -> loaded.put(resident.getId(), resident));
+            return loaded;
+        });
+    }
+
+    public void invalidate(String id) {
+        residents.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        residents.invalidateAll();
+    }
+
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        switch (event.getAction()) {
+            case CREATE, UPDATE -> {
+                if (event.getResident() != null) {
+                    residents.put(event.getResidentId(), event.getResident());
+                } else {
+                    residents.invalidate(event.getResidentId());
+                }
+            }
+            case DELETE -> residents.invalidate(event.getResidentId());
+            case RELOAD -> invalidateAll();
+        }
+        log.trace("Resident cache updated ({} {})", event.getAction(), event.getResidentId());
+    }
+}
@@ -0,0 +1,390 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.event.ResidentHistoryChangedEvent;
+import com.copro.connect.model.ChangeStreamToken;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ChangeStreamTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidation des caches locaux sur l'ensemble des instances via les change streams MongoDB.
+ * <p>
+ * Les écritures faites par une autre instance sont republiées localement sous forme de
+ * {@link ResidentChangedEvent} distant (snapshot, corps JSON, SSE se mettent à jour comme pour
+ * une écriture locale) ; celles de residents_history donnent un {@link ResidentHistoryChangedEvent}.
+ * Les événements distants sont regroupés sur une courte fenêtre : au-delà d'un seuil (import ou
+ * modification en masse sur une autre instance), un seul {@link ResidentChangedEvent.Action#RELOAD}
+ * remplace les corrections unitaires, chacune recopiant le snapshot.
+ * Le dernier resume token de chaque flux est enregistré périodiquement et non à chaque événement :
+ * un redémarrage reprend au plus tard à la dernière position enregistrée, les événements rejoués
+ * étant sans effet. Si l'historique du flux n'est plus disponible, tout est rechargé.
+ * <p>
+ * Nécessite un replica set ; désactivé par défaut ({@code residents.change-stream.enabled}).
+ */
+@Slf4j
+@Component
+public class ResidentChangeStreamListener {
+
+    static final String RESIDENTS = "residents";
+    static final String HISTORY = "residents_history";
+
+    /**
+     * Codes MongoDB indiquant que le resume token ne peut plus servir
+     */
+    private static final Set<Integer> RESUME_FAILED_CODES = Set.of(
+            260,  // InvalidResumeToken
+            280,  // ChangeStreamFatalError
+            286   // ChangeStreamHistoryLost
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeStreamTokenRepository tokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String instanceId;
+    private final long restartDelayMs;
+    private final long tokenFlushIntervalMs;
+    private final long coalesceWindowMs;
+    private final int reloadThreshold;
+
+    /**
+     * Écritures de cette instance, déjà appliquées localement : leur écho est ignoré
+     */
+    private final Cache<String, Boolean> localWrites = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * Dernier resume token reçu par flux, pas encore enregistré
+     */
+    private final Map<String, BsonDocument> unsavedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * Événements distants en attente de publication (fenêtre de regroupement), protégés par leur propre verrou
+     */
+    private final List<ResidentChangedEvent> pendingRemote = new ArrayList<>();
+    private int pendingCount;
+    private boolean drainScheduled;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private MessageListenerContainer container;
+    private ScheduledExecutorService scheduler;
+
+    public ResidentChangeStreamListener(MongoTemplate mongoTemplate,
+                                        ChangeStreamTokenRepository tokenRepository,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${residents.change-stream.enabled:false}") boolean enabled,
+                                        @Value("${residents.change-stream.instance-id:${HOSTNAME:local}}") String instanceId,
+                                        @Value("${residents.change-stream.restart-delay-ms:5000}") long restartDelayMs,
+                                        @Value("${residents.change-stream.token-flush-interval-ms:10000}") long tokenFlushIntervalMs,
+                                        @Value("${residents.change-stream.coalesce-window-ms:200}") long coalesceWindowMs,
+                                        @Value("${residents.change-stream.reload-threshold:100}") int reloadThreshold) {
+        this.mongoTemplate = mongoTemplate;
+        this.tokenRepository = tokenRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.instanceId = instanceId;
+        this.restartDelayMs = restartDelayMs;
+        this.tokenFlushIntervalMs = tokenFlushIntervalMs;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.reloadThreshold = reloadThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushTokens, tokenFlushIntervalMs, tokenFlushIntervalMs,
+                TimeUnit.MILLISECONDS);
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.start();
+        subscribe(RESIDENTS);
+        subscribe(HISTORY);
+        log.info("Change streams started on {} and {} (instance {})", RESIDENTS, HISTORY, instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (container != null) {
+            container.stop();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushTokens();
+    }
+
+    /**
+     * Mémorise les écritures locales pour ne pas les rejouer à leur retour par le flux
+     */
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        if (!enabled || event.isRemote() || event.getAction() == ResidentChangedEvent.Action.RELOAD) {
+            return;
+        }
+        String key = event.getAction() == ResidentChangedEvent.Action.DELETE
+                ? deleteKey(event.getResidentId())
+                : upsertKey(event.getResidentId(), event.getChangeSeq());
+        localWrites.put(key, Boolean.TRUE);
+    }
+
+    private synchronized void subscribe(String collection) {
+        Subscription previous = subscriptions.remove(collection);
+        if (previous != null) {
+            container.remove(previous);
+        }
+
+        BsonValue resumeToken = loadToken(collection);
+        Subscription subscription = RESIDENTS.equals(collection)
+                ? container.register(ChangeStreamRequest.builder(this::onResidentMessage)
+                        .collection(RESIDENTS)
+                        .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                        .resumeToken(resumeToken)
+                        .build(), Resident.class, e -> onStreamError(RESIDENTS, e))
+                : container.register(ChangeStreamRequest.builder(this::onHistoryMessage)
+                        .collection(HISTORY)
+                        .resumeToken(resumeToken)
+                        .build(), Document.class, e -> onStreamError(HISTORY, e));
+        subscriptions.put(collection, subscription);
+        log.debug("Change stream on {} subscribed ({})", collection, resumeToken != null ? "resumed" : "from now");
+    }
+
+    private void onResidentMessage(Message<ChangeStreamDocument<Document>, Resident> message) {
+        ChangeStreamDocument<Document> raw = message.getRaw();
+        handleResidentChange(raw.getOperationType().getValue(), documentId(raw.getDocumentKey()),
+                message.getBody(), raw.getResumeToken());
+    }
+
+    private void onHistoryMessage(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> raw = message.getRaw();
+        Document history = message.getBody();
+        handleHistoryChange(raw.getOperationType().getValue(),
+                history != null ? history.getString("residentId") : null, raw.getResumeToken());
+    }
+
+    void handleResidentChange(String operationType, String residentId, Resident fullDocument, BsonDocument resumeToken) {
+        switch (operationType) {
+            case "insert", "update", "replace" -> {
+                if (localWrites.asMap().remove(upsertKey(residentId, seqOf(fullDocument))) == null) {
+                    // Document introuvable au moment de la lecture : supprimé entre-temps
+                    ResidentChangedEvent.Action action = fullDocument == null ? ResidentChangedEvent.Action.DELETE
+                            : "insert".equals(operationType) ? ResidentChangedEvent.Action.CREATE
+                            : ResidentChangedEvent.Action.UPDATE;
+                    enqueueRemote(ResidentChangedEvent.remote(action, residentId, fullDocument));
+                }
+            }
+            case "delete" -> {
+                if (localWrites.asMap().remove(deleteKey(residentId)) == null) {
+                    enqueueRemote(ResidentChangedEvent.remote(ResidentChangedEvent.Action.DELETE, residentId, null));
+                }
+            }
+            case "drop", "rename", "dropDatabase", "invalidate" -> {
+                log.warn("Change stream on {} invalidated ({}), reloading resident caches", RESIDENTS, operationType);
+                discardPendingRemote();
+                eventPublisher.publishEvent(ResidentChangedEvent.reload());
+                // Un flux invalidé ne peut pas reprendre après ce token : on repart de maintenant
+                clearToken(RESIDENTS);
+                scheduleRestart(RESIDENTS);
+                return;
+            }
+            default -> log.debug("Ignoring change stream event {} on {}", operationType, RESIDENTS);
+        }
+        rememberToken(RESIDENTS, resumeToken);
+    }
+
+    void handleHistoryChange(String operationType, String residentId, BsonDocument resumeToken) {
+        switch (operationType) {
+            case "insert", "update", "replace" -> eventPublisher.publishEvent(new ResidentHistoryChangedEvent(residentId));
+            case "delete" -> eventPublisher.publishEvent(new ResidentHistoryChangedEvent(null));
+            case "drop", "rename", "dropDatabase", "invalidate" -> {
+                eventPublisher.publishEvent(new ResidentHistoryChangedEvent(null));
+                clearToken(HISTORY);
+                scheduleRestart(HISTORY);
+                return;
+            }
+            default -> log.debug("Ignoring change stream event {} on {}", operationType, HISTORY);
+        }
+        rememberToken(HISTORY, resumeToken);
+    }
+
+    void onStreamError(String collection, Throwable error) {
+        if (error instanceof MongoCommandException command && RESUME_FAILED_CODES.contains(command.getErrorCode())) {
+            // Des événements ont été perdus : rechargement complet puis reprise depuis maintenant
+            log.warn("Change stream on {} cannot resume ({}), reloading caches", collection, command.getErrorCodeName());
+            clearToken(collection);
+            if (RESIDENTS.equals(collection)) {
+                discardPendingRemote();
+                eventPublisher.publishEvent(ResidentChangedEvent.reload());
+            } else {
+                eventPublisher.publishEvent(new ResidentHistoryChangedEvent(null));
+            }
+        } else {
+            log.error("Change stream on {} failed, restarting in {} ms", collection, restartDelayMs, error);
+        }
+        scheduleRestart(collection);
+    }
+
+    /**
+     * Met l'événement distant en attente ; le premier d'une rafale programme la publication
+     * à la fin de la fenêtre de regroupement
+     */
+    private void enqueueRemote(ResidentChangedEvent event) {
+        boolean schedule;
+        synchronized (pendingRemote) {
+            pendingCount++;
+            // Au-delà du seuil un rechargement est décidé : inutile de garder les événements
+            if (pendingCount <= reloadThreshold) {
+                pendingRemote.add(event);
+            } else {
+                pendingRemote.clear();
+            }
+            schedule = !drainScheduled;
+            drainScheduled = true;
+        }
+        if (schedule && scheduler != null && !scheduler.isShutdown()) {
+            scheduler.schedule(this::drainRemoteEvents, coalesceWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publie les événements distants de la fenêtre écoulée, ou un seul rechargement s'ils dépassent le seuil
+     */
+    void drainRemoteEvents() {
+        List<ResidentChangedEvent> events;
+        int count;
+        synchronized (pendingRemote) {
+            events = new ArrayList<>(pendingRemote);
+            count = pendingCount;
+            pendingRemote.clear();
+            pendingCount = 0;
+            drainScheduled = false;
+        }
+        if (count > reloadThreshold) {
+            log.info("{} remote resident changes within {} ms, reloading resident caches", count, coalesceWindowMs);
+            eventPublisher.publishEvent(ResidentChangedEvent.reload());
+            return;
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Un rechargement complet rend caduques les corrections en attente
+     */
+    private void discardPendingRemote() {
+        synchronized (pendingRemote) {
+            pendingRemote.clear();
+            pendingCount = 0;
+        }
+    }
+
+    BsonValue loadToken(String collection) {
+        return tokenRepository.findById(tokenId(collection))
+                .map(stored -> (BsonValue) BsonDocument.parse(stored.getToken()))
+                .orElse(null);
+    }
+
+    private void rememberToken(String collection, BsonDocument resumeToken) {
+        if (resumeToken != null) {
+            unsavedTokens.put(collection, resumeToken);
+        }
+    }
+
+    /**
+     * Enregistre le dernier token reçu de chaque flux depuis le précédent enregistrement
+     */
+    void flushTokens() {
+        for (String collection : List.of(RESIDENTS, HISTORY)) {
+            BsonDocument resumeToken = unsavedTokens.remove(collection);
+            if (resumeToken == null) {
+                continue;
+            }
+            try {
+                tokenRepository.save(new ChangeStreamToken(tokenId(collection), resumeToken.toJson(), Instant.now()));
+            } catch (Exception e) {
+                // Au pire les événements seront rejoués au prochain démarrage, ce qui est sans effet
+                unsavedTokens.putIfAbsent(collection, resumeToken);
+                log.warn("Failed to persist resume token for {}: {}", collection, e.getMessage());
+            }
+        }
+    }
+
+    private void clearToken(String collection) {
+        unsavedTokens.remove(collection);
+        tokenRepository.deleteById(tokenId(collection));
+    }
+
+    private void scheduleRestart(String collection) {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> subscribe(collection), restartDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Une position par instance : chacune doit rejouer les événements manqués dans ses propres caches
+     */
+    private String tokenId(String collection) {
+        return collection + ":" + instanceId;
+    }
+
+    private static String documentId(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.containsKey("_id")) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString()
+                : id.isString() ? id.asString().getValue()
+                : id.toString();
+    }
+
+    private static long seqOf(Resident resident) {
+        return resident != null && resident.getChangeSeq() != null ? resident.getChangeSeq() : 0L;
+    }
+
+    private static String upsertKey(String residentId, long changeSeq) {
+        return residentId + ":" + changeSeq;
+    }
+
+    private static String deleteKey(String residentId) {
+        return residentId + ":DELETE";
+    }
+}
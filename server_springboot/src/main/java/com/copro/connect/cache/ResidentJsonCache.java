@@ -0,0 +1,220 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corps JSON déjà sérialisés (UTF-8 et gzip) des réponses lourdes sur les résidents.
+ * <p>
+ * Chaque entrée est associée à la version courante des données, incrémentée à chaque écriture
+ * sur un résident : l'ETag en dérive directement et une requête servie depuis le cache
+ * se résume à une copie d'octets. Les écritures des autres instances arrivent par le change
+ * stream ({@code ResidentChangeStreamListener}) ; la durée de vie maximale reste un filet
+ * de sécurité quand il est désactivé.
+ */
+@Slf4j
+@Component
+public class ResidentJsonCache {
+
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+
+    // Distingue les ETags d'un redémarrage à l'autre, la version repartant de zéro
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, CachedBody> entries = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public ResidentJsonCache(ObjectMapper objectMapper,
+                             @Value("${residents.json-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Retourne le corps en cache pour la version courante, ou le sérialise une seule fois
+     */
+    public CachedBody get(String key, Supplier<?> loader) {
+        return get(key, (BodyWriter) out -> objectMapper.writeValue(out, loader.get()));
+    }
+
+    /**
+     * Variante où le corps est écrit directement en flux, sans objet intermédiaire
+     */
+    public CachedBody get(String key, BodyWriter writer) {
+        long currentVersion = version.get();
+        CachedBody cached = entries.get(key);
+        if (isFresh(cached, currentVersion)) {
+            return cached;
+        }
+
+        synchronized (lockFor(key)) {
+            cached = entries.get(key);
+            if (isFresh(cached, currentVersion)) {
+                return cached;
+            }
+
+            // La version est lue avant le chargement : une écriture concurrente invalidera l'entrée
+            long start = System.nanoTime();
+            CachedBody body = serialize(currentVersion, writer);
+            entries.put(key, body);
+            log.debug("JSON body '{}' cached: {} bytes ({} gzip) in {} ms",
+                    key, body.json().length, body.gzip().length, (System.nanoTime() - start) / 1_000_000);
+            return body;
+        }
+    }
+
+    /**
+     * Corps en cache pour la version courante, null s'il faut le produire
+     */
+    public CachedBody peek(String key) {
+        CachedBody cached = entries.get(key);
+        return isFresh(cached, version.get()) ? cached : null;
+    }
+
+    /**
+     * Enveloppe {@code writer} pour écrire le corps directement vers le client tout en le
+     * conservant : une fois l'écriture terminée, il est mis en cache pour la version lue avant
+     * le chargement. Le client reçoit les premiers octets sans attendre la fin de la sérialisation.
+     */
+    public BodyWriter filling(String key, BodyWriter writer) {
+        long currentVersion = version.get();
+        return out -> {
+            long start = System.nanoTime();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream(8192);
+            writer.writeTo(new TeeOutputStream(out, copy));
+            CachedBody body = toBody(currentVersion, copy.toByteArray());
+            entries.put(key, body);
+            log.debug("JSON body '{}' streamed and cached: {} bytes ({} gzip) in {} ms",
+                    key, body.json().length, body.gzip().length, (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private boolean isFresh(CachedBody cached, long currentVersion) {
+        return cached != null
+                && cached.version() == currentVersion
+                && System.nanoTime() - cached.createdAt() < ttlNanos;
+    }
+
+    private Object lockFor(String key) {
+        return locks.computeIfAbsent(key, k -> new Object());
+    }
+
+    private CachedBody serialize(long dataVersion, BodyWriter writer) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            writer.writeTo(out);
+            return toBody(dataVersion, out.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Erreur lors de la sérialisation de la réponse", e);
+        }
+    }
+
+    private CachedBody toBody(long dataVersion, byte[] json) {
+        // Le CRC distingue deux corps de même version rechargés après expiration
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        String etag = "\"" + bootId + "-" + dataVersion + "-" + Long.toHexString(crc.getValue()) + "\"";
+        return new CachedBody(dataVersion, etag, json, gzip(json), System.nanoTime());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copie chaque octet écrit vers le client dans le tampon destiné au cache
+     */
+    private static final class TeeOutputStream extends FilterOutputStream {
+
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        /**
+         * Le générateur JSON ferme sa cible : le flux du client reste à la charge de l'appelant
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Corps sérialisé pour une version donnée des données
+     */
+    public record CachedBody(long version, String etag, byte[] json, byte[] gzip, long createdAt) {
+
+        /**
+         * ETag de la représentation envoyée : chaque codage (gzip ou identité) a son propre
+         * validateur fort, un cache partagé ne peut pas servir l'un à la place de l'autre
+         */
+        public String etag(boolean gzipped) {
+            return gzipped ? etag.substring(0, etag.length() - 1) + "-gz\"" : etag;
+        }
+
+        public boolean matches(String ifNoneMatch, boolean gzipped) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            String expected = etag(gzipped);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(expected) || tag.equals("W/" + expected)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
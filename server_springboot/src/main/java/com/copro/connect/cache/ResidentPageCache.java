@@ -0,0 +1,71 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Résultats de la recherche paginée conservés quelques secondes, par combinaison de filtres.
+ * <p>
+ * Des requêtes identiques simultanées n'exécutent qu'une seule requête Mongo (les autres
+ * attendent le même chargement). Toute écriture sur un résident incrémente la version
+ * des données, qui fait partie de la clé : un chargement commencé avant l'écriture
+ * ne peut plus être servi. Les résidents retournés sont partagés et ne doivent pas être modifiés.
+ */
+@Component
+public class ResidentPageCache {
+
+    static final String CACHE_NAME = "residents.pages";
+
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<VersionedKey, Object> pages;
+
+    public ResidentPageCache(MeterRegistry meterRegistry,
+                             @Value("${residents.page-cache.max-size:1000}") long maxSize,
+                             @Value("${residents.page-cache.ttl-seconds:5}") long ttlSeconds) {
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, CACHE_NAME);
+    }
+
+    /**
+     * @param loader chargement de la page ; son type doit être le même pour une projection donnée
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        return (T) pages.get(new VersionedKey(version.get(), key), k -> loader.get());
+    }
+
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        version.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    /**
+     * Filtres normalisés (null si absent ou « Tous ») ; le Pageable porte page, taille et tri.
+     * {@code fields} : propriétés du résumé chargées, null pour les documents complets.
+     */
+    public record Key(String search, String batiment, String statutLot, Pageable pageable, Set<String> fields) {
+
+        public Key(String search, String batiment, String statutLot, Pageable pageable) {
+            this(search, batiment, statutLot, pageable, null);
+        }
+    }
+
+    private record VersionedKey(long version, Key key) {}
+}
@@ -0,0 +1,224 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Vue en mémoire de tous les résidents, triés par bâtiment puis porte.
+ * <p>
+ * La liste est immuable : chaque écriture publiée par {@code ResidentService} produit une
+ * nouvelle copie corrigée, échangée atomiquement. Les lecteurs ne prennent aucun verrou
+ * et lisent toujours un état cohérent. Désactivée par défaut ({@code residents.snapshot.enabled}).
+ * <p>
+ * Les corrections sont appliquées une à une. Celles reçues pendant un rechargement sont aussi
+ * mises de côté puis rejouées sur la liste relue, sauf si la base contenait déjà une version
+ * au moins aussi récente ({@code changeSeq}) : le rechargement n'efface aucune écriture.
+ * <p>
+ * Les résidents exposés sont partagés entre les requêtes et ne doivent pas être modifiés.
+ */
+@Slf4j
+@Component
+public class ResidentSnapshot {
+
+    /**
+     * Même ordre que findAllByOrderByBatimentAscPorteSortKeyAscIdAsc
+     */
+    static final Comparator<Resident> ORDER = Comparator
+            .comparing(Resident::getBatiment, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Resident::getPorteSortKey, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Resident::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private final ResidentRepository residentRepository;
+    private final boolean enabled;
+    private final AtomicReference<State> state = new AtomicReference<>();
+
+    /**
+     * Sérialise les corrections et la publication d'un rechargement
+     */
+    private final Object patchLock = new Object();
+
+    /**
+     * Un seul rechargement à la fois ; la lecture en base se fait hors de patchLock
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Corrections reçues pendant le rechargement en cours, null hors rechargement (protégé par patchLock)
+     */
+    private List<ResidentChangedEvent> patchedDuringRebuild;
+
+    public ResidentSnapshot(ResidentRepository residentRepository,
+                            @Value("${residents.snapshot.enabled:false}") boolean enabled) {
+        this.residentRepository = residentRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return true si le snapshot est chargé et peut servir les lectures
+     */
+    public boolean isReady() {
+        return state.get() != null;
+    }
+
+    /**
+     * Liste immuable et triée des résidents
+     */
+    public List<Resident> residents() {
+        return requireState().residents();
+    }
+
+    /**
+     * Statistiques calculées une seule fois par version du snapshot
+     */
+    public StatisticsResponse statistics() {
+        State current = requireState();
+        StatisticsResponse statistics = current.statistics;
+        if (statistics == null) {
+            statistics = StatisticsResponse.fromResidents(current.residents());
+            current.statistics = statistics;
+        }
+        return statistics;
+    }
+
+    /**
+     * Recharge entièrement le snapshot depuis la base
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (patchLock) {
+                patchedDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long start = System.nanoTime();
+                List<Resident> loaded = new ArrayList<>(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc());
+                loaded.sort(ORDER);
+                int replayed;
+                synchronized (patchLock) {
+                    State rebuilt = new State(Collections.unmodifiableList(loaded));
+                    replayed = 0;
+                    for (ResidentChangedEvent event : patchedDuringRebuild) {
+                        if (!rebuilt.alreadyContains(event)) {
+                            rebuilt = rebuilt.apply(event);
+                            replayed++;
+                        }
+                    }
+                    state.set(rebuilt);
+                }
+                log.info("Resident snapshot loaded: {} residents in {} ms ({} concurrent writes replayed)",
+                        loaded.size(), (System.nanoTime() - start) / 1_000_000, replayed);
+            } finally {
+                synchronized (patchLock) {
+                    patchedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getAction() == ResidentChangedEvent.Action.RELOAD) {
+            if (isReady()) {
+                rebuild();
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (patchLock) {
+            // Pendant le chargement initial il n'y a encore rien à corriger, mais l'écriture sera rejouée
+            if (patchedDuringRebuild != null) {
+                patchedDuringRebuild.add(event);
+            }
+            State current = state.get();
+            if (current == null) {
+                return;
+            }
+            state.set(current.apply(event));
+        }
+        log.debug("Resident snapshot patched ({} {}) in {} µs",
+                event.getAction(), event.getResidentId(), (System.nanoTime() - start) / 1_000);
+    }
+
+    private State requireState() {
+        State current = state.get();
+        if (current == null) {
+            throw new IllegalStateException("Le snapshot des résidents n'est pas chargé");
+        }
+        return current;
+    }
+
+    private static final class State {
+
+        private final List<Resident> residents;
+
+        // Calculées à la demande ; une course entre deux lecteurs ne fait que dupliquer le calcul
+        private volatile StatisticsResponse statistics;
+
+        State(List<Resident> residents) {
+            this.residents = residents;
+        }
+
+        List<Resident> residents() {
+            return residents;
+        }
+
+        /**
+         * @return true si la liste contient déjà l'écriture ou une version plus récente du résident
+         */
+        boolean alreadyContains(ResidentChangedEvent event) {
+            if (event.getAction() == ResidentChangedEvent.Action.DELETE) {
+                // Un identifiant supprimé ne réapparaît pas : présent signifie lu avant la suppression
+                return false;
+            }
+            for (Resident resident : residents) {
+                if (Objects.equals(resident.getId(), event.getResidentId())) {
+                    return resident.getChangeSeq() != null && resident.getChangeSeq() >= event.getChangeSeq();
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Copie corrigée de la liste : retrait de l'ancienne version puis insertion triée
+         */
+        State apply(ResidentChangedEvent event) {
+            List<Resident> copy = new ArrayList<>(residents.size() + 1);
+            String id = event.getResidentId();
+            for (Resident resident : residents) {
+                if (!Objects.equals(resident.getId(), id)) {
+                    copy.add(resident);
+                }
+            }
+
+            Resident updated = event.getResident();
+            if (event.getAction() != ResidentChangedEvent.Action.DELETE && updated != null) {
+                int index = Collections.binarySearch(copy, updated, ORDER);
+                copy.add(index >= 0 ? index : -index - 1, updated);
+            }
+            return new State(Collections.unmodifiableList(copy));
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.copro.connect.controller;
 import com.copro.connect.dto.LoginRequest;
 import com.copro.connect.dto.LoginResponse;
 import com.copro.connect.dto.MfaVerifyRequest;
+import com.copro.connect.security.ClientIpResolver;
+import com.copro.connect.security.LoginRateLimiter;
 import com.copro.connect.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,17 +20,23 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final ClientIpResolver clientIpResolver;
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                               HttpServletRequest httpRequest) {
         log.info("Login request received for user: {}", loginRequest.getUsername());
+        loginRateLimiter.acquire(loginRequest.getUsername(), clientIpResolver.resolve(httpRequest));
         LoginResponse response = authService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/verify-mfa")
-    public ResponseEntity<LoginResponse> verifyMfa(@Valid @RequestBody MfaVerifyRequest request) {
+    public ResponseEntity<LoginResponse> verifyMfa(@Valid @RequestBody MfaVerifyRequest request,
+                                                   HttpServletRequest httpRequest) {
         log.info("MFA verification request for user: {}", request.getUsername());
+        loginRateLimiter.acquire(request.getUsername(), clientIpResolver.resolve(httpRequest));
         LoginResponse response = authService.verifyMfa(request);
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,41 @@
+package com.copro.connect.controller;
+
+import com.copro.connect.dto.BuildingSummary;
+import com.copro.connect.dto.FloorSummary;
+import com.copro.connect.service.BuildingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/buildings")
+@RequiredArgsConstructor
+public class BuildingController {
+    
+    private final BuildingService buildingService;
+    
+    /**
+     * Bâtiments avec leurs totaux (lots, étages, occupants, comptes Happix)
+     */
+    @GetMapping
+    public ResponseEntity<List<BuildingSummary>> getBuildings() {
+        log.info("GET /api/buildings");
+        return ResponseEntity.ok(buildingService.getBuildings());
+    }
+    
+    /**
+     * Étages d'un bâtiment et leurs portes
+     */
+    @GetMapping("/{batiment}/floors")
+    public ResponseEntity<List<FloorSummary>> getFloors(@PathVariable String batiment) {
+        log.info("GET /api/buildings/{}/floors", batiment);
+        return ResponseEntity.ok(buildingService.getFloors(batiment));
+    }
+}
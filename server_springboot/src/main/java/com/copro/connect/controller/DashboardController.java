@@ -0,0 +1,35 @@
+package com.copro.connect.controller;
+
+import com.copro.connect.dto.DashboardResponse;
+import com.copro.connect.service.DashboardService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/dashboard")
+@RequiredArgsConstructor
+@Validated
+public class DashboardController {
+    
+    private final DashboardService dashboardService;
+    
+    /**
+     * Statistiques, première page de résidents et dernières modifications en un seul appel
+     */
+    @GetMapping
+    public ResponseEntity<DashboardResponse> getDashboard(
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int history) {
+        log.info("GET /api/dashboard - size: {}, history: {}", size, history);
+        return ResponseEntity.ok(dashboardService.getDashboard(size, history));
+    }
+}
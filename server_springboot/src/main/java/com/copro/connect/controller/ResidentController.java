@@ -1,25 +1,49 @@
 package com.copro.connect.controller;
 
+import com.copro.connect.cache.ResidentJsonCache;
+import com.copro.connect.dto.PagedResidentSummariesResponse;
 import com.copro.connect.dto.PagedResidentsResponse;
-import com.copro.connect.dto.ResidentsResponse;
-import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.dto.ResidentBatchResponse;
+import com.copro.connect.dto.ResidentBulkReport;
+import com.copro.connect.dto.ResidentBulkRequest;
+import com.copro.connect.dto.ResidentChangesResponse;
+import com.copro.connect.dto.ResidentImportReport;
+import com.copro.connect.dto.ResidentReconcileReport;
+import com.copro.connect.dto.ResidentScrollResponse;
 import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.HappixAccount;
+import com.copro.connect.model.Occupant;
 import com.copro.connect.model.Resident;
+import com.copro.connect.service.ResidentBulkService;
+import com.copro.connect.service.ResidentChangeService;
+import com.copro.connect.service.ResidentEventBroadcaster;
+import com.copro.connect.service.ResidentImportService;
+import com.copro.connect.service.ResidentPatchService;
+import com.copro.connect.service.ResidentReconcileService;
 import com.copro.connect.service.ResidentService;
+import com.copro.connect.service.ResidentStreamWriter;
 import com.copro.connect.validator.ResidentValidator;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Max;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -28,8 +52,21 @@ import java.util.Map;
 @Validated
 public class ResidentController {
     
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final String APPLICATION_MERGE_PATCH_VALUE = "application/merge-patch+json";
+    static final int MAX_BATCH_IDS = 500;
+    
     private final ResidentService residentService;
     private final ResidentValidator residentValidator;
+    private final ResidentJsonCache residentJsonCache;
+    private final ResidentStreamWriter residentStreamWriter;
+    private final ResidentChangeService residentChangeService;
+    private final ResidentEventBroadcaster residentEventBroadcaster;
+    private final ResidentImportService residentImportService;
+    private final ResidentReconcileService residentReconcileService;
+    private final ResidentPatchService residentPatchService;
+    private final ResidentBulkService residentBulkService;
     
     @GetMapping
     public ResponseEntity<PagedResidentsResponse> getAllResidents(
@@ -51,18 +88,118 @@ public class ResidentController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Liste allégée pour l'affichage en tableau : mêmes filtres et tri que GET /api/residents,
+     * fields=lot_id,porte,... pour ne recevoir que certaines colonnes
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<PagedResidentSummariesResponse> getResidentSummaries(
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String batiment,
+            @RequestParam(required = false) String statutLot,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) List<String> fields) {
+        log.info("GET /api/residents/summary - page: {}, size: {}, search: {}, batiment: {}, statut: {}, sort: {}, fields: {}",
+                 page, size, search, batiment, statutLot, sort, fields);
+        return ResponseEntity.ok(residentService.getResidentSummaries(page, size, search, batiment, statutLot, sort, fields));
+    }
+    
+    /**
+     * Parcours par bâtiment puis porte en ordre naturel : after=next de la réponse précédente
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ResidentScrollResponse> scrollResidents(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(100) int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String batiment,
+            @RequestParam(required = false) String statutLot) {
+        log.info("GET /api/residents/scroll - after: {}, size: {}, search: {}, batiment: {}, statut: {}",
+                 after, size, search, batiment, statutLot);
+        return ResponseEntity.ok(residentService.getResidentsAfter(after, size, search, batiment, statutLot));
+    }
+    
+    /**
+     * Depuis le cache si le corps de la version courante y est (ETag, 304) ; sinon écrit en flux
+     * directement vers le client, le cache se remplissant au passage
+     */
     @GetMapping("/all")
-    public ResponseEntity<ResidentsResponse> getAllResidentsNoPagination() {
+    public ResponseEntity<StreamingResponseBody> getAllResidentsNoPagination(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.info("GET /api/residents/all - Fetching all residents without pagination");
-        List<Resident> residents = residentService.getAllResidents();
-        return ResponseEntity.ok(new ResidentsResponse(residents));
+        ResidentJsonCache.CachedBody cached = residentJsonCache.peek("all");
+        if (cached != null) {
+            ResponseEntity<byte[]> response = cachedJson(cached, ifNoneMatch, acceptEncoding);
+            byte[] bytes = response.getBody();
+            StreamingResponseBody body = bytes == null ? null : out -> out.write(bytes);
+            return new ResponseEntity<>(body, response.getHeaders(), response.getStatusCode());
+        }
+        
+        ResidentJsonCache.BodyWriter writer = residentJsonCache.filling("all", residentStreamWriter::writeJson);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(out -> {
+                // finish() et non close() : le flux de la réponse reste géré par le conteneur
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+                writer.writeTo(gzip);
+                gzip.finish();
+            });
+        }
+        return response.body(writer::writeTo);
+    }
+    
+    @GetMapping(value = "/all", produces = ResidentController.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllResidents() {
+        log.info("GET /api/residents/all - Streaming all residents as NDJSON");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(residentStreamWriter::writeNdjson);
     }
     
     @GetMapping("/statistics")
-    public ResponseEntity<StatisticsResponse> getStatistics() {
+    public ResponseEntity<byte[]> getStatistics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.info("GET /api/residents/statistics - Calculating statistics");
-        StatisticsResponse statistics = residentService.getStatistics();
-        return ResponseEntity.ok(statistics);
+        ResidentJsonCache.CachedBody body = residentJsonCache.get("statistics", residentService::getStatistics);
+        return cachedJson(body, ifNoneMatch, acceptEncoding);
+    }
+    
+    @GetMapping("/changes")
+    public ResponseEntity<ResidentChangesResponse> getChanges(
+            @RequestParam(defaultValue = "0") @Min(0) long since,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(1000) int limit) {
+        log.info("GET /api/residents/changes - since: {}, limit: {}", since, limit);
+        return ResponseEntity.ok(residentChangeService.getChangesSince(since, limit));
+    }
+    
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        log.info("GET /api/residents/events - New SSE subscriber");
+        return residentEventBroadcaster.subscribe();
+    }
+    
+    /**
+     * Plusieurs résidents en un seul appel, dans l'ordre demandé ; les ids introuvables sont listés à part
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<ResidentBatchResponse> getResidentsByIds(@RequestParam List<String> ids) {
+        log.info("GET /api/residents/batch - {} ids", ids.size());
+        return ResponseEntity.ok(fetchBatch(ids));
+    }
+    
+    /**
+     * Variante POST pour les listes trop longues pour une URL
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ResidentBatchResponse> getResidentsByIdsPost(@RequestBody List<String> ids) {
+        log.info("POST /api/residents/batch - {} ids", ids.size());
+        return ResponseEntity.ok(fetchBatch(ids));
     }
     
     @GetMapping("/{id}")
@@ -87,6 +224,41 @@ public class ResidentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdResident);
     }
     
+    /**
+     * Import en masse depuis un fichier JSON (tableau de résidents) ou CSV envoyé tel quel dans le corps
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<ResidentImportReport> importResidents(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        log.info("POST /api/residents/import - Importing residents ({})", contentType);
+        
+        ResidentImportReport report = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? residentImportService.importCsv(body)
+                : residentImportService.importJson(body);
+        return ResponseEntity.ok(report);
+    }
+    
+    /**
+     * Applique un registre complet : création, mise à jour ou suppression des seuls lots qui diffèrent
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<ResidentReconcileReport> reconcileResidents(
+            @RequestBody List<Resident> roster,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        log.info("POST /api/residents/reconcile - {} lots (dryRun: {})", roster.size(), dryRun);
+        return ResponseEntity.ok(residentReconcileService.reconcile(roster, dryRun));
+    }
+    
+    /**
+     * Applique une même opération (statut, occupant, compte Happix, suppression) à plusieurs résidents
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<ResidentBulkReport> bulkUpdate(@Valid @RequestBody ResidentBulkRequest request) {
+        log.info("POST /api/residents/bulk - {}", request.getOperation());
+        return ResponseEntity.ok(residentBulkService.execute(request));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Resident> updateResident(
             @PathVariable String id,
@@ -100,6 +272,78 @@ public class ResidentController {
         return ResponseEntity.ok(updatedResident);
     }
     
+    /**
+     * Modification partielle (JSON Merge Patch) : seuls les champs présents sont écrits, null retire le champ
+     */
+    @PatchMapping(value = "/{id}", consumes = {APPLICATION_MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Resident> patchResident(
+            @PathVariable String id,
+            @RequestBody JsonNode patch) {
+        log.info("PATCH /api/residents/{} - Patching resident", id);
+        
+        residentValidator.validateId(id);
+        
+        return ResponseEntity.ok(residentPatchService.patchResident(id, patch));
+    }
+    
+    @PostMapping("/{id}/occupants")
+    public ResponseEntity<Resident> addOccupant(
+            @PathVariable String id,
+            @Valid @RequestBody Occupant occupant) {
+        log.info("POST /api/residents/{}/occupants - Adding occupant", id);
+        residentValidator.validateId(id);
+        Resident resident = residentPatchService.addElement(id, ResidentPatchService.OCCUPANTS, occupant);
+        return ResponseEntity.status(HttpStatus.CREATED).body(resident);
+    }
+    
+    @PutMapping("/{id}/occupants/{index}")
+    public ResponseEntity<Resident> replaceOccupant(
+            @PathVariable String id,
+            @PathVariable int index,
+            @Valid @RequestBody Occupant occupant) {
+        log.info("PUT /api/residents/{}/occupants/{} - Replacing occupant", id, index);
+        residentValidator.validateId(id);
+        return ResponseEntity.ok(residentPatchService.replaceElement(id, ResidentPatchService.OCCUPANTS, index, occupant));
+    }
+    
+    @DeleteMapping("/{id}/occupants/{index}")
+    public ResponseEntity<Resident> removeOccupant(
+            @PathVariable String id,
+            @PathVariable int index) {
+        log.info("DELETE /api/residents/{}/occupants/{} - Removing occupant", id, index);
+        residentValidator.validateId(id);
+        return ResponseEntity.ok(residentPatchService.removeElement(id, ResidentPatchService.OCCUPANTS, index));
+    }
+    
+    @PostMapping("/{id}/happix-accounts")
+    public ResponseEntity<Resident> addHappixAccount(
+            @PathVariable String id,
+            @Valid @RequestBody HappixAccount account) {
+        log.info("POST /api/residents/{}/happix-accounts - Adding Happix account", id);
+        residentValidator.validateId(id);
+        Resident resident = residentPatchService.addElement(id, ResidentPatchService.HAPPIX_ACCOUNTS, account);
+        return ResponseEntity.status(HttpStatus.CREATED).body(resident);
+    }
+    
+    @PutMapping("/{id}/happix-accounts/{index}")
+    public ResponseEntity<Resident> replaceHappixAccount(
+            @PathVariable String id,
+            @PathVariable int index,
+            @Valid @RequestBody HappixAccount account) {
+        log.info("PUT /api/residents/{}/happix-accounts/{} - Replacing Happix account", id, index);
+        residentValidator.validateId(id);
+        return ResponseEntity.ok(residentPatchService.replaceElement(id, ResidentPatchService.HAPPIX_ACCOUNTS, index, account));
+    }
+    
+    @DeleteMapping("/{id}/happix-accounts/{index}")
+    public ResponseEntity<Resident> removeHappixAccount(
+            @PathVariable String id,
+            @PathVariable int index) {
+        log.info("DELETE /api/residents/{}/happix-accounts/{} - Removing Happix account", id, index);
+        residentValidator.validateId(id);
+        return ResponseEntity.ok(residentPatchService.removeElement(id, ResidentPatchService.HAPPIX_ACCOUNTS, index));
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteResident(@PathVariable String id) {
         log.info("DELETE /api/residents/{} - Deleting resident", id);
@@ -114,4 +358,41 @@ public class ResidentController {
         
         return ResponseEntity.ok(response);
     }
+    
+    private ResidentBatchResponse fetchBatch(List<String> ids) {
+        if (ids.isEmpty()) {
+            throw new ValidationException("La liste des identifiants ne peut pas être vide");
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new ValidationException("Pas plus de " + MAX_BATCH_IDS + " identifiants par requête");
+        }
+        ids.forEach(residentValidator::validateId);
+        return residentService.getResidentsByIds(ids);
+    }
+    
+    /**
+     * Renvoie un corps JSON pré-sérialisé : 304 si l'ETag correspond, variante gzip si acceptée
+     */
+    private ResponseEntity<byte[]> cachedJson(ResidentJsonCache.CachedBody body, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (body.matches(ifNoneMatch, gzip)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(body.etag(gzip))
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.etag(gzip))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
 }
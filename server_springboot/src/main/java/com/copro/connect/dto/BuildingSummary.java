@@ -0,0 +1,26 @@
+package com.copro.connect.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totaux d'un bâtiment (agrégation Mongo)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BuildingSummary {
+
+    private String batiment;
+
+    private int lots;
+
+    private int floors;
+
+    private int occupants;
+
+    @JsonProperty("happix_accounts")
+    private int happixAccounts;
+}
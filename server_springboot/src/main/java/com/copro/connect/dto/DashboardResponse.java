@@ -0,0 +1,24 @@
+package com.copro.connect.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Données de l'écran d'accueil en une seule réponse
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardResponse {
+
+    private StatisticsResponse statistics;
+
+    private PagedResidentsResponse residents;
+
+    @JsonProperty("recent_history")
+    private List<ResidentHistoryResponse> recentHistory;
+}
@@ -0,0 +1,32 @@
+package com.copro.connect.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Porte d'un étage : le lot, son propriétaire et le nombre d'occupants
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoorSummary {
+
+    @JsonProperty("id")
+    private String id;
+
+    private String porte;
+
+    @JsonProperty("lot_id")
+    private String lotId;
+
+    @JsonProperty("statut_lot")
+    private String statutLot;
+
+    @JsonProperty("proprietaire_nom")
+    private String proprietaireNom;
+
+    @JsonProperty("occupants_count")
+    private int occupantsCount;
+}
@@ -0,0 +1,22 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Étage d'un bâtiment et ses portes, triées par numéro (agrégation Mongo)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorSummary {
+
+    private String etage;
+
+    private int lots;
+
+    private List<DoorSummary> doors;
+}
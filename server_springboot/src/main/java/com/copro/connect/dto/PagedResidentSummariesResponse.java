@@ -0,0 +1,20 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PagedResidentSummariesResponse {
+    
+    private List<ResidentSummary> residents;
+    private int currentPage;
+    private int totalPages;
+    private long totalElements;
+    private int pageSize;
+    
+}
@@ -0,0 +1,21 @@
+package com.copro.connect.dto;
+
+import com.copro.connect.model.Resident;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résidents demandés par id, dans l'ordre de la requête, et identifiants introuvables
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentBatchResponse {
+
+    private List<Resident> residents;
+
+    private List<String> missing;
+}
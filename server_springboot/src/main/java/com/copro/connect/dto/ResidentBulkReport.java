@@ -0,0 +1,35 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat d'une opération en masse
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentBulkReport {
+
+    private String operation;
+
+    /**
+     * Résidents désignés par la requête
+     */
+    private int matched;
+
+    /**
+     * Résidents réellement modifiés ou supprimés (ceux déjà dans l'état demandé ne sont pas écrits)
+     */
+    private int modified;
+
+    /**
+     * Résidents modifiés par ailleurs entre la lecture et l'écriture, laissés inchangés
+     */
+    private List<String> conflicts;
+
+    private long durationMs;
+}
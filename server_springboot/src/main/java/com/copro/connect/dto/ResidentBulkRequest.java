@@ -0,0 +1,75 @@
+package com.copro.connect.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opération appliquée en une fois à plusieurs résidents, désignés par id ou par filtre
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentBulkRequest {
+
+    public enum Operation {
+        SET_STATUT,
+        UPDATE_OCCUPANT,
+        REMOVE_OCCUPANT,
+        UPDATE_HAPPIX_ACCOUNT,
+        REMOVE_HAPPIX_ACCOUNT,
+        DELETE
+    }
+
+    /**
+     * Résidents visés par id (exclusif avec {@code filter})
+     */
+    private List<String> ids;
+
+    /**
+     * Résidents visés par les critères de la liste paginée (exclusif avec {@code ids})
+     */
+    private Filter filter;
+
+    @NotNull(message = "L'opération est obligatoire")
+    private Operation operation;
+
+    /**
+     * SET_STATUT : nouveau statut du lot
+     */
+    @JsonProperty("statut_lot")
+    private String statutLot;
+
+    /**
+     * Opérations sur un occupant ou un compte Happix : nom de l'élément visé
+     */
+    private String nom;
+
+    /**
+     * Comptes Happix : type de l'élément visé (facultatif, ex. "autorisé")
+     */
+    private String type;
+
+    /**
+     * UPDATE_OCCUPANT / UPDATE_HAPPIX_ACCOUNT : nouvelles valeurs par champ (null retire la valeur)
+     */
+    private Map<String, String> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+
+        private String search;
+
+        private String batiment;
+
+        @JsonProperty("statut_lot")
+        private String statutLot;
+    }
+}
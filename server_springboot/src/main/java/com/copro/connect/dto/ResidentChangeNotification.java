@@ -0,0 +1,30 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Notification compacte envoyée aux abonnés SSE après une écriture sur un résident
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentChangeNotification {
+
+    private String id;
+    private String action;
+    private long seq;
+
+    /**
+     * Champs modifiés (noms JSON), vide pour une création ou une suppression
+     */
+    private List<String> changedFields;
+
+    private long totalLots;
+    private long totalBatiments;
+    private long totalOccupants;
+    private long totalHappix;
+}
@@ -0,0 +1,33 @@
+package com.copro.connect.dto;
+
+import com.copro.connect.model.Resident;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Modifications survenues depuis une séquence donnée.
+ * Un même résident n'apparaît qu'une fois, dans son dernier état (upsert ou suppression).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentChangesResponse {
+
+    private long since;
+
+    /**
+     * Valeur à renvoyer en {@code since} à la prochaine synchronisation
+     */
+    private long nextSince;
+
+    private long currentSeq;
+
+    private boolean hasMore;
+
+    private List<Resident> upserts;
+
+    private List<String> deletions;
+}
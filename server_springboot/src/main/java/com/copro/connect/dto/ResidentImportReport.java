@@ -0,0 +1,48 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat d'un import de résidents : compteurs, débit et erreurs ligne par ligne
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentImportReport {
+
+    private int totalRows;
+
+    private int imported;
+
+    private int rejected;
+
+    private long durationMs;
+
+    private double lotsPerSecond;
+
+    /**
+     * Erreurs par ligne (numéro d'enregistrement dans le fichier, à partir de 1), limitées en nombre
+     */
+    private List<RowError> errors;
+
+    /**
+     * true si des erreurs ont été omises de la liste
+     */
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        private int row;
+
+        private String lotId;
+
+        private List<String> messages;
+    }
+}
@@ -0,0 +1,37 @@
+package com.copro.connect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat d'une réconciliation avec un registre complet : seuls les lots différents sont écrits
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentReconcileReport {
+
+    private int totalRows;
+
+    private int unchanged;
+
+    private int created;
+
+    private int updated;
+
+    private int deleted;
+
+    private int rejected;
+
+    /**
+     * true si rien n'a été écrit (simulation) : les compteurs indiquent ce qui aurait changé
+     */
+    private boolean dryRun;
+
+    private long durationMs;
+
+    private List<ResidentImportReport.RowError> errors;
+}
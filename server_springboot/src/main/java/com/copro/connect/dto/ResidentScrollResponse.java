@@ -0,0 +1,24 @@
+package com.copro.connect.dto;
+
+import com.copro.connect.model.Resident;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résidents suivant une position dans l'ordre naturel (bâtiment, porte)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResidentScrollResponse {
+
+    private List<Resident> residents;
+
+    /**
+     * Valeur à renvoyer en {@code after} pour la suite, null si la liste est terminée
+     */
+    private String next;
+}
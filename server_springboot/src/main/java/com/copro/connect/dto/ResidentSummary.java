@@ -0,0 +1,72 @@
+package com.copro.connect.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ligne de la liste des résidents : identification du lot, propriétaire et nombre d'occupants /
+ * de comptes Happix, sans leurs coordonnées. Les champs non demandés (fields=) sont omis.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResidentSummary {
+
+    /**
+     * Champs sélectionnables : nom JSON → propriété (chargée par projection Mongo)
+     */
+    public static final Map<String, String> FIELDS = fields();
+
+    /**
+     * Compteurs calculés par Mongo : propriété → liste comptée
+     */
+    public static final Map<String, String> COUNTS = Map.of(
+            "occupantsCount", "occupants",
+            "happixAccountsCount", "happixAccounts"
+    );
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("lot_id")
+    private String lotId;
+
+    private String batiment;
+
+    private String etage;
+
+    private String porte;
+
+    @JsonProperty("statut_lot")
+    private String statutLot;
+
+    @JsonProperty("proprietaire_nom")
+    private String proprietaireNom;
+
+    @JsonProperty("occupants_count")
+    private Integer occupantsCount;
+
+    @JsonProperty("happix_accounts_count")
+    private Integer happixAccountsCount;
+
+    private static Map<String, String> fields() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("lot_id", "lotId");
+        fields.put("batiment", "batiment");
+        fields.put("etage", "etage");
+        fields.put("porte", "porte");
+        fields.put("statut_lot", "statutLot");
+        fields.put("proprietaire_nom", "proprietaireNom");
+        fields.put("occupants_count", "occupantsCount");
+        fields.put("happix_accounts_count", "happixAccountsCount");
+        return Collections.unmodifiableMap(fields);
+    }
+}
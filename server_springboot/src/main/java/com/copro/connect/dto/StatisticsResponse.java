@@ -1,9 +1,12 @@
 package com.copro.connect.dto;
 
+import com.copro.connect.model.Resident;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -20,4 +23,84 @@ public class StatisticsResponse {
     private long lotsVides;
     private double moyenneOccupants;
     private Map<String, Long> happixByType;
+
+    /**
+     * Calcule les statistiques à partir d'une liste de résidents déjà chargée
+     */
+    public static StatisticsResponse fromResidents(List<Resident> residents) {
+        // Calcul des statistiques
+        long totalLots = residents.size();
+        
+        // Total occupants
+        long totalOccupants = residents.stream()
+            .mapToLong(r -> r.getOccupants() != null ? r.getOccupants().size() : 0)
+            .sum();
+        
+        // Total comptes Happix
+        long totalHappix = residents.stream()
+            .mapToLong(r -> r.getHappixAccounts() != null ? r.getHappixAccounts().size() : 0)
+            .sum();
+        
+        // Nombre de bâtiments uniques
+        long totalBatiments = residents.stream()
+            .map(Resident::getBatiment)
+            .filter(b -> b != null && !b.isEmpty())
+            .distinct()
+            .count();
+        
+        // Compter par statut
+        Map<String, Long> statutCount = new HashMap<>();
+        residents.forEach(r -> {
+            String statut = r.getStatutLot() != null && !r.getStatutLot().isEmpty() 
+                ? r.getStatutLot() 
+                : "Non défini";
+            statutCount.put(statut, statutCount.getOrDefault(statut, 0L) + 1);
+        });
+        
+        // Compter par bâtiment
+        Map<String, Long> batimentCount = new HashMap<>();
+        residents.forEach(r -> {
+            String bat = r.getBatiment() != null && !r.getBatiment().isEmpty() 
+                ? r.getBatiment() 
+                : "Non défini";
+            batimentCount.put(bat, batimentCount.getOrDefault(bat, 0L) + 1);
+        });
+        
+        // Lots avec/sans occupants
+        long lotsAvecOccupants = residents.stream()
+            .filter(r -> r.getOccupants() != null && !r.getOccupants().isEmpty())
+            .count();
+        long lotsVides = totalLots - lotsAvecOccupants;
+        
+        // Moyenne occupants par lot
+        double moyenneOccupants = totalLots > 0 
+            ? Math.round((double) totalOccupants / totalLots * 10.0) / 10.0 
+            : 0.0;
+        
+        // Compter comptes Happix par type
+        Map<String, Long> happixByType = new HashMap<>();
+        residents.forEach(r -> {
+            if (r.getHappixAccounts() != null) {
+                r.getHappixAccounts().forEach(h -> {
+                    String type = h.getType() != null && !h.getType().isEmpty() 
+                        ? h.getType() 
+                        : "Non défini";
+                    happixByType.put(type, happixByType.getOrDefault(type, 0L) + 1);
+                });
+            }
+        });
+        
+        return new StatisticsResponse(
+            totalLots,
+            totalBatiments,
+            totalOccupants,
+            totalHappix,
+            statutCount,
+            batimentCount,
+            lotsAvecOccupants,
+            lotsVides,
+            moyenneOccupants,
+            happixByType
+        );
+    }
 }
@@ -0,0 +1,85 @@
+package com.copro.connect.event;
+
+import com.copro.connect.model.Resident;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Événement publié après chaque écriture réussie sur un résident.
+ * Les caches et vues en mémoire s'y abonnent pour rester synchronisés avec la base.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResidentChangedEvent {
+
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE,
+        /**
+         * Modifications non détaillées (collection supprimée, historique du flux perdu) :
+         * les vues en mémoire doivent être rechargées entièrement
+         */
+        RELOAD
+    }
+
+    private final Action action;
+    private final String residentId;
+
+    /**
+     * État après écriture (null pour une suppression)
+     */
+    private final Resident resident;
+
+    /**
+     * État avant écriture (null pour une création)
+     */
+    private final Resident previous;
+
+    /**
+     * Séquence de l'écriture (voir ResidentChangeService), 0 si inconnue
+     */
+    private final long changeSeq;
+
+    /**
+     * true si l'écriture a été faite par une autre instance (reçue via le change stream)
+     */
+    private final boolean remote;
+
+    public static ResidentChangedEvent created(Resident resident) {
+        return new ResidentChangedEvent(Action.CREATE, resident.getId(), resident, null, seqOf(resident), false);
+    }
+
+    public static ResidentChangedEvent updated(Resident previous, Resident resident) {
+        return new ResidentChangedEvent(Action.UPDATE, resident.getId(), resident, previous, seqOf(resident), false);
+    }
+
+    public static ResidentChangedEvent deleted(Resident previous) {
+        return deleted(previous, 0L);
+    }
+
+    public static ResidentChangedEvent deleted(Resident previous, long changeSeq) {
+        return new ResidentChangedEvent(Action.DELETE, previous.getId(), null, previous, changeSeq, false);
+    }
+
+    /**
+     * Écriture d'une autre instance : seul l'état final est connu (null si supprimé)
+     */
+    public static ResidentChangedEvent remote(Action action, String residentId, Resident resident) {
+        long changeSeq = resident != null ? seqOf(resident) : 0L;
+        return new ResidentChangedEvent(action, residentId, resident, null, changeSeq, true);
+    }
+
+    /**
+     * Modifications en masse (import, flux invalidé) : les vues en mémoire doivent être rechargées
+     */
+    public static ResidentChangedEvent reload() {
+        return new ResidentChangedEvent(Action.RELOAD, null, null, null, 0L, false);
+    }
+
+    private static long seqOf(Resident resident) {
+        return resident.getChangeSeq() != null ? resident.getChangeSeq() : 0L;
+    }
+}
@@ -0,0 +1,21 @@
+package com.copro.connect.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Entrée d'historique écrite sur la collection residents_history, observée via le change stream
+ * (quelle que soit l'instance qui l'a écrite). Les caches d'historique s'y abonnent.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResidentHistoryChangedEvent {
+
+    /**
+     * Résident concerné, null si inconnu (suppression, collection supprimée) :
+     * tout l'historique en cache doit alors être invalidé
+     */
+    private final String residentId;
+}
@@ -0,0 +1,8 @@
+package com.copro.connect.exception;
+
+public class ConcurrentModificationException extends RuntimeException {
+    
+    public ConcurrentModificationException(String id) {
+        super("Le résident " + id + " a été modifié entre-temps, veuillez recharger puis réessayer");
+    }
+}
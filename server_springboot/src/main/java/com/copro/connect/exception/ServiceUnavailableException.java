@@ -0,0 +1,19 @@
+package com.copro.connect.exception;
+
+/**
+ * Levée lorsque le serveur ne peut pas répondre à temps, par saturation ou lenteur
+ * d'une dépendance (HTTP 503).
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,18 @@
+package com.copro.connect.exception;
+
+/**
+ * Levée lorsqu'une limite de débit est atteinte (HTTP 429).
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
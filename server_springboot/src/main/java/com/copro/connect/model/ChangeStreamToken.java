@@ -0,0 +1,33 @@
+package com.copro.connect.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Dernier resume token traité pour un change stream, afin de reprendre
+ * là où l'instance s'était arrêtée après un redémarrage
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+
+    /**
+     * Identifiant du flux (nom de la collection observée et de l'instance)
+     */
+    @Id
+    private String id;
+
+    /**
+     * Resume token au format JSON étendu
+     */
+    private String token;
+
+    private Instant updatedAt;
+}
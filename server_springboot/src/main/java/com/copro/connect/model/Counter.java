@@ -0,0 +1,46 @@
+package com.copro.connect.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compteur nommé, incrémenté atomiquement (séquences)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "counters")
+public class Counter {
+
+    @Id
+    private String id;
+
+    private long seq;
+
+    /**
+     * Plages réservées dont l'écriture n'est pas terminée, toutes instances confondues
+     */
+    private List<Pending> pending = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pending {
+
+        private long first;
+
+        private long last;
+
+        /**
+         * Date de réservation : au-delà d'un délai, la plage est celle d'une instance arrêtée
+         */
+        private Instant reservedAt;
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -13,12 +14,15 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "mfa_codes")
+@CompoundIndex(name = "username_used_createdAt", def = "{'username': 1, 'used': 1, 'createdAt': -1}")
 public class MfaCode {
 
+    /**
+     * Nom d'utilisateur : un seul code actif par utilisateur (voir upsertCode)
+     */
     @Id
     private String id;
 
-    @Indexed
     private String username;
 
     private String code;
@@ -1,5 +1,6 @@
 package com.copro.connect.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,6 +8,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -23,6 +26,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "residents")
+@CompoundIndexes({
+    @CompoundIndex(name = "batiment_porteSortKey_id", def = "{'batiment': 1, 'porteSortKey': 1, '_id': 1}"),
+    @CompoundIndex(name = "batiment_etageSortKey_porteSortKey", def = "{'batiment': 1, 'etageSortKey': 1, 'porteSortKey': 1}")
+})
 public class Resident {
     
     @Id
@@ -85,4 +92,28 @@ public class Resident {
     @LastModifiedDate
     @JsonProperty("updatedAt")
     private Instant updatedAt;
+    
+    /**
+     * Numéro de séquence de la dernière écriture, croissant sur toute la collection
+     * (utilisé par la synchronisation différentielle)
+     */
+    @Indexed
+    @JsonProperty("change_seq")
+    private Long changeSeq;
+    
+    /**
+     * Empreinte du contenu métier (voir ResidentFingerprint), interne au serveur
+     */
+    @JsonIgnore
+    private String contentHash;
+    
+    /**
+     * Clés de tri naturel de l'étage et de la porte (voir NaturalSortKey), recalculées
+     * à chaque normalisation, internes au serveur
+     */
+    @JsonIgnore
+    private String etageSortKey;
+    
+    @JsonIgnore
+    private String porteSortKey;
 }
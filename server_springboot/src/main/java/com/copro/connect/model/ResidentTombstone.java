@@ -0,0 +1,35 @@
+package com.copro.connect.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Trace d'un résident supprimé, conservée pour la synchronisation différentielle
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "residents_tombstones")
+public class ResidentTombstone {
+
+    /**
+     * Identifiant du résident supprimé
+     */
+    @Id
+    @JsonProperty("id")
+    private String id;
+
+    @Indexed
+    @JsonProperty("change_seq")
+    private long changeSeq;
+
+    @JsonProperty("deleted_at")
+    private Instant deletedAt;
+}
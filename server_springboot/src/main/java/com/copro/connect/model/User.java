@@ -47,6 +47,12 @@ public class User implements UserDetails {
     
     private boolean mfaEnabled = true;
     
+    /**
+     * Version embarquée dans les JWT : l'incrémenter révoque les tokens déjà émis
+     */
+    @JsonIgnore
+    private long tokenVersion;
+    
     @CreatedDate
     @JsonProperty("createdAt")
     private Instant createdAt;
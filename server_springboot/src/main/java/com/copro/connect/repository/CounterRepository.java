@@ -0,0 +1,72 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.Counter;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Séquences nommées stockées dans la collection counters
+ */
+@Repository
+@RequiredArgsConstructor
+public class CounterRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Réserve {@code count} valeurs consécutives et les inscrit comme en cours d'écriture dans la
+     * même mise à jour : aucune instance ne peut voir la séquence avancer sans voir la réservation.
+     * La mise à jour est conditionnée à la valeur lue ; elle est retentée si une autre réservation
+     * est passée entre-temps.
+     * @return la première valeur réservée ; {@link #release(String, long, Instant)} doit être appelé ensuite
+     */
+    public long reserve(String name, int count) {
+        while (true) {
+            Counter current = mongoTemplate.findById(name, Counter.class);
+            long seq = current != null ? current.getSeq() : 0L;
+            Counter.Pending pending = new Counter.Pending(seq + 1, seq + count, Instant.now());
+            try {
+                Counter updated = mongoTemplate.findAndModify(
+                        new Query(Criteria.where("_id").is(name).and("seq").is(seq)),
+                        new Update().inc("seq", count).push("pending", pending),
+                        FindAndModifyOptions.options().upsert(current == null).returnNew(true),
+                        Counter.class);
+                if (updated != null) {
+                    return seq + 1;
+                }
+            } catch (DuplicateKeyException e) {
+                // Séquence créée au même moment par une autre instance : on relit
+            }
+        }
+    }
+
+    /**
+     * Retire la réservation commençant à {@code first}, ainsi que celles réservées avant
+     * {@code staleBefore} (instance arrêtée en cours d'écriture)
+     */
+    public void release(String name, long first, Instant staleBefore) {
+        Document condition = new Document("$or", List.of(
+                new Document("first", first),
+                new Document("reservedAt", new Document("$lt", staleBefore))));
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(name)),
+                new Update().pull("pending", condition), Counter.class);
+    }
+
+    /**
+     * Séquence et réservations en cours (null si la séquence n'existe pas encore)
+     */
+    public Counter find(String name) {
+        return mongoTemplate.findById(name, Counter.class);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.MfaCode;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface MfaCodeRepositoryCustom {
+    MfaCode upsertCode(String username, String code, Instant createdAt, Instant expiresAt);
+
+    /**
+     * Consomme une tentative sur le code actif (non utilisé, non expiré, sous la limite)
+     * @return le code après incrément, vide si aucune tentative n'est plus possible
+     */
+    Optional<MfaCode> reserveAttempt(String username, int maxAttempts, Instant now);
+
+    /**
+     * Marque le code comme utilisé s'il ne l'est pas déjà et n'a pas été remplacé
+     * @return true pour le seul appel qui l'a effectivement consommé
+     */
+    boolean markUsed(String id, String code);
+}
@@ -0,0 +1,74 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.MfaCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Opérations atomiques sur les codes MFA : une tentative est d'abord décomptée (findAndModify
+ * conditionné à la limite), la comparaison n'a lieu qu'ensuite ; des requêtes parallèles ne
+ * peuvent donc pas comparer plus de codes que la limite ne l'autorise.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MfaCodeRepositoryCustomImpl implements MfaCodeRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public MfaCode upsertCode(String username, String code, Instant createdAt, Instant expiresAt) {
+        // Un seul code par utilisateur, d'identifiant le nom d'utilisateur : l'unicité de _id
+        // garantit que deux connexions simultanées ne créent pas deux documents
+        Query query = new Query(Criteria.where("_id").is(username));
+        
+        Update update = new Update()
+                .set("username", username)
+                .set("code", code)
+                .set("attempts", 0)
+                .set("used", false)
+                .set("createdAt", createdAt)
+                .set("expiresAt", expiresAt);
+        
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                MfaCode.class);
+    }
+    
+    @Override
+    public Optional<MfaCode> reserveAttempt(String username, int maxAttempts, Instant now) {
+        Update update = new Update().inc("attempts", 1);
+        
+        return Optional.ofNullable(mongoTemplate.findAndModify(activeCodeQuery(username, maxAttempts, now), update,
+                FindAndModifyOptions.options().returnNew(true),
+                MfaCode.class));
+    }
+    
+    @Override
+    public boolean markUsed(String id, String code) {
+        // Le code fait partie du filtre : un code régénéré entre-temps (même document) n'est pas consommé
+        Query query = new Query(Criteria.where("_id").is(id)
+                .and("code").is(code)
+                .and("used").is(false));
+        return mongoTemplate.updateFirst(query, new Update().set("used", true), MfaCode.class).getModifiedCount() == 1;
+    }
+    
+    /**
+     * Code encore utilisable : non consommé, non expiré et sous la limite de tentatives
+     */
+    private Query activeCodeQuery(String username, int maxAttempts, Instant now) {
+        return new Query(Criteria.where("username").is(username)
+                .and("used").is(false)
+                .and("expiresAt").gt(now)
+                .and("attempts").lt(maxAttempts))
+                .with(Sort.by(Sort.Order.desc("createdAt")));
+    }
+}
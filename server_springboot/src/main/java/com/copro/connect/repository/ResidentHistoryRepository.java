@@ -1,6 +1,7 @@
 package com.copro.connect.repository;
 
 import com.copro.connect.model.ResidentHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +13,6 @@ public interface ResidentHistoryRepository extends MongoRepository<ResidentHisto
     List<ResidentHistory> findByApartmentKeyOrderByChangedAtDesc(String apartmentKey);
     
     List<ResidentHistory> findByResidentIdOrderByChangedAtDesc(String residentId);
+    
+    List<ResidentHistory> findAllByOrderByChangedAtDesc(Pageable pageable);
 }
@@ -1,14 +1,133 @@
 package com.copro.connect.repository;
 
+import com.copro.connect.dto.BuildingSummary;
+import com.copro.connect.dto.FloorSummary;
+import com.copro.connect.dto.ResidentSummary;
 import com.copro.connect.dto.StatisticsResponse;
 import com.copro.connect.model.Resident;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ResidentRepositoryCustom {
     Page<Resident> findWithFilters(String search, String batiment, String statutLot, Pageable pageable);
+
+    /**
+     * Recherche paginée chargeant uniquement les propriétés {@code fields} de {@link ResidentSummary}
+     * (projection Mongo, les compteurs sont calculés côté serveur)
+     */
+    Page<ResidentSummary> findSummaries(String search, String batiment, String statutLot,
+                                        Collection<String> fields, Pageable pageable);
     StatisticsResponse calculateStatistics();
+
+    /**
+     * Nombre de lots, d'étages, d'occupants et de comptes Happix par bâtiment, triés par bâtiment
+     */
+    List<BuildingSummary> aggregateBuildings();
+
+    /**
+     * Étages du bâtiment avec leurs portes, triés par étage puis porte
+     */
+    List<FloorSummary> aggregateFloors(String batiment);
     Optional<Resident> findByLotIdIgnoreCase(String lotId);
+
+    /**
+     * Parcourt tous les résidents (triés par bâtiment puis porte) via un curseur Mongo.
+     * Le flux doit être fermé par l'appelant.
+     */
+    Stream<Resident> streamAllSorted();
+
+    /**
+     * Identifiants des résidents n'ayant pas encore de numéro de séquence (données antérieures)
+     */
+    List<String> findIdsWithoutChangeSeq();
+
+    /**
+     * Attribue des séquences consécutives à partir de {@code firstSeq}, sans écraser une séquence existante
+     */
+    void assignChangeSeqs(List<String> ids, long firstSeq);
+
+    /**
+     * Numéros de lot de tous les résidents (projection, sans charger les documents)
+     */
+    List<String> findAllLotIds();
+
+    /**
+     * Insère les résidents en un bulkWrite non ordonné : un échec n'interrompt pas les autres insertions
+     * @return message d'erreur par index dans {@code residents}, vide si tout a été inséré
+     */
+    Map<Integer, String> insertUnordered(List<Resident> residents);
+
+    /**
+     * Id, numéro de lot et empreinte de tous les résidents (projection pour la réconciliation)
+     */
+    List<Resident> findAllFingerprints();
+
+    /**
+     * Remplace chaque résident (par id) en un bulkWrite non ordonné
+     * @return message d'erreur par index dans {@code residents}, vide si tout a été écrit
+     */
+    Map<Integer, String> replaceUnordered(List<Resident> residents);
+
+    /**
+     * Applique une mise à jour ciblée ($set, $unset, $push, $pull) au résident et renvoie son nouvel état
+     * @param condition condition supplémentaire sur le document (null si aucune)
+     * @return null si aucun document ne correspond (résident supprimé ou condition non remplie)
+     */
+    Resident updateAndGet(String id, Criteria condition, Update update);
+
+    /**
+     * Remplace l'empreinte d'un résident si sa séquence n'a pas changé depuis
+     */
+    void setContentHash(String id, long changeSeq, String contentHash);
+
+    /**
+     * Résidents correspondant aux critères de la recherche paginée et à {@code scope} (null si aucun)
+     */
+    List<Resident> findAllWithFilters(String search, String batiment, String statutLot, Criteria scope, int limit);
+
+    /**
+     * Applique à chaque résident sa mise à jour en un bulkWrite non ordonné, seulement si sa
+     * séquence est toujours celle lue
+     * @return nombre de résidents effectivement mis à jour
+     */
+    int updateAllUnchanged(List<GuardedUpdate> updates);
+
+    /**
+     * Séquence actuelle de chaque résident existant parmi {@code ids}
+     */
+    Map<String, Long> findChangeSeqs(Collection<String> ids);
+
+    /**
+     * Id, étage et porte des résidents sans clés de tri (données antérieures)
+     */
+    List<Resident> findWithoutSortKeys();
+
+    /**
+     * Enregistre les clés de tri calculées sur chaque résident, en un bulkWrite non ordonné
+     */
+    void assignSortKeys(List<Resident> residents);
+
+    /**
+     * Pagination par clé : résidents correspondant aux critères de la recherche paginée,
+     * dans l'ordre naturel (bâtiment, porte, id), strictement après {@code after} (null pour le début)
+     */
+    List<Resident> findAfter(String search, String batiment, String statutLot, Position after, int limit);
+
+    /**
+     * Position d'un résident dans l'ordre naturel des listes
+     */
+    record Position(String batiment, String porteSortKey, String id) {}
+
+    /**
+     * Mise à jour d'un résident conditionnée à sa séquence de modification
+     */
+    record GuardedUpdate(String id, Long expectedChangeSeq, Update update) {}
 }
@@ -1,5 +1,8 @@
 package com.copro.connect.repository;
 
+import com.copro.connect.dto.BuildingSummary;
+import com.copro.connect.dto.FloorSummary;
+import com.copro.connect.dto.ResidentSummary;
 import com.copro.connect.dto.StatisticsResponse;
 import com.copro.connect.model.Resident;
 import lombok.RequiredArgsConstructor;
@@ -9,55 +12,49 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class ResidentRepositoryCustomImpl implements ResidentRepositoryCustom {
     
+    /**
+     * Bâtiment puis porte en ordre naturel, l'id départageant les égalités (index batiment_porteSortKey_id)
+     */
+    private static final Sort NATURAL_ORDER = Sort.by(
+        Sort.Order.asc("batiment"),
+        Sort.Order.asc("porteSortKey"),
+        Sort.Order.asc("_id")
+    );
+    
     private final MongoTemplate mongoTemplate;
     
     @Override
     public Page<Resident> findWithFilters(String search, String batiment, String statutLot, Pageable pageable) {
         Query query = new Query();
-        List<Criteria> criteria = new ArrayList<>();
-        
-        // Filtre de recherche (si fourni)
-        if (search != null && !search.trim().isEmpty()) {
-            String searchTerm = search.trim();
-            // Échapper les caractères spéciaux regex et faire une recherche "contient"
-            String escapedTerm = Pattern.quote(searchTerm);
-            Pattern pattern = Pattern.compile(".*" + escapedTerm + ".*", Pattern.CASE_INSENSITIVE);
-            
-            criteria.add(new Criteria().orOperator(
-                Criteria.where("proprietaireNom").regex(pattern),
-                Criteria.where("lotId").regex(pattern),
-                Criteria.where("porte").regex(pattern),
-                Criteria.where("occupants.nom").regex(pattern),
-                Criteria.where("happixAccounts.nom").regex(pattern)
-            ));
-        }
-        
-        // Filtre par bâtiment (si fourni)
-        if (batiment != null && !batiment.trim().isEmpty()) {
-            criteria.add(Criteria.where("batiment").is(batiment));
-        }
-        
-        // Filtre par statut (si fourni)
-        if (statutLot != null && !statutLot.trim().isEmpty()) {
-            criteria.add(Criteria.where("statutLot").is(statutLot));
-        }
+        List<Criteria> criteria = filterCriteria(search, batiment, statutLot);
         
         // Combiner tous les critères
         if (!criteria.isEmpty()) {
@@ -70,14 +67,11 @@ public class ResidentRepositoryCustomImpl implements ResidentRepositoryCustom {
             // Utiliser le tri du Pageable
             finalPageable = pageable;
         } else {
-            // Tri par défaut (batiment ASC, porte ASC)
+            // Tri par défaut (batiment ASC, porte ASC en ordre naturel)
             finalPageable = PageRequest.of(
                 pageable.getPageNumber(),
                 pageable.getPageSize(),
-                Sort.by(
-                    Sort.Order.asc("batiment"),
-                    Sort.Order.asc("porte")
-                )
+                NATURAL_ORDER
             );
         }
         
@@ -94,84 +88,76 @@ public class ResidentRepositoryCustomImpl implements ResidentRepositoryCustom {
     }
     
     @Override
-    public StatisticsResponse calculateStatistics() {
-        // Récupérer tous les résidents
-        List<Resident> allResidents = mongoTemplate.findAll(Resident.class);
-        
-        // Calcul des statistiques
-        long totalLots = allResidents.size();
-        
-        // Total occupants
-        long totalOccupants = allResidents.stream()
-            .mapToLong(r -> r.getOccupants() != null ? r.getOccupants().size() : 0)
-            .sum();
-        
-        // Total comptes Happix
-        long totalHappix = allResidents.stream()
-            .mapToLong(r -> r.getHappixAccounts() != null ? r.getHappixAccounts().size() : 0)
-            .sum();
-        
-        // Nombre de bâtiments uniques
-        long totalBatiments = allResidents.stream()
-            .map(Resident::getBatiment)
-            .filter(b -> b != null && !b.isEmpty())
-            .distinct()
-            .count();
+    public Page<ResidentSummary> findSummaries(String search, String batiment, String statutLot,
+                                               Collection<String> fields, Pageable pageable) {
+        List<Criteria> criteria = filterCriteria(search, batiment, statutLot);
+        Criteria filter = criteria.isEmpty()
+            ? new Criteria()
+            : new Criteria().andOperator(criteria.toArray(new Criteria[0]));
+        long total = mongoTemplate.count(new Query(filter), Resident.class);
         
-        // Compter par statut
-        Map<String, Long> statutCount = new HashMap<>();
-        allResidents.forEach(r -> {
-            String statut = r.getStatutLot() != null && !r.getStatutLot().isEmpty() 
-                ? r.getStatutLot() 
-                : "Non défini";
-            statutCount.put(statut, statutCount.getOrDefault(statut, 0L) + 1);
-        });
-        
-        // Compter par bâtiment
-        Map<String, Long> batimentCount = new HashMap<>();
-        allResidents.forEach(r -> {
-            String bat = r.getBatiment() != null && !r.getBatiment().isEmpty() 
-                ? r.getBatiment() 
-                : "Non défini";
-            batimentCount.put(bat, batimentCount.getOrDefault(bat, 0L) + 1);
-        });
-        
-        // Lots avec/sans occupants
-        long lotsAvecOccupants = allResidents.stream()
-            .filter(r -> r.getOccupants() != null && !r.getOccupants().isEmpty())
-            .count();
-        long lotsVides = totalLots - lotsAvecOccupants;
-        
-        // Moyenne occupants par lot
-        double moyenneOccupants = totalLots > 0 
-            ? Math.round((double) totalOccupants / totalLots * 10.0) / 10.0 
-            : 0.0;
-        
-        // Compter comptes Happix par type
-        Map<String, Long> happixByType = new HashMap<>();
-        allResidents.forEach(r -> {
-            if (r.getHappixAccounts() != null) {
-                r.getHappixAccounts().forEach(h -> {
-                    String type = h.getType() != null && !h.getType().isEmpty() 
-                        ? h.getType() 
-                        : "Non défini";
-                    happixByType.put(type, happixByType.getOrDefault(type, 0L) + 1);
-                });
+        Query query = new Query(filter);
+        for (String field : fields) {
+            String counted = ResidentSummary.COUNTS.get(field);
+            if (counted != null) {
+                query.fields()
+                    .project(MongoExpression.create("{ $size: { $ifNull: ['$" + counted + "', []] } }"))
+                    .as(field);
+            } else {
+                query.fields().include(field);
             }
-        });
+        }
+        query.with(pageable);
         
-        return new StatisticsResponse(
-            totalLots,
-            totalBatiments,
-            totalOccupants,
-            totalHappix,
-            statutCount,
-            batimentCount,
-            lotsAvecOccupants,
-            lotsVides,
-            moyenneOccupants,
-            happixByType
+        List<ResidentSummary> summaries = mongoTemplate.find(query, ResidentSummary.class,
+            mongoTemplate.getCollectionName(Resident.class));
+        return new PageImpl<>(summaries, pageable, total);
+    }
+    
+    @Override
+    public StatisticsResponse calculateStatistics() {
+        // Récupérer tous les résidents
+        List<Resident> allResidents = mongoTemplate.findAll(Resident.class);
+        return StatisticsResponse.fromResidents(allResidents);
+    }
+    
+    @Override
+    public List<BuildingSummary> aggregateBuildings() {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.project("batiment", "etage")
+                .and(sizeOf("occupants")).as("occupants")
+                .and(sizeOf("happixAccounts")).as("happixAccounts"),
+            Aggregation.group("batiment")
+                .count().as("lots")
+                .addToSet("etage").as("etages")
+                .sum("occupants").as("occupants")
+                .sum("happixAccounts").as("happixAccounts"),
+            Aggregation.project("lots", "occupants", "happixAccounts")
+                .and("etages").size().as("floors")
+                .and("batiment").previousOperation(),
+            Aggregation.sort(Sort.by("batiment"))
+        );
+        return mongoTemplate.aggregate(aggregation, Resident.class, BuildingSummary.class).getMappedResults();
+    }
+    
+    @Override
+    public List<FloorSummary> aggregateFloors(String batiment) {
+        // match + tri servis par l'index (batiment, etageSortKey, porteSortKey) ; $push conserve
+        // l'ordre naturel des portes
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where("batiment").is(batiment)),
+            Aggregation.sort(Sort.by("etageSortKey", "porteSortKey")),
+            Aggregation.project("etage", "etageSortKey", "porte", "lotId", "statutLot", "proprietaireNom")
+                .and(sizeOf("occupants")).as("occupantsCount"),
+            Aggregation.group("etage")
+                .first("etageSortKey").as("etageSortKey")
+                .count().as("lots")
+                .push(Aggregation.ROOT).as("doors"),
+            Aggregation.sort(Sort.by("etageSortKey")),
+            Aggregation.project("lots", "doors")
+                .and("etage").previousOperation()
         );
+        return mongoTemplate.aggregate(aggregation, Resident.class, FloorSummary.class).getMappedResults();
     }
     
     @Override
@@ -187,4 +173,227 @@ public class ResidentRepositoryCustomImpl implements ResidentRepositoryCustom {
         Resident resident = mongoTemplate.findOne(query, Resident.class);
         return Optional.ofNullable(resident);
     }
+    
+    @Override
+    public Stream<Resident> streamAllSorted() {
+        Query query = new Query().with(NATURAL_ORDER);
+        return mongoTemplate.stream(query, Resident.class);
+    }
+    
+    @Override
+    public List<String> findIdsWithoutChangeSeq() {
+        Query query = new Query(Criteria.where("changeSeq").exists(false));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Resident.class).stream()
+            .map(Resident::getId)
+            .toList();
+    }
+    
+    @Override
+    public void assignChangeSeqs(List<String> ids, long firstSeq) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resident.class);
+        long seq = firstSeq;
+        for (String id : ids) {
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(id).and("changeSeq").exists(false)),
+                new Update().set("changeSeq", seq++)
+            );
+        }
+        bulk.execute();
+    }
+    
+    @Override
+    public List<String> findAllLotIds() {
+        Query query = new Query();
+        query.fields().include("lotId").exclude("_id");
+        return mongoTemplate.find(query, Resident.class).stream()
+            .map(Resident::getLotId)
+            .toList();
+    }
+    
+    @Override
+    public Map<Integer, String> insertUnordered(List<Resident> residents) {
+        if (residents.isEmpty()) {
+            return Map.of();
+        }
+        return executeUnordered(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resident.class)
+            .insert(residents));
+    }
+    
+    @Override
+    public List<Resident> findAllFingerprints() {
+        Query query = new Query();
+        query.fields().include("lotId").include("contentHash");
+        return mongoTemplate.find(query, Resident.class);
+    }
+    
+    @Override
+    public Map<Integer, String> replaceUnordered(List<Resident> residents) {
+        if (residents.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resident.class);
+        for (Resident resident : residents) {
+            bulk.replaceOne(new Query(Criteria.where("_id").is(resident.getId())), resident);
+        }
+        return executeUnordered(bulk);
+    }
+    
+    @Override
+    public Resident updateAndGet(String id, Criteria condition, Update update) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (condition != null) {
+            criteria = new Criteria().andOperator(criteria, condition);
+        }
+        return mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Resident.class);
+    }
+    
+    @Override
+    public void setContentHash(String id, long changeSeq, String contentHash) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(id).and("changeSeq").is(changeSeq)),
+                new Update().set("contentHash", contentHash),
+                Resident.class);
+    }
+    
+    @Override
+    public List<Resident> findAllWithFilters(String search, String batiment, String statutLot, Criteria scope, int limit) {
+        List<Criteria> criteria = filterCriteria(search, batiment, statutLot);
+        if (scope != null) {
+            criteria.add(scope);
+        }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+        }
+        query.with(NATURAL_ORDER).limit(limit);
+        return mongoTemplate.find(query, Resident.class);
+    }
+    
+    @Override
+    public int updateAllUnchanged(List<GuardedUpdate> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resident.class);
+        for (GuardedUpdate update : updates) {
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(update.id()).and("changeSeq").is(update.expectedChangeSeq())),
+                update.update()
+            );
+        }
+        return bulk.execute().getMatchedCount();
+    }
+    
+    @Override
+    public Map<String, Long> findChangeSeqs(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("changeSeq");
+        Map<String, Long> seqs = new HashMap<>();
+        mongoTemplate.find(query, Resident.class).forEach(resident -> seqs.put(resident.getId(), resident.getChangeSeq()));
+        return seqs;
+    }
+    
+    @Override
+    public List<Resident> findWithoutSortKeys() {
+        Query query = new Query(new Criteria().orOperator(
+            Criteria.where("etageSortKey").exists(false),
+            Criteria.where("porteSortKey").exists(false)
+        ));
+        query.fields().include("etage", "porte");
+        return mongoTemplate.find(query, Resident.class);
+    }
+    
+    @Override
+    public void assignSortKeys(List<Resident> residents) {
+        if (residents.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Resident.class);
+        for (Resident resident : residents) {
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(resident.getId())),
+                new Update()
+                    .set("etageSortKey", resident.getEtageSortKey())
+                    .set("porteSortKey", resident.getPorteSortKey())
+            );
+        }
+        bulk.execute();
+    }
+    
+    @Override
+    public List<Resident> findAfter(String search, String batiment, String statutLot, Position after, int limit) {
+        List<Criteria> criteria = filterCriteria(search, batiment, statutLot);
+        if (after != null) {
+            // (batiment, porteSortKey, _id) > after, servi par l'index batiment_porteSortKey_id
+            criteria.add(new Criteria().orOperator(
+                Criteria.where("batiment").gt(after.batiment()),
+                Criteria.where("batiment").is(after.batiment()).and("porteSortKey").gt(after.porteSortKey()),
+                Criteria.where("batiment").is(after.batiment()).and("porteSortKey").is(after.porteSortKey())
+                    .and("_id").gt(after.id())
+            ));
+        }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+        }
+        query.with(NATURAL_ORDER).limit(limit);
+        return mongoTemplate.find(query, Resident.class);
+    }
+    
+    /**
+     * Taille d'une liste, 0 si elle est absente du document
+     */
+    private static AggregationExpression sizeOf(String field) {
+        return ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull(field).then(List.of()));
+    }
+    
+    /**
+     * Critères de la recherche paginée (recherche "contient", bâtiment, statut), partagés par les opérations en masse
+     */
+    private static List<Criteria> filterCriteria(String search, String batiment, String statutLot) {
+        List<Criteria> criteria = new ArrayList<>();
+        
+        // Filtre de recherche (si fourni)
+        if (search != null && !search.trim().isEmpty()) {
+            String searchTerm = search.trim();
+            // Échapper les caractères spéciaux regex et faire une recherche "contient"
+            String escapedTerm = Pattern.quote(searchTerm);
+            Pattern pattern = Pattern.compile(".*" + escapedTerm + ".*", Pattern.CASE_INSENSITIVE);
+            
+            criteria.add(new Criteria().orOperator(
+                Criteria.where("proprietaireNom").regex(pattern),
+                Criteria.where("lotId").regex(pattern),
+                Criteria.where("porte").regex(pattern),
+                Criteria.where("occupants.nom").regex(pattern),
+                Criteria.where("happixAccounts.nom").regex(pattern)
+            ));
+        }
+        
+        // Filtre par bâtiment (si fourni)
+        if (batiment != null && !batiment.trim().isEmpty()) {
+            criteria.add(Criteria.where("batiment").is(batiment));
+        }
+        
+        // Filtre par statut (si fourni)
+        if (statutLot != null && !statutLot.trim().isEmpty()) {
+            criteria.add(Criteria.where("statutLot").is(statutLot));
+        }
+        return criteria;
+    }
+    
+    private Map<Integer, String> executeUnordered(BulkOperations bulk) {
+        try {
+            bulk.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+            return errors;
+        }
+    }
 }
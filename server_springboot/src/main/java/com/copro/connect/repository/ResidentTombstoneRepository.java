@@ -0,0 +1,14 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.ResidentTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ResidentTombstoneRepository extends MongoRepository<ResidentTombstone, String> {
+
+    List<ResidentTombstone> findByChangeSeqGreaterThanOrderByChangeSeqAsc(long changeSeq, Pageable pageable);
+}
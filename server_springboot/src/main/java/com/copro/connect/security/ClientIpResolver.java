@@ -0,0 +1,81 @@
+package com.copro.connect.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adresse IP du client pour la limitation de débit.
+ * <p>
+ * Derrière un répartiteur de charge, {@code getRemoteAddr()} est celle du répartiteur : toutes
+ * les requêtes partageraient le même seau. X-Forwarded-For n'est lu que si la requête vient
+ * d'un proxy déclaré dans {@code security.trusted-proxies} (adresses ou plages CIDR, séparées
+ * par des virgules) ; on retient alors la dernière adresse de la chaîne qui n'est pas un proxy
+ * de confiance, les précédentes pouvant être forgées par le client. Sans proxy déclaré,
+ * l'en-tête est ignoré.
+ */
+@Slf4j
+@Component
+public class ClientIpResolver {
+
+    static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientIpResolver(@Value("${security.trusted-proxies:}") List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        if (!this.trustedProxies.isEmpty()) {
+            log.info("Trusting X-Forwarded-For from {} proxy range(s)", this.trustedProxies.size());
+        }
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+
+        // De droite à gauche : chaque proxy de confiance ajoute l'adresse de son interlocuteur
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        // Toute la chaîne est composée de proxies : le premier est le plus proche du client
+        return hops[0].trim().isEmpty() ? remoteAddr : hops[0].trim();
+    }
+
+    private boolean isTrusted(String address) {
+        if (address == null) {
+            return false;
+        }
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // Valeur d'en-tête qui n'est pas une adresse IP : jamais un proxy de confiance
+                return false;
+            }
+        }
+        return false;
+    }
+}
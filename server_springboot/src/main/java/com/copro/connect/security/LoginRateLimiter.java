@@ -0,0 +1,105 @@
+package com.copro.connect.security;
+
+import com.copro.connect.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitation en mémoire des tentatives sur /api/auth/** (token bucket),
+ * par nom d'utilisateur et par adresse IP cliente.
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final int userCapacity;
+    private final int userRefillPerMinute;
+    private final int ipCapacity;
+    private final int ipRefillPerMinute;
+    private final Counter rejectedCounter;
+
+    public LoginRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${security.login-throttle.user.capacity:5}") int userCapacity,
+                            @Value("${security.login-throttle.user.refill-per-minute:5}") int userRefillPerMinute,
+                            @Value("${security.login-throttle.ip.capacity:20}") int ipCapacity,
+                            @Value("${security.login-throttle.ip.refill-per-minute:20}") int ipRefillPerMinute,
+                            @Value("${security.login-throttle.max-keys:10000}") long maxKeys) {
+        this.userCapacity = userCapacity;
+        this.userRefillPerMinute = userRefillPerMinute;
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerMinute = ipRefillPerMinute;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.rejectedCounter = Counter.builder("auth.login.throttled")
+                .description("Tentatives d'authentification refusées par la limitation de débit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consomme un jeton pour l'IP puis pour l'utilisateur
+     * @throws TooManyRequestsException si l'un des deux seaux est vide
+     */
+    public void acquire(String username, String clientIp) {
+        if (clientIp != null) {
+            consume("ip:" + clientIp, ipCapacity, ipRefillPerMinute);
+        }
+        if (username != null) {
+            consume("user:" + username.trim().toLowerCase(), userCapacity, userRefillPerMinute);
+        }
+    }
+
+    private void consume(String key, int capacity, int refillPerMinute) {
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(capacity, refillPerMinute));
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos > 0) {
+            rejectedCounter.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            log.warn("Login throttled for {} (retry after {}s)", key, retryAfter);
+            throw new TooManyRequestsException("Trop de tentatives de connexion, veuillez réessayer plus tard", retryAfter);
+        }
+    }
+
+    /**
+     * Seau à jetons rechargé en continu
+     */
+    static class TokenBucket {
+
+        private final int capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.nanosPerToken = (double) TimeUnit.MINUTES.toNanos(1) / Math.max(refillPerMinute, 1);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return 0 si un jeton a été consommé, sinon le délai d'attente en nanosecondes
+         */
+        synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) ((1 - tokens) * nanosPerToken);
+        }
+    }
+}
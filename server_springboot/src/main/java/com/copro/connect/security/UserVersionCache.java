@@ -0,0 +1,70 @@
+package com.copro.connect.security;
+
+import com.copro.connect.model.User;
+import com.copro.connect.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache borné (taille + TTL) des versions de token par utilisateur.
+ * Permet de vérifier la révocation d'un JWT sans lire la collection users à chaque requête.
+ * Invalidé à chaque sauvegarde ou suppression d'un {@link User}.
+ */
+@Slf4j
+@Component
+public class UserVersionCache extends AbstractMongoEventListener<User> {
+
+    private static final long UNKNOWN_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> versions;
+
+    public UserVersionCache(UserRepository userRepository,
+                            @Value("${security.user-cache.max-size:1000}") long maxSize,
+                            @Value("${security.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Vérifie que la version portée par le token correspond à celle de l'utilisateur
+     */
+    public boolean isCurrent(String username, long tokenVersion) {
+        long current = versions.get(username, this::loadVersion);
+        return current != UNKNOWN_USER && current == tokenVersion;
+    }
+
+    public void invalidate(String username) {
+        versions.invalidate(username);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        log.debug("User saved, invalidating cached token version: {}", event.getSource().getUsername());
+        invalidate(event.getSource().getUsername());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        // Seul l'_id est disponible après suppression : on vide tout le cache
+        log.debug("User deleted, clearing token version cache");
+        versions.invalidateAll();
+    }
+
+    private long loadVersion(String username) {
+        return userRepository.findByUsername(username)
+                .map(User::getTokenVersion)
+                .orElse(UNKNOWN_USER);
+    }
+}
@@ -33,28 +33,27 @@ public class AuthService {
     public LoginResponse login(LoginRequest loginRequest) {
         log.info("Login attempt for user: {}", loginRequest.getUsername());
 
-        // Authentifier les identifiants (username/password)
-        authenticationManager.authenticate(
+        // Authentifier les identifiants (username/password) : le provider charge
+        // le User une seule fois, on le réutilise pour la suite du parcours
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getUsername(),
                         loginRequest.getPassword()
                 )
         );
 
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+        User user = resolveUser(authentication, loginRequest.getUsername());
 
         // Si MFA activé et email configuré -> envoyer le code
         if (user.isMfaEnabled() && user.getEmail() != null && !user.getEmail().isBlank()) {
             log.info("MFA required for user: {}", user.getUsername());
-            mfaService.generateAndSendCode(user.getUsername());
-            String maskedEmail = mfaService.getMaskedEmail(user.getUsername());
-            return LoginResponse.mfaRequired(maskedEmail);
+            mfaService.generateAndSendCode(user);
+            return LoginResponse.mfaRequired(mfaService.maskEmail(user.getEmail()));
         }
 
         // Pas de MFA -> connexion directe
         log.info("Login successful (no MFA) for user: {}", user.getUsername());
-        String jwt = jwtUtils.generateToken(user.getUsername());
+        String jwt = jwtUtils.generateToken(user);
         return LoginResponse.success(jwt, user);
     }
 
@@ -74,7 +73,7 @@ public class AuthService {
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
 
-        String jwt = jwtUtils.generateToken(user.getUsername());
+        String jwt = jwtUtils.generateToken(user);
 
         // Positionner le SecurityContext
         Authentication auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
@@ -83,4 +82,15 @@ public class AuthService {
         log.info("MFA verification successful for user: {}", user.getUsername());
         return LoginResponse.success(jwt, user);
     }
+
+    /**
+     * Récupère le User chargé lors de l'authentification, sans relire la base
+     */
+    private User resolveUser(Authentication authentication, String username) {
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+    }
 }
@@ -0,0 +1,38 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.BuildingSummary;
+import com.copro.connect.dto.FloorSummary;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.repository.ResidentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Vue hiérarchique bâtiments → étages → portes, calculée par agrégation Mongo :
+ * l'interface déplie un bâtiment à la fois au lieu de charger tous les résidents
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BuildingService {
+
+    private final ResidentRepository residentRepository;
+
+    public List<BuildingSummary> getBuildings() {
+        log.debug("Aggregating buildings");
+        return residentRepository.aggregateBuildings();
+    }
+
+    public List<FloorSummary> getFloors(String batiment) {
+        if (batiment == null || batiment.trim().isEmpty()) {
+            throw new ValidationException("Le bâtiment est obligatoire");
+        }
+        // Même normalisation qu'à l'écriture (ResidentService.normalizeResidentData)
+        String normalized = batiment.trim();
+        log.debug("Aggregating floors of building {}", normalized);
+        return residentRepository.aggregateFloors(normalized);
+    }
+}
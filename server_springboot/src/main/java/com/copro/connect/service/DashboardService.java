@@ -0,0 +1,116 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.DashboardResponse;
+import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.dto.ResidentHistoryResponse;
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Écran d'accueil : statistiques, première page de résidents et dernières modifications
+ * lues en parallèle sur un pool borné, pour une latence égale à la plus lente des trois.
+ * Pool saturé ou lecture trop lente : 503 avec Retry-After, les lectures restantes sont annulées.
+ */
+@Slf4j
+@Service
+public class DashboardService {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final ResidentService residentService;
+    private final ResidentHistoryService residentHistoryService;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public DashboardService(ResidentService residentService,
+                            ResidentHistoryService residentHistoryService,
+                            MeterRegistry meterRegistry,
+                            @Value("${dashboard.threads:6}") int threads,
+                            @Value("${dashboard.queue-size:60}") int queueSize,
+                            @Value("${dashboard.timeout-ms:5000}") long timeoutMs) {
+        this.residentService = residentService;
+        this.residentHistoryService = residentHistoryService;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        new ExecutorServiceMetrics(executor, "dashboard", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public DashboardResponse getDashboard(int size, int historySize) {
+        List<Future<?>> submitted = new ArrayList<>(3);
+        try {
+            Future<StatisticsResponse> statistics = submit(submitted, residentService::getStatistics);
+            Future<PagedResidentsResponse> residents = submit(submitted, () ->
+                    residentService.getResidentsPaginated(0, size, null, null, null, null));
+            Future<List<ResidentHistoryResponse>> history = submit(submitted, () ->
+                    residentHistoryService.getRecentHistory(historySize).stream()
+                            .map(ResidentHistoryResponse::from)
+                            .toList());
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            return new DashboardResponse(await(statistics, deadline), await(residents, deadline), await(history, deadline));
+        } catch (TimeoutException e) {
+            log.warn("Dashboard not assembled within {} ms", timeoutMs);
+            throw unavailable();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chargement du tableau de bord interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Erreur lors du chargement du tableau de bord", e.getCause());
+        } finally {
+            // Sans effet sur les lectures terminées ; une lecture encore en file ne démarre pas,
+            // une lecture en cours est interrompue (une requête Mongo déjà envoyée peut aller à son terme)
+            submitted.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submit(List<Future<?>> submitted, Callable<T> task) {
+        try {
+            Future<T> future = executor.submit(task);
+            submitted.add(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            log.warn("Dashboard pool saturated ({} queued), rejecting request", executor.getQueue().size());
+            throw unavailable();
+        }
+    }
+
+    private static <T> T await(Future<T> future, long deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private static ServiceUnavailableException unavailable() {
+        return new ServiceUnavailableException("Le tableau de bord est momentanément indisponible, veuillez réessayer", RETRY_AFTER_SECONDS);
+    }
+}
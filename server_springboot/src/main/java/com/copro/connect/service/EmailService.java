@@ -1,51 +1,45 @@
 package com.copro.connect.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Envoi des emails via une file bornée en mémoire.
+ * Un petit pool d'expéditeurs vide la file par lots : chaque lot est envoyé sur une
+ * seule connexion SMTP, et les messages en échec sont ré-essayés avec un délai exponentiel.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${mfa.sender.email}")
-    private String senderEmail;
-
-    @Value("${mfa.sender.name}")
-    private String senderName;
-
-    @Async
-    public void sendMfaCode(String toEmail, String code, String userName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(senderEmail, senderName);
-            helper.setTo(toEmail);
-            helper.setSubject("CoPro Connect — Code de vérification");
-
-            String htmlContent = buildMfaEmailHtml(code, userName);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("MFA code sent to {}", maskEmail(toEmail));
-        } catch (MessagingException | java.io.UnsupportedEncodingException e) {
-            log.error("Failed to send MFA email to {}: {}", maskEmail(toEmail), e.getMessage());
-            throw new RuntimeException("Impossible d'envoyer l'email de vérification", e);
-        }
-    }
+    private static final String SUBJECT = "CoPro Connect — Code de vérification";
 
-    private String buildMfaEmailHtml(String code, String userName) {
-        return """
+    /**
+     * Gabarit pré-découpé une fois pour toutes autour des deux variables (nom, code)
+     */
+    private static final String[] MFA_TEMPLATE = """
             <!DOCTYPE html>
             <html>
             <head><meta charset="UTF-8"></head>
@@ -55,10 +49,10 @@ public class EmailService {
                   <h1 style="color:#ffffff;margin:0;font-size:22px;">🏢 CoPro Connect</h1>
                 </div>
                 <div style="padding:32px;">
-                  <p style="color:#374151;font-size:15px;margin:0 0 8px;">Bonjour <strong>%s</strong>,</p>
+                  <p style="color:#374151;font-size:15px;margin:0 0 8px;">Bonjour <strong>{{userName}}</strong>,</p>
                   <p style="color:#6b7280;font-size:14px;margin:0 0 24px;">Voici votre code de vérification pour vous connecter :</p>
                   <div style="background:#f0f5ff;border:2px solid #2563eb;border-radius:10px;padding:20px;text-align:center;margin:0 0 24px;">
-                    <span style="font-size:36px;font-weight:700;letter-spacing:8px;color:#1e40af;">%s</span>
+                    <span style="font-size:36px;font-weight:700;letter-spacing:8px;color:#1e40af;">{{code}}</span>
                   </div>
                   <p style="color:#6b7280;font-size:13px;margin:0 0 6px;">⏱ Ce code expire dans <strong>5 minutes</strong>.</p>
                   <p style="color:#9ca3af;font-size:12px;margin:0;">Si vous n'avez pas demandé ce code, ignorez cet email.</p>
@@ -69,7 +63,175 @@ public class EmailService {
               </div>
             </body>
             </html>
-            """.formatted(userName, code);
+            """.split("\\{\\{userName}}|\\{\\{code}}");
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${mfa.sender.email}")
+    private String senderEmail;
+
+    @Value("${mfa.sender.name}")
+    private String senderName;
+
+    @Value("${mail.queue.capacity:500}")
+    private int queueCapacity;
+
+    @Value("${mail.sender.threads:2}")
+    private int senderThreads;
+
+    @Value("${mail.sender.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${mail.retry.initial-delay-ms:1000}")
+    private long initialRetryDelayMs;
+
+    private BlockingQueue<OutgoingMail> queue;
+    private ExecutorService senders;
+    private ScheduledExecutorService retryScheduler;
+    private Timer sendTimer;
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("mail-sender"));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("mail-retry"));
+
+        Gauge.builder("mail.queue.depth", queue, BlockingQueue::size)
+                .description("Emails en attente d'envoi")
+                .register(meterRegistry);
+        sendTimer = Timer.builder("mail.send.latency")
+                .description("Durée d'envoi d'un lot d'emails")
+                .register(meterRegistry);
+        sentCounter = meterRegistry.counter("mail.sent");
+        failedCounter = meterRegistry.counter("mail.failed");
+
+        running = true;
+        for (int i = 0; i < senderThreads; i++) {
+            senders.submit(this::senderLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Met le code MFA en file d'envoi (non bloquant)
+     */
+    public void sendMfaCode(String toEmail, String code, String userName) {
+        OutgoingMail mail = new OutgoingMail(toEmail, SUBJECT, buildMfaEmailHtml(code, userName), 1);
+        if (!queue.offer(mail)) {
+            log.error("Mail queue full, cannot send MFA email to {}", maskEmail(toEmail));
+            throw new RuntimeException("Impossible d'envoyer l'email de vérification");
+        }
+    }
+
+    private void senderLoop() {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Unexpected error in mail sender", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<OutgoingMail> batch) {
+        Map<MimeMessage, OutgoingMail> messages = new IdentityHashMap<>();
+        for (OutgoingMail mail : batch) {
+            try {
+                messages.put(toMimeMessage(mail), mail);
+            } catch (MessagingException | java.io.UnsupportedEncodingException e) {
+                log.error("Invalid MFA email for {}: {}", maskEmail(mail.to()), e.getMessage());
+                failedCounter.increment();
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Un seul appel : JavaMailSender envoie tout le lot sur la même connexion SMTP
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            sentCounter.increment(messages.size());
+            messages.values().forEach(mail -> log.info("MFA code sent to {}", maskEmail(mail.to())));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            messages.forEach((message, mail) -> {
+                if (failed.isEmpty() || failed.containsKey(message)) {
+                    scheduleRetry(mail, e);
+                } else {
+                    sentCounter.increment();
+                }
+            });
+        } catch (MailException e) {
+            messages.values().forEach(mail -> scheduleRetry(mail, e));
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void scheduleRetry(OutgoingMail mail, Exception cause) {
+        if (mail.attempt() >= maxAttempts) {
+            failedCounter.increment();
+            log.error("Failed to send MFA email to {} after {} attempts: {}",
+                    maskEmail(mail.to()), mail.attempt(), cause.getMessage());
+            return;
+        }
+
+        long delayMs = initialRetryDelayMs << (mail.attempt() - 1);
+        log.warn("Failed to send MFA email to {} (attempt {}), retrying in {} ms: {}",
+                maskEmail(mail.to()), mail.attempt(), delayMs, cause.getMessage());
+        OutgoingMail retry = new OutgoingMail(mail.to(), mail.subject(), mail.html(), mail.attempt() + 1);
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(retry)) {
+                failedCounter.increment();
+                log.error("Mail queue full, dropping retry for {}", maskEmail(retry.to()));
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private MimeMessage toMimeMessage(OutgoingMail mail) throws MessagingException, java.io.UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(senderEmail, senderName);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(mail.html(), true);
+        return message;
+    }
+
+    private String buildMfaEmailHtml(String code, String userName) {
+        return new StringBuilder(MFA_TEMPLATE[0].length() + MFA_TEMPLATE[1].length() + MFA_TEMPLATE[2].length() + 64)
+                .append(MFA_TEMPLATE[0])
+                .append(HtmlUtils.htmlEscape(userName))
+                .append(MFA_TEMPLATE[1])
+                .append(code)
+                .append(MFA_TEMPLATE[2])
+                .toString();
     }
 
     private String maskEmail(String email) {
@@ -79,4 +241,14 @@ public class EmailService {
         if (name.length() <= 2) return name.charAt(0) + "***@" + parts[1];
         return name.substring(0, 2) + "***@" + parts[1];
     }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record OutgoingMail(String to, String subject, String html, int attempt) {}
 }
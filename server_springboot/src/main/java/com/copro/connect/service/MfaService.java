@@ -3,15 +3,17 @@ package com.copro.connect.service;
 import com.copro.connect.model.MfaCode;
 import com.copro.connect.model.User;
 import com.copro.connect.repository.MfaCodeRepository;
-import com.copro.connect.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -19,7 +21,6 @@ import java.time.temporal.ChronoUnit;
 public class MfaService {
 
     private final MfaCodeRepository mfaCodeRepository;
-    private final UserRepository userRepository;
     private final EmailService emailService;
 
     private static final SecureRandom RANDOM = new SecureRandom();
@@ -32,31 +33,19 @@ public class MfaService {
     private int expirationMinutes;
 
     /**
-     * Génère et envoie un code MFA par email
+     * Génère et envoie un code MFA par email à l'utilisateur déjà chargé
      */
-    public void generateAndSendCode(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Utilisateur introuvable"));
+    public void generateAndSendCode(User user) {
+        String username = user.getUsername();
 
         if (user.getEmail() == null || user.getEmail().isBlank()) {
             throw new RuntimeException("Aucune adresse email configurée pour cet utilisateur");
         }
 
-        // Supprimer les anciens codes non utilisés
-        mfaCodeRepository.deleteAllByUsername(username);
-
-        // Générer un nouveau code
+        // Générer un nouveau code, qui remplace atomiquement l'ancien (upsert)
         String code = generateNumericCode();
-
-        MfaCode mfaCode = new MfaCode();
-        mfaCode.setUsername(username);
-        mfaCode.setCode(code);
-        mfaCode.setAttempts(0);
-        mfaCode.setCreatedAt(Instant.now());
-        mfaCode.setExpiresAt(Instant.now().plus(expirationMinutes, ChronoUnit.MINUTES));
-        mfaCode.setUsed(false);
-
-        mfaCodeRepository.save(mfaCode);
+        Instant now = Instant.now();
+        mfaCodeRepository.upsertCode(username, code, now, now.plus(expirationMinutes, ChronoUnit.MINUTES));
 
         // Envoyer le code par email
         emailService.sendMfaCode(user.getEmail(), code, user.getName() != null ? user.getName() : username);
@@ -65,65 +54,42 @@ public class MfaService {
     }
 
     /**
-     * Vérifie le code MFA
+     * Vérifie le code MFA : la tentative est décomptée avant toute comparaison, de sorte
+     * qu'au plus MAX_ATTEMPTS codes soient comparés, même en parallèle ; un code correct
+     * n'est accepté qu'une fois
      * @return true si le code est valide
      */
     public boolean verifyCode(String username, String code) {
-        MfaCode mfaCode = mfaCodeRepository
-                .findTopByUsernameAndUsedFalseOrderByCreatedAtDesc(username)
-                .orElse(null);
-
-        if (mfaCode == null) {
-            log.warn("No MFA code found for user: {}", username);
+        Optional<MfaCode> reserved = mfaCodeRepository.reserveAttempt(username, MAX_ATTEMPTS, Instant.now());
+        if (reserved.isEmpty()) {
+            log.warn("No usable MFA code (missing, expired or too many attempts) for user: {}", username);
             return false;
         }
 
-        // Vérifier expiration
-        if (Instant.now().isAfter(mfaCode.getExpiresAt())) {
-            log.warn("MFA code expired for user: {}", username);
-            mfaCode.setUsed(true);
-            mfaCodeRepository.save(mfaCode);
+        MfaCode active = reserved.get();
+        if (!MessageDigest.isEqual(active.getCode().getBytes(StandardCharsets.UTF_8),
+                code.trim().getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Invalid MFA code attempt ({}/{}) for user: {}", active.getAttempts(), MAX_ATTEMPTS, username);
             return false;
         }
 
-        // Vérifier nombre de tentatives
-        if (mfaCode.getAttempts() >= MAX_ATTEMPTS) {
-            log.warn("Too many MFA attempts for user: {}", username);
-            mfaCode.setUsed(true);
-            mfaCodeRepository.save(mfaCode);
+        if (!mfaCodeRepository.markUsed(active.getId(), active.getCode())) {
+            log.warn("MFA code already used or replaced for user: {}", username);
             return false;
         }
-
-        // Incrémenter les tentatives
-        mfaCode.setAttempts(mfaCode.getAttempts() + 1);
-
-        // Vérifier le code
-        if (mfaCode.getCode().equals(code.trim())) {
-            mfaCode.setUsed(true);
-            mfaCodeRepository.save(mfaCode);
-            log.info("MFA code verified successfully for user: {}", username);
-            return true;
-        }
-
-        mfaCodeRepository.save(mfaCode);
-        log.warn("Invalid MFA code attempt ({}/{}) for user: {}", mfaCode.getAttempts(), MAX_ATTEMPTS, username);
-        return false;
+        log.info("MFA code verified successfully for user: {}", username);
+        return true;
     }
 
     /**
      * Masque l'email pour l'affichage frontend (ex: ad***@gmail.com)
      */
-    public String getMaskedEmail(String username) {
-        return userRepository.findByUsername(username)
-                .map(user -> {
-                    String email = user.getEmail();
-                    if (email == null || !email.contains("@")) return "***";
-                    String[] parts = email.split("@");
-                    String name = parts[0];
-                    if (name.length() <= 2) return name.charAt(0) + "***@" + parts[1];
-                    return name.substring(0, 2) + "***@" + parts[1];
-                })
-                .orElse("***");
+    public String maskEmail(String email) {
+        if (email == null || !email.contains("@")) return "***";
+        String[] parts = email.split("@");
+        String name = parts[0];
+        if (name.length() <= 2) return name.charAt(0) + "***@" + parts[1];
+        return name.substring(0, 2) + "***@" + parts[1];
     }
 
     private String generateNumericCode() {
@@ -0,0 +1,87 @@
+package com.copro.connect.service;
+
+import java.util.Locale;
+
+/**
+ * Clé de tri naturel d'un étage ou d'une porte : l'ordre alphabétique des clés est l'ordre
+ * attendu par les utilisateurs ("2" avant "10", "9B" avant "10A", "-2" avant "-1" avant "0").
+ * <p>
+ * Chaque suite de chiffres est complétée par des zéros à {@value #WIDTH} caractères (les zéros
+ * en tête sont ignorés : "01" et "1" ont la même clé), les lettres sont mises en majuscules.
+ * Les clés sont stockées sur le document pour que Mongo trie et pagine directement.
+ */
+public final class NaturalSortKey {
+
+    /**
+     * Longueur maximale d'une porte (voir Resident) : toute suite de chiffres y tient
+     */
+    static final int WIDTH = 10;
+
+    private NaturalSortKey() {
+    }
+
+    public static String of(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim().toUpperCase(Locale.ROOT);
+
+        // Sous-sol ("-1", "-2") : complément pour que le plus profond vienne en premier
+        if (trimmed.length() > 1 && trimmed.charAt(0) == '-' && isDigits(trimmed, 1)) {
+            String digits = stripZeros(trimmed.substring(1));
+            if (digits.length() <= WIDTH) {
+                StringBuilder complement = new StringBuilder("-");
+                for (int i = 0; i < WIDTH - digits.length(); i++) {
+                    complement.append('9');
+                }
+                for (char c : digits.toCharArray()) {
+                    complement.append((char) ('9' - (c - '0')));
+                }
+                return complement.toString();
+            }
+        }
+
+        StringBuilder key = new StringBuilder(trimmed.length() + WIDTH);
+        int i = 0;
+        while (i < trimmed.length()) {
+            char c = trimmed.charAt(i);
+            if (!isDigit(c)) {
+                key.append(c);
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < trimmed.length() && isDigit(trimmed.charAt(end))) {
+                end++;
+            }
+            String digits = stripZeros(trimmed.substring(i, end));
+            for (int pad = digits.length(); pad < WIDTH; pad++) {
+                key.append('0');
+            }
+            key.append(digits);
+            i = end;
+        }
+        return key.toString();
+    }
+
+    private static String stripZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+
+    private static boolean isDigits(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
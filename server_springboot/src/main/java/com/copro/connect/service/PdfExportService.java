@@ -1,9 +1,9 @@
 package com.copro.connect.service;
 
+import com.copro.connect.cache.RequestCoalescer;
 import com.copro.connect.model.HappixAccount;
 import com.copro.connect.model.Occupant;
 import com.copro.connect.model.Resident;
-import com.copro.connect.repository.ResidentRepository;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
@@ -25,7 +25,8 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class PdfExportService {
 
-    private final ResidentRepository residentRepository;
+    private final ResidentService residentService;
+    private final RequestCoalescer requestCoalescer;
 
     private static final Font TITLE_FONT = new Font(Font.HELVETICA, 16, Font.BOLD, new Color(31, 41, 55));
     private static final Font SUBTITLE_FONT = new Font(Font.HELVETICA, 9, Font.NORMAL, new Color(107, 114, 128));
@@ -36,11 +37,15 @@ public class PdfExportService {
     private static final Color STRIPE_BG = new Color(249, 250, 251);
 
     /**
-     * Exporte tous les résidents en PDF
+     * Exporte tous les résidents en PDF ; les demandes simultanées partagent la même génération
      */
     public byte[] exportResidentsPdf() {
+        return requestCoalescer.execute("pdf-residents", this::generateResidentsPdf);
+    }
+
+    private byte[] generateResidentsPdf() {
         log.info("Generating residents PDF export");
-        List<Resident> residents = residentRepository.findAllByOrderByBatimentAscPorteAsc();
+        List<Resident> residents = residentService.getAllResidents();
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         Document document = new Document(PageSize.A4.rotate(), 20, 20, 30, 20);
@@ -97,11 +102,15 @@ public class PdfExportService {
     }
 
     /**
-     * Exporte tous les comptes Happix en PDF
+     * Exporte tous les comptes Happix en PDF ; les demandes simultanées partagent la même génération
      */
     public byte[] exportHappixPdf() {
+        return requestCoalescer.execute("pdf-happix", this::generateHappixPdf);
+    }
+
+    private byte[] generateHappixPdf() {
         log.info("Generating Happix PDF export");
-        List<Resident> residents = residentRepository.findAllByOrderByBatimentAscPorteAsc();
+        List<Resident> residents = residentService.getAllResidents();
 
         // Extraire tous les comptes Happix
         List<HappixEntry> entries = residents.stream()
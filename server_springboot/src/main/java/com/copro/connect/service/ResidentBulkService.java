@@ -0,0 +1,369 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentBulkReport;
+import com.copro.connect.dto.ResidentBulkRequest;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.HappixAccount;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.repository.ResidentRepositoryCustom.GuardedUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Opérations en masse sur les résidents (changement de statut, retrait ou modification d'un
+ * occupant / compte Happix, suppression).
+ * <p>
+ * Les résidents visés sont lus en une requête ; l'opération est appliquée en mémoire pour
+ * écarter ceux déjà dans l'état demandé et calculer l'historique. Les écritures partent en un
+ * seul bulkWrite de mises à jour ciblées (arrayFilters pour les éléments imbriqués), chacune
+ * avec sa propre séquence et son empreinte, et l'historique en une seule insertion.
+ */
+@Slf4j
+@Service
+public class ResidentBulkService {
+
+    /**
+     * Champs modifiables par nom JSON -> propriété (et champ MongoDB)
+     */
+    private static final Map<String, String> OCCUPANT_FIELDS = Map.of(
+            "nom", "nom", "mobile", "mobile", "email", "email");
+
+    private static final Map<String, String> HAPPIX_FIELDS = Map.of(
+            "nom", "nom", "mobile", "mobile", "email", "email",
+            "nom_borne", "nomBorne", "type", "type", "relation", "relation");
+
+    private final ResidentRepository residentRepository;
+    private final ResidentHistoryService residentHistoryService;
+    private final ResidentChangeService residentChangeService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxSize;
+
+    public ResidentBulkService(ResidentRepository residentRepository,
+                               ResidentHistoryService residentHistoryService,
+                               ResidentChangeService residentChangeService,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${residents.bulk.max-size:5000}") int maxSize) {
+        this.residentRepository = residentRepository;
+        this.residentHistoryService = residentHistoryService;
+        this.residentChangeService = residentChangeService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.maxSize = maxSize;
+    }
+
+    public ResidentBulkReport execute(ResidentBulkRequest request) {
+        long start = System.nanoTime();
+        ResidentBulkRequest.Operation operation = request.getOperation();
+        if (operation == null) {
+            throw new ValidationException("L'opération est obligatoire");
+        }
+        Plan plan = operation == ResidentBulkRequest.Operation.DELETE ? null : plan(request);
+        List<Resident> targets = findTargets(request, plan != null ? plan.scope() : null);
+        if (targets.size() > maxSize) {
+            throw new ValidationException("L'opération concerne plus de " + maxSize + " résidents, veuillez affiner la sélection");
+        }
+
+        ResidentBulkReport report = plan == null
+                ? delete(targets, start)
+                : update(operation, plan, targets, start);
+        log.info("Bulk {}: {} matched, {} modified, {} conflicts in {} ms", operation, report.getMatched(),
+                report.getModified(), report.getConflicts().size(), report.getDurationMs());
+        return report;
+    }
+
+    private ResidentBulkReport update(ResidentBulkRequest.Operation operation, Plan plan, List<Resident> targets, long start) {
+        // Les résidents lus sont partagés avec les caches : l'opération s'applique à des copies
+        List<Resident> previous = new ArrayList<>();
+        List<Resident> expected = new ArrayList<>();
+        for (Resident resident : targets) {
+            Resident copy = copyOf(resident);
+            plan.change().accept(copy);
+            copy.setContentHash(ResidentFingerprint.of(copy));
+            String storedHash = resident.getContentHash() != null
+                    ? resident.getContentHash()
+                    : ResidentFingerprint.of(resident);
+            if (!storedHash.equals(copy.getContentHash())) {
+                previous.add(resident);
+                expected.add(copy);
+            }
+        }
+        if (expected.isEmpty()) {
+            return report(operation, targets.size(), 0, List.of(), start);
+        }
+
+        Set<String> conflicts = Set.of();
+        long firstSeq = residentChangeService.beginBatch(expected.size());
+        try {
+            Instant now = Instant.now();
+            List<GuardedUpdate> updates = new ArrayList<>(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Resident resident = expected.get(i);
+                long seq = firstSeq + i;
+                updates.add(new GuardedUpdate(resident.getId(), previous.get(i).getChangeSeq(), plan.update().get()
+                        .set("changeSeq", seq)
+                        .set("updatedAt", now)
+                        .set("contentHash", resident.getContentHash())));
+                resident.setChangeSeq(seq);
+                resident.setUpdatedAt(now);
+            }
+            int written = residentRepository.updateAllUnchanged(updates);
+            if (written < updates.size()) {
+                conflicts = findConflicts(expected);
+            }
+        } finally {
+            residentChangeService.completeBatch(firstSeq, expected.size());
+        }
+        eventPublisher.publishEvent(ResidentChangedEvent.reload());
+
+        List<Resident> historyBefore = new ArrayList<>();
+        List<Resident> historyAfter = new ArrayList<>();
+        for (int i = 0; i < expected.size(); i++) {
+            if (!conflicts.contains(expected.get(i).getId())) {
+                historyBefore.add(previous.get(i));
+                historyAfter.add(expected.get(i));
+            }
+        }
+        try {
+            residentHistoryService.recordUpdates(historyBefore, historyAfter);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'enregistrement de l'historique de l'opération {}", operation, e);
+            // On continue même si l'historique échoue pour ne pas bloquer l'opération
+        }
+        return report(operation, targets.size(), historyAfter.size(), List.copyOf(conflicts), start);
+    }
+
+    private ResidentBulkReport delete(List<Resident> targets, long start) {
+        if (targets.isEmpty()) {
+            return report(ResidentBulkRequest.Operation.DELETE, 0, 0, List.of(), start);
+        }
+
+        // Historique et traces écrits avant la suppression, comme pour une suppression unitaire
+        try {
+            residentHistoryService.recordDeletes(targets);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'enregistrement de l'historique de la suppression en masse", e);
+        }
+        long firstSeq = residentChangeService.beginBatch(targets.size());
+        try {
+            Map<String, Long> seqs = new LinkedHashMap<>();
+            long seq = firstSeq;
+            for (Resident resident : targets) {
+                seqs.put(resident.getId(), seq++);
+            }
+            residentChangeService.recordDeletions(seqs);
+            residentRepository.deleteAllById(seqs.keySet());
+        } finally {
+            residentChangeService.completeBatch(firstSeq, targets.size());
+        }
+        eventPublisher.publishEvent(ResidentChangedEvent.reload());
+        return report(ResidentBulkRequest.Operation.DELETE, targets.size(), targets.size(), List.of(), start);
+    }
+
+    private List<Resident> findTargets(ResidentBulkRequest request, Criteria scope) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        ResidentBulkRequest.Filter filter = request.getFilter();
+        boolean byFilter = filter != null && (hasText(filter.getSearch()) || hasText(filter.getBatiment()) || hasText(filter.getStatutLot()));
+        if (byIds == byFilter) {
+            throw new ValidationException("Indiquez soit une liste d'identifiants, soit un filtre non vide");
+        }
+
+        if (byIds) {
+            Set<String> ids = new LinkedHashSet<>(request.getIds());
+            if (ids.size() > maxSize) {
+                throw new ValidationException("L'opération concerne plus de " + maxSize + " résidents, veuillez affiner la sélection");
+            }
+            List<Resident> residents = new ArrayList<>();
+            residentRepository.findAllById(ids).forEach(residents::add);
+            return residents;
+        }
+        return residentRepository.findAllWithFilters(filter.getSearch(), filter.getBatiment(), filter.getStatutLot(),
+                scope, maxSize + 1);
+    }
+
+    private Set<String> findConflicts(List<Resident> expected) {
+        Map<String, Long> current = residentRepository.findChangeSeqs(expected.stream().map(Resident::getId).toList());
+        return expected.stream()
+                .filter(resident -> !Objects.equals(current.get(resident.getId()), resident.getChangeSeq()))
+                .map(Resident::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private Plan plan(ResidentBulkRequest request) {
+        return switch (request.getOperation()) {
+            case SET_STATUT -> {
+                String statut = trimToNull(request.getStatutLot());
+                if (statut == null) {
+                    throw new ValidationException("Le statut du lot est obligatoire");
+                }
+                checkValue(Resident.class, "statutLot", statut);
+                yield new Plan(Criteria.where("statutLot").ne(statut),
+                        () -> new Update().set("statutLot", statut),
+                        resident -> resident.setStatutLot(statut));
+            }
+            case REMOVE_OCCUPANT -> removeElements("occupants", Resident::getOccupants, match(request, false));
+            case REMOVE_HAPPIX_ACCOUNT -> removeElements("happixAccounts", Resident::getHappixAccounts, match(request, true));
+            case UPDATE_OCCUPANT -> updateElements("occupants", Occupant.class, Resident::getOccupants,
+                    match(request, false), changes(request, Occupant.class, OCCUPANT_FIELDS));
+            case UPDATE_HAPPIX_ACCOUNT -> updateElements("happixAccounts", HappixAccount.class, Resident::getHappixAccounts,
+                    match(request, true), changes(request, HappixAccount.class, HAPPIX_FIELDS));
+            case DELETE -> throw new IllegalStateException("DELETE n'a pas de mise à jour");
+        };
+    }
+
+    private <T> Plan removeElements(String field, Function<Resident, List<T>> getter, Map<String, Object> match) {
+        return new Plan(Criteria.where(field).elemMatch(criteria("", match)),
+                () -> new Update().pull(field, new Document(match)),
+                resident -> {
+                    if (getter.apply(resident) != null) {
+                        getter.apply(resident).removeIf(element -> matches(element, match));
+                    }
+                });
+    }
+
+    private <T> Plan updateElements(String field, Class<T> type, Function<Resident, List<T>> getter,
+                                    Map<String, Object> match, Map<String, String> changes) {
+        return new Plan(Criteria.where(field).elemMatch(criteria("", match)),
+                () -> {
+                    Update update = new Update();
+                    changes.forEach((property, value) -> {
+                        String path = field + ".$[element]." + property;
+                        if (value == null) {
+                            update.unset(path);
+                        } else {
+                            update.set(path, value);
+                        }
+                    });
+                    return update.filterArray(criteria("element.", match));
+                },
+                resident -> {
+                    if (getter.apply(resident) != null) {
+                        getter.apply(resident).stream()
+                                .filter(element -> matches(element, match))
+                                .forEach(element -> changes.forEach((property, value) ->
+                                        PropertyAccessorFactory.forBeanPropertyAccess(element).setPropertyValue(property, value)));
+                    }
+                });
+    }
+
+    /**
+     * Élément visé : par nom, et pour un compte Happix éventuellement par type
+     */
+    private static Map<String, Object> match(ResidentBulkRequest request, boolean withType) {
+        String nom = trimToNull(request.getNom());
+        if (nom == null) {
+            throw new ValidationException("Le nom de l'élément visé est obligatoire");
+        }
+        Map<String, Object> match = new LinkedHashMap<>();
+        match.put("nom", nom);
+        String type = trimToNull(request.getType());
+        if (withType && type != null) {
+            match.put("type", type);
+        }
+        return match;
+    }
+
+    /**
+     * Nouvelles valeurs normalisées (trim, email en minuscules) et validées champ par champ
+     */
+    private Map<String, String> changes(ResidentBulkRequest request, Class<?> type, Map<String, String> fields) {
+        if (request.getChanges() == null || request.getChanges().isEmpty()) {
+            throw new ValidationException("Aucune modification indiquée");
+        }
+        Map<String, String> changes = new LinkedHashMap<>();
+        request.getChanges().forEach((name, raw) -> {
+            String property = fields.get(name);
+            if (property == null) {
+                throw new ValidationException("Le champ '" + name + "' ne peut pas être modifié");
+            }
+            String value = trimToNull(raw);
+            if (value != null && "email".equals(property)) {
+                value = value.toLowerCase(Locale.ROOT);
+            }
+            checkValue(type, property, value);
+            changes.put(property, value);
+        });
+        return changes;
+    }
+
+    private <T> void checkValue(Class<T> type, String property, Object value) {
+        Set<ConstraintViolation<T>> violations = validator.validateValue(type, property, value);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static Criteria criteria(String prefix, Map<String, Object> match) {
+        Criteria criteria = null;
+        for (Map.Entry<String, Object> entry : match.entrySet()) {
+            criteria = criteria == null
+                    ? Criteria.where(prefix + entry.getKey()).is(entry.getValue())
+                    : criteria.and(prefix + entry.getKey()).is(entry.getValue());
+        }
+        return criteria;
+    }
+
+    private static boolean matches(Object element, Map<String, Object> match) {
+        BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(element);
+        return match.entrySet().stream()
+                .allMatch(entry -> Objects.equals(accessor.getPropertyValue(entry.getKey()), entry.getValue()));
+    }
+
+    private Resident copyOf(Resident resident) {
+        Resident copy = objectMapper.convertValue(resident, Resident.class);
+        copy.setContentHash(resident.getContentHash());
+        return copy;
+    }
+
+    private static ResidentBulkReport report(ResidentBulkRequest.Operation operation, int matched, int modified,
+                                             List<String> conflicts, long start) {
+        return new ResidentBulkReport(operation.name(), matched, modified, conflicts,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static String trimToNull(String value) {
+        return hasText(value) ? value.trim() : null;
+    }
+
+    /**
+     * Opération traduite en filtre MongoDB, mise à jour (une instance par résident) et effet en mémoire
+     */
+    private record Plan(Criteria scope, Supplier<Update> update, Consumer<Resident> change) {}
+}
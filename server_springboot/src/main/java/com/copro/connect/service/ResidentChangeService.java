@@ -0,0 +1,178 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentChangesResponse;
+import com.copro.connect.model.Counter;
+import com.copro.connect.model.Resident;
+import com.copro.connect.model.ResidentTombstone;
+import com.copro.connect.repository.CounterRepository;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.repository.ResidentTombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Séquence de modifications des résidents et synchronisation différentielle.
+ * <p>
+ * Chaque écriture reçoit un numéro croissant (collection counters). Les suppressions
+ * laissent une trace (residents_tombstones) afin qu'un client puisse rejouer
+ * uniquement ce qui a changé depuis sa dernière synchronisation.
+ * <p>
+ * Les séquences réservées et pas encore écrites sont inscrites dans le compteur lui-même,
+ * partagé par toutes les instances : aucune réponse ne dépasse une écriture en cours ailleurs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResidentChangeService {
+
+    static final String SEQUENCE_NAME = "residents";
+
+    private final CounterRepository counterRepository;
+    private final ResidentRepository residentRepository;
+    private final ResidentTombstoneRepository tombstoneRepository;
+
+    /**
+     * Au-delà de ce délai, une réservation est celle d'une instance arrêtée en cours d'écriture
+     * et ne retient plus la synchronisation
+     */
+    @Value("${residents.changes.pending-timeout-ms:60000}")
+    private long pendingTimeoutMs;
+
+    /**
+     * Réserve la séquence d'une écriture ; {@link #complete(long)} doit être appelé ensuite
+     */
+    public long begin() {
+        return counterRepository.reserve(SEQUENCE_NAME, 1);
+    }
+
+    public void complete(long seq) {
+        counterRepository.release(SEQUENCE_NAME, seq, staleBefore());
+    }
+
+    /**
+     * Réserve {@code count} séquences consécutives en un seul aller-retour
+     * @return la première séquence ; {@link #completeBatch(long, int)} doit être appelé ensuite
+     */
+    public long beginBatch(int count) {
+        return counterRepository.reserve(SEQUENCE_NAME, count);
+    }
+
+    public void completeBatch(long first, int count) {
+        counterRepository.release(SEQUENCE_NAME, first, staleBefore());
+    }
+
+    public void recordDeletion(String residentId, long seq) {
+        tombstoneRepository.save(new ResidentTombstone(residentId, seq, Instant.now()));
+    }
+
+    /**
+     * Traces de suppression en une seule écriture, séquence par id
+     */
+    public void recordDeletions(Map<String, Long> seqByResidentId) {
+        Instant now = Instant.now();
+        tombstoneRepository.saveAll(seqByResidentId.entrySet().stream()
+                .map(entry -> new ResidentTombstone(entry.getKey(), entry.getValue(), now))
+                .toList());
+    }
+
+    public ResidentChangesResponse getChangesSince(long since, int limit) {
+        // Lu avant les résidents : toute séquence jusqu'à counter.seq qui n'est pas en cours
+        // est déjà écrite, et sera donc vue par les lectures qui suivent
+        Counter counter = counterRepository.find(SEQUENCE_NAME);
+        long currentSeq = counter != null ? counter.getSeq() : 0L;
+        List<Resident> upserts = residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since, PageRequest.of(0, limit));
+        List<ResidentTombstone> tombstones = tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since, PageRequest.of(0, limit));
+
+        // Une séquence encore en cours d'écriture, sur n'importe quelle instance, pourrait apparaître
+        // après une séquence plus haute : on s'arrête juste avant pour ne jamais la faire sauter au client.
+        // Les séquences réservées après la lecture du compteur ne sont pas connues : on s'arrête aussi à celui-ci
+        long watermark = Math.min(currentSeq, oldestPending(counter) - 1);
+
+        // Une source tronquée à limit peut avoir d'autres entrées au-delà de sa dernière séquence
+        if (upserts.size() == limit) {
+            watermark = Math.min(watermark, upserts.get(upserts.size() - 1).getChangeSeq());
+        }
+        if (tombstones.size() == limit) {
+            watermark = Math.min(watermark, tombstones.get(tombstones.size() - 1).getChangeSeq());
+        }
+
+        List<Change> merged = new ArrayList<>(upserts.size() + tombstones.size());
+        upserts.forEach(r -> merged.add(new Change(r.getChangeSeq(), r.getId(), r)));
+        tombstones.forEach(t -> merged.add(new Change(t.getChangeSeq(), t.getId(), null)));
+        merged.sort(Comparator.comparingLong(Change::seq));
+
+        Map<String, Change> latest = new LinkedHashMap<>();
+        long nextSince = since;
+        boolean truncated = false;
+        for (Change change : merged) {
+            if (change.seq() > watermark || latest.size() >= limit) {
+                truncated = true;
+                break;
+            }
+            latest.remove(change.id());
+            latest.put(change.id(), change);
+            nextSince = change.seq();
+        }
+
+        List<Resident> changedResidents = new ArrayList<>();
+        List<String> deletions = new ArrayList<>();
+        latest.values().forEach(change -> {
+            if (change.resident() != null) {
+                changedResidents.add(change.resident());
+            } else {
+                deletions.add(change.id());
+            }
+        });
+
+        boolean hasMore = truncated || upserts.size() == limit || tombstones.size() == limit;
+        return new ResidentChangesResponse(since, nextSince, currentSeq, hasMore, changedResidents, deletions);
+    }
+
+    private long oldestPending(Counter counter) {
+        if (counter == null || counter.getPending() == null) {
+            return Long.MAX_VALUE;
+        }
+        Instant staleBefore = staleBefore();
+        return counter.getPending().stream()
+                .filter(pending -> pending.getReservedAt() == null || !pending.getReservedAt().isBefore(staleBefore))
+                .mapToLong(Counter.Pending::getFirst)
+                .min()
+                .orElse(Long.MAX_VALUE);
+    }
+
+    private Instant staleBefore() {
+        return Instant.now().minusMillis(pendingTimeoutMs);
+    }
+
+    /**
+     * Attribue une séquence aux résidents créés avant la synchronisation différentielle
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChangeSeqs() {
+        List<String> ids = residentRepository.findIdsWithoutChangeSeq();
+        if (ids.isEmpty()) {
+            return;
+        }
+        long first = beginBatch(ids.size());
+        try {
+            residentRepository.assignChangeSeqs(ids, first);
+        } finally {
+            completeBatch(first, ids.size());
+        }
+        log.info("Assigned change sequence to {} existing residents", ids.size());
+    }
+
+    private record Change(long seq, String id, Resident resident) {}
+}
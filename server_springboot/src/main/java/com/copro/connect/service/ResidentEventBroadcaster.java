@@ -0,0 +1,278 @@
+package com.copro.connect.service;
+
+import com.copro.connect.cache.ResidentSnapshot;
+import com.copro.connect.dto.ResidentChangeNotification;
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.TooManyRequestsException;
+import com.copro.connect.model.Resident;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Diffusion en Server-Sent Events des modifications de résidents.
+ * <p>
+ * L'écriture ne fait que déposer l'événement : la notification est construite puis copiée
+ * dans la file bornée de chaque abonné par un thread dédié, et envoyée par un petit pool.
+ * Un abonné dont la file déborde (client trop lent) est déconnecté ; il se resynchronise
+ * via {@code /changes?since=<dernier id reçu>}.
+ */
+@Slf4j
+@Service
+public class ResidentEventBroadcaster {
+
+    private static final List<Field> FIELDS = List.of(
+            new Field("lot_id", Resident::getLotId),
+            new Field("batiment", Resident::getBatiment),
+            new Field("etage", Resident::getEtage),
+            new Field("porte", Resident::getPorte),
+            new Field("cave_id", Resident::getCaveId),
+            new Field("statut_lot", Resident::getStatutLot),
+            new Field("proprietaire_nom", Resident::getProprietaireNom),
+            new Field("proprietaire_mobile", Resident::getProprietaireMobile),
+            new Field("proprietaire_email", Resident::getProprietaireEmail),
+            new Field("occupants", Resident::getOccupants),
+            new Field("happix_accounts", Resident::getHappixAccounts)
+    );
+
+    private final ResidentService residentService;
+    private final ResidentSnapshot residentSnapshot;
+    private final long statisticsIntervalNanos;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fanOut;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter droppedCounter;
+
+    // Lus et écrits uniquement par le thread de diffusion
+    private StatisticsResponse lastStatistics;
+    private long lastStatisticsAt;
+
+    public ResidentEventBroadcaster(ResidentService residentService,
+                                    ResidentSnapshot residentSnapshot,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${residents.events.buffer-size:64}") int bufferSize,
+                                    @Value("${residents.events.max-subscribers:500}") int maxSubscribers,
+                                    @Value("${residents.events.timeout-ms:1800000}") long timeoutMs,
+                                    @Value("${residents.events.sender-threads:2}") int senderThreads,
+                                    @Value("${residents.events.heartbeat-seconds:25}") long heartbeatSeconds,
+                                    @Value("${residents.events.statistics-interval-ms:5000}") long statisticsIntervalMs) {
+        this.residentService = residentService;
+        this.residentSnapshot = residentSnapshot;
+        this.statisticsIntervalNanos = TimeUnit.MILLISECONDS.toNanos(statisticsIntervalMs);
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.fanOut = Executors.newSingleThreadExecutor(daemonThreads("sse-fanout"));
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemonThreads("sse-sender"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat"));
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("residents.events.subscribers", subscribers, Set::size)
+                .description("Abonnés SSE connectés")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("residents.events.dropped")
+                .description("Abonnés SSE déconnectés car trop lents")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre un nouvel abonné
+     * @throws TooManyRequestsException si le nombre maximal d'abonnés est atteint
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Trop de connexions aux événements, veuillez réessayer plus tard", 30);
+        }
+
+        SseEmitter emitter = createEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        log.debug("SSE subscriber connected ({} total)", subscribers.size());
+        return emitter;
+    }
+
+    SseEmitter createEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onResidentChanged(ResidentChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // Ne bloque jamais l'écriture : statistiques et diffusion se font hors du thread appelant
+        fanOut.execute(() -> broadcast(event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        fanOut.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void broadcast(ResidentChangedEvent event) {
+        try {
+            ResidentChangeNotification notification = toNotification(event);
+            // SseEventBuilder n'est pas réutilisable (build() le modifie) : un par abonné
+            subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event()
+                    .id(String.valueOf(notification.getSeq()))
+                    .name("resident")
+                    .data(notification, MediaType.APPLICATION_JSON)));
+        } catch (Exception e) {
+            log.error("Failed to broadcast resident change {}", event.getResidentId(), e);
+        }
+    }
+
+    private ResidentChangeNotification toNotification(ResidentChangedEvent event) {
+        StatisticsResponse stats = statistics();
+        return new ResidentChangeNotification(
+                event.getResidentId(),
+                event.getAction().name(),
+                event.getChangeSeq(),
+                changedFields(event.getPrevious(), event.getResident()),
+                stats.getTotalLots(),
+                stats.getTotalBatiments(),
+                stats.getTotalOccupants(),
+                stats.getTotalHappix()
+        );
+    }
+
+    /**
+     * Compteurs joints aux notifications : ceux du snapshot (calculés en mémoire une fois par
+     * version) s'il est chargé, sinon un calcul en base au plus une fois par intervalle
+     */
+    private StatisticsResponse statistics() {
+        if (residentSnapshot.isReady()) {
+            return residentSnapshot.statistics();
+        }
+        long now = System.nanoTime();
+        if (lastStatistics == null || now - lastStatisticsAt >= statisticsIntervalNanos) {
+            lastStatistics = residentService.getStatistics();
+            lastStatisticsAt = now;
+        }
+        return lastStatistics;
+    }
+
+    static List<String> changedFields(Resident previous, Resident current) {
+        List<String> changed = new ArrayList<>();
+        if (previous == null || current == null) {
+            return changed;
+        }
+        for (Field field : FIELDS) {
+            if (!Objects.equals(field.getter().apply(previous), field.getter().apply(current))) {
+                changed.add(field.name());
+            }
+        }
+        return changed;
+    }
+
+    private void sendHeartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping")));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Field(String name, Function<Resident, Object> getter) {}
+
+    /**
+     * Abonné avec sa file d'envoi bornée ; un seul envoi en cours à la fois
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                drop();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE subscriber disconnected: {}", e.getMessage());
+                subscribers.remove(this);
+                queue.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Un événement a pu arriver entre le dernier poll et la remise à zéro du drapeau
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void drop() {
+            if (subscribers.remove(this)) {
+                droppedCounter.increment();
+                log.warn("SSE subscriber too slow ({} pending events), disconnecting", queue.size());
+                queue.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.copro.connect.service;
+
+import com.copro.connect.model.HappixAccount;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Empreinte SHA-256 du contenu métier d'un résident : numéro de lot, logement, propriétaire,
+ * occupants et comptes Happix (dans leur ordre). L'id, les dates et la séquence n'y entrent pas.
+ * <p>
+ * Deux résidents normalisés de même contenu ont toujours la même empreinte ; elle est stockée
+ * sur le document ({@code contentHash}) pour repérer sans relecture complète les écritures sans effet.
+ */
+public final class ResidentFingerprint {
+
+    private ResidentFingerprint() {
+    }
+
+    public static String of(Resident resident) {
+        MessageDigest digest = sha256();
+        field(digest, resident.getLotId());
+        field(digest, resident.getBatiment());
+        field(digest, resident.getEtage());
+        field(digest, resident.getPorte());
+        field(digest, resident.getCaveId());
+        field(digest, resident.getStatutLot());
+        field(digest, resident.getProprietaireNom());
+        field(digest, resident.getProprietaireMobile());
+        field(digest, resident.getProprietaireEmail());
+
+        List<Occupant> occupants = resident.getOccupants() != null ? resident.getOccupants() : List.of();
+        digest.update(ByteBuffer.allocate(4).putInt(occupants.size()).array());
+        for (Occupant occupant : occupants) {
+            field(digest, occupant.getNom());
+            field(digest, occupant.getMobile());
+            field(digest, occupant.getEmail());
+        }
+
+        List<HappixAccount> accounts = resident.getHappixAccounts() != null ? resident.getHappixAccounts() : List.of();
+        digest.update(ByteBuffer.allocate(4).putInt(accounts.size()).array());
+        for (HappixAccount account : accounts) {
+            field(digest, account.getNom());
+            field(digest, account.getMobile());
+            field(digest, account.getEmail());
+            field(digest, account.getNomBorne());
+            field(digest, account.getType());
+            field(digest, account.getRelation());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Valeur préfixée par sa longueur (null distinct de la chaîne vide) : aucune
+     * concaténation de champs différents ne peut produire le même flux d'octets
+     */
+    private static void field(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
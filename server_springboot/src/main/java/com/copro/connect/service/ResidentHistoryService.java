@@ -1,5 +1,6 @@
 package com.copro.connect.service;
 
+import com.copro.connect.cache.RecentHistoryCache;
 import com.copro.connect.model.*;
 import com.copro.connect.repository.ResidentHistoryRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ import java.util.stream.Collectors;
 public class ResidentHistoryService {
     
     private final ResidentHistoryRepository residentHistoryRepository;
+    private final RecentHistoryCache recentHistoryCache;
     
     /**
      * Enregistre l'historique lors d'une modification en détectant les changements précis
@@ -25,11 +27,63 @@ public class ResidentHistoryService {
     public void recordUpdate(Resident oldResident, Resident newResident) {
         log.info("Recording update history for resident: {}", oldResident.getId());
         
+        ResidentHistory history = buildUpdateHistory(oldResident, newResident);
+        if (history == null) {
+            log.debug("No changes detected for resident: {}", oldResident.getId());
+            return;
+        }
+        
+        residentHistoryRepository.save(history);
+        recentHistoryCache.invalidate();
+    }
+    
+    /**
+     * Enregistre l'historique lors d'une suppression
+     */
+    @Transactional
+    public void recordDelete(Resident resident) {
+        log.info("Recording delete history for resident: {}", resident.getId());
+        residentHistoryRepository.save(buildDeleteHistory(resident));
+        recentHistoryCache.invalidate();
+    }
+    
+    /**
+     * Historique d'une modification en masse (états avant/après dans le même ordre), en une seule insertion
+     */
+    @Transactional
+    public void recordUpdates(List<Resident> oldResidents, List<Resident> newResidents) {
+        List<ResidentHistory> histories = new ArrayList<>();
+        for (int i = 0; i < oldResidents.size(); i++) {
+            ResidentHistory history = buildUpdateHistory(oldResidents.get(i), newResidents.get(i));
+            if (history != null) {
+                histories.add(history);
+            }
+        }
+        if (!histories.isEmpty()) {
+            log.info("Recording update history for {} residents", histories.size());
+            residentHistoryRepository.insert(histories);
+            recentHistoryCache.invalidate();
+        }
+    }
+    
+    /**
+     * Historique d'une suppression en masse, en une seule insertion
+     */
+    @Transactional
+    public void recordDeletes(List<Resident> residents) {
+        if (residents.isEmpty()) {
+            return;
+        }
+        log.info("Recording delete history for {} residents", residents.size());
+        residentHistoryRepository.insert(residents.stream().map(this::buildDeleteHistory).toList());
+        recentHistoryCache.invalidate();
+    }
+    
+    private ResidentHistory buildUpdateHistory(Resident oldResident, Resident newResident) {
         List<ChangeDetail> changes = detectChanges(oldResident, newResident);
         
         if (changes.isEmpty()) {
-            log.debug("No changes detected for resident: {}", oldResident.getId());
-            return;
+            return null;
         }
         
         String description = buildDescription(changes);
@@ -45,17 +99,10 @@ public class ResidentHistoryService {
         history.setChanges(changes);
         history.setChangedAt(Instant.now());
         history.setApartmentKey(buildApartmentKey(oldResident.getBatiment(), oldResident.getEtage(), oldResident.getPorte()));
-        
-        residentHistoryRepository.save(history);
+        return history;
     }
     
-    /**
-     * Enregistre l'historique lors d'une suppression
-     */
-    @Transactional
-    public void recordDelete(Resident resident) {
-        log.info("Recording delete history for resident: {}", resident.getId());
-        
+    private ResidentHistory buildDeleteHistory(Resident resident) {
         List<ChangeDetail> changes = new ArrayList<>();
         
         changes.add(new ChangeDetail("LOT", "REMOVED", 
@@ -93,8 +140,7 @@ public class ResidentHistoryService {
         history.setChanges(changes);
         history.setChangedAt(Instant.now());
         history.setApartmentKey(buildApartmentKey(resident.getBatiment(), resident.getEtage(), resident.getPorte()));
-        
-        residentHistoryRepository.save(history);
+        return history;
     }
     
     public List<ResidentHistory> getApartmentHistory(String batiment, String etage, String porte) {
@@ -108,6 +154,14 @@ public class ResidentHistoryService {
         return residentHistoryRepository.findByResidentIdOrderByChangedAtDesc(residentId);
     }
     
+    /**
+     * Dernières modifications, tous résidents confondus (depuis le cache)
+     */
+    public List<ResidentHistory> getRecentHistory(int limit) {
+        log.debug("Fetching {} most recent history entries", limit);
+        return recentHistoryCache.get(limit);
+    }
+    
     // ==================== DETECTION DES CHANGEMENTS ====================
     
     private List<ChangeDetail> detectChanges(Resident oldR, Resident newR) {
@@ -0,0 +1,280 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentImportReport;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import en masse de résidents depuis un fichier JSON (tableau, même format que
+ * residentData.json) ou CSV (une colonne par champ du propriétaire, en-tête obligatoire).
+ * <p>
+ * Le fichier est lu en flux et traité par lots : validation Bean Validation en parallèle,
+ * dédoublonnage des numéros de lot en mémoire (fichier et base), puis insertion par
+ * bulkWrite non ordonné. Une ligne invalide n'empêche pas l'import des autres ;
+ * chacune est reportée avec son numéro dans le rapport. Les identifiants du fichier
+ * sont ignorés : chaque ligne crée un nouveau résident.
+ */
+@Slf4j
+@Service
+public class ResidentImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ResidentRepository residentRepository;
+    private final ResidentChangeService residentChangeService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    public ResidentImportService(ResidentRepository residentRepository,
+                                 ResidentChangeService residentChangeService,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${residents.import.batch-size:500}") int batchSize) {
+        this.residentRepository = residentRepository;
+        this.residentChangeService = residentChangeService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importe un tableau JSON de résidents
+     * @throws ValidationException si le fichier n'est pas un tableau JSON
+     */
+    public ResidentImportReport importJson(InputStream in) throws IOException {
+        Import run = new Import();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidationException("Le fichier doit contenir un tableau JSON de résidents");
+            }
+            int row = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.add(Row.failed(row, "L'enregistrement doit être un objet JSON"));
+                    continue;
+                }
+                // Arbre d'un seul enregistrement : une erreur de mapping ne désynchronise pas le parser
+                JsonNode node = parser.readValueAsTree();
+                run.add(toRow(row, () -> objectMapper.treeToValue(node, Resident.class)));
+            }
+        } catch (JsonProcessingException e) {
+            run.abort("Fichier JSON invalide, lecture interrompue : " + e.getOriginalMessage());
+        }
+        return run.finish();
+    }
+
+    /**
+     * Importe un fichier CSV avec en-tête (lot_id, batiment, etage, porte, cave_id, statut_lot,
+     * proprietaire_nom, proprietaire_mobile, proprietaire_email). Les occupants et comptes Happix
+     * ne sont pas représentables en CSV.
+     */
+    public ResidentImportReport importCsv(InputStream in) throws IOException {
+        Import run = new Import();
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<Map<String, String>> records = csvMapper.readerFor(Map.class).with(schema).readValues(in)) {
+            int row = 0;
+            while (records.hasNextValue()) {
+                row++;
+                Map<String, String> record = records.nextValue();
+                Map<String, String> values = new LinkedHashMap<>();
+                record.forEach((column, value) -> values.put(column.trim(), value == null || value.isBlank() ? null : value));
+                run.add(toRow(row, () -> objectMapper.convertValue(values, Resident.class)));
+            }
+        } catch (JsonProcessingException e) {
+            run.abort("Fichier CSV invalide, lecture interrompue : " + e.getOriginalMessage());
+        }
+        return run.finish();
+    }
+
+    private Row toRow(int row, ResidentReader reader) {
+        try {
+            Resident resident = reader.read();
+            resident.setId(null);
+            return new Row(row, resident, new ArrayList<>());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Row.failed(row, "Enregistrement illisible : " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResidentReader {
+        Resident read() throws JsonProcessingException;
+    }
+
+    private static final class Row {
+
+        private final int number;
+        private final Resident resident;
+        private final List<String> errors;
+
+        Row(int number, Resident resident, List<String> errors) {
+            this.number = number;
+            this.resident = resident;
+            this.errors = errors;
+        }
+
+        static Row failed(int number, String message) {
+            return new Row(number, null, new ArrayList<>(List.of(message)));
+        }
+
+        String lotId() {
+            return resident != null ? resident.getLotId() : null;
+        }
+    }
+
+    /**
+     * État d'un import en cours : lot courant, numéros de lot déjà vus et rapport
+     */
+    private final class Import {
+
+        private final long start = System.nanoTime();
+        private final Set<String> lotIds = new HashSet<>();
+        private final List<Row> batch = new ArrayList<>(batchSize);
+        private final List<ResidentImportReport.RowError> errors = new ArrayList<>();
+        private int totalRows;
+        private int imported;
+        private int rejected;
+
+        Import() {
+            residentRepository.findAllLotIds().forEach(lotId -> lotIds.add(normalizeLotId(lotId)));
+        }
+
+        void add(Row row) {
+            totalRows++;
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void abort(String message) {
+            flush();
+            totalRows++;
+            reject(new Row(totalRows, null, List.of(message)));
+        }
+
+        ResidentImportReport finish() {
+            flush();
+            if (imported > 0) {
+                // Une seule invalidation plutôt qu'un événement par lot importé
+                eventPublisher.publishEvent(ResidentChangedEvent.reload());
+            }
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            double lotsPerSecond = imported * 1000.0 / Math.max(durationMs, 1);
+            log.info("Resident import: {} rows, {} imported, {} rejected in {} ms ({} lots/s)",
+                    totalRows, imported, rejected, durationMs, Math.round(lotsPerSecond));
+            return new ResidentImportReport(totalRows, imported, rejected, durationMs, lotsPerSecond,
+                    errors, rejected > errors.size());
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            // Normalisation et contraintes Bean Validation, indépendantes d'une ligne à l'autre
+            batch.parallelStream()
+                    .filter(row -> row.resident != null)
+                    .forEach(row -> {
+                        ResidentService.normalizeResidentData(row.resident);
+                        for (ConstraintViolation<Resident> violation : validator.validate(row.resident)) {
+                            row.errors.add(violation.getPropertyPath() + " : " + violation.getMessage());
+                        }
+                    });
+
+            // Dédoublonnage séquentiel : la première occurrence d'un numéro de lot l'emporte
+            List<Row> accepted = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                if (row.errors.isEmpty() && !lotIds.add(normalizeLotId(row.lotId()))) {
+                    row.errors.add("Le numéro de lot " + row.lotId() + " existe déjà");
+                }
+                if (row.errors.isEmpty()) {
+                    accepted.add(row);
+                } else {
+                    reject(row);
+                }
+            }
+            batch.clear();
+            insert(accepted);
+        }
+
+        private void insert(List<Row> accepted) {
+            if (accepted.isEmpty()) {
+                return;
+            }
+            List<Resident> residents = new ArrayList<>(accepted.size());
+            Instant now = Instant.now();
+            long firstSeq = residentChangeService.beginBatch(accepted.size());
+            try {
+                long seq = firstSeq;
+                for (Row row : accepted) {
+                    row.resident.setChangeSeq(seq++);
+                    row.resident.setContentHash(ResidentFingerprint.of(row.resident));
+                    row.resident.setCreatedAt(now);
+                    row.resident.setUpdatedAt(now);
+                    residents.add(row.resident);
+                }
+                Map<Integer, String> failures = residentRepository.insertUnordered(residents);
+                for (int i = 0; i < accepted.size(); i++) {
+                    String failure = failures.get(i);
+                    if (failure == null) {
+                        imported++;
+                    } else {
+                        Row row = accepted.get(i);
+                        row.errors.add("Échec de l'insertion : " + failure);
+                        lotIds.remove(normalizeLotId(row.lotId()));
+                        reject(row);
+                    }
+                }
+            } finally {
+                residentChangeService.completeBatch(firstSeq, accepted.size());
+            }
+        }
+
+        private void reject(Row row) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ResidentImportReport.RowError(row.number, row.lotId(), row.errors));
+            }
+        }
+    }
+
+    private static String normalizeLotId(String lotId) {
+        return lotId == null ? "" : lotId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,324 @@
+package com.copro.connect.service;
+
+import com.copro.connect.cache.ResidentByIdCache;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ConcurrentModificationException;
+import com.copro.connect.exception.ResidentNotFoundException;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.HappixAccount;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.validator.ResidentValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Modifications partielles d'un résident : JSON Merge Patch (RFC 7396) et ajout, remplacement
+ * ou retrait d'un occupant / compte Happix.
+ * <p>
+ * Seuls les champs touchés sont écrits ($set, $unset, $push, $pull) : une modification
+ * concurrente d'un autre champ n'est pas écrasée. Le résident lu (éventuellement depuis le
+ * cache) ne sert qu'à valider le résultat : l'absence d'effet est confirmée en base. Les opérations désignant un élément par
+ * sa position exigent en revanche que le résident n'ait pas changé depuis sa lecture.
+ * L'historique est calculé sur le seul effet du correctif.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResidentPatchService {
+
+    private static final List<Field> FIELDS = List.of(
+            new Field("lot_id", "lotId", Resident::getLotId),
+            new Field("batiment", "batiment", Resident::getBatiment),
+            new Field("etage", "etage", Resident::getEtage),
+            new Field("porte", "porte", Resident::getPorte),
+            new Field("cave_id", "caveId", Resident::getCaveId),
+            new Field("statut_lot", "statutLot", Resident::getStatutLot),
+            new Field("proprietaire_nom", "proprietaireNom", Resident::getProprietaireNom),
+            new Field("proprietaire_mobile", "proprietaireMobile", Resident::getProprietaireMobile),
+            new Field("proprietaire_email", "proprietaireEmail", Resident::getProprietaireEmail),
+            new Field("occupants", "occupants", Resident::getOccupants),
+            new Field("happix_accounts", "happixAccounts", Resident::getHappixAccounts)
+    );
+
+    /**
+     * Champs dérivés, recalculés par la normalisation et écrits avec les champs modifiés
+     */
+    private static final List<Field> SORT_KEYS = List.of(
+            new Field(null, "etageSortKey", Resident::getEtageSortKey),
+            new Field(null, "porteSortKey", Resident::getPorteSortKey)
+    );
+
+    private static final Set<String> PATCHABLE = FIELDS.stream().map(Field::json).collect(Collectors.toSet());
+
+    public static final Nested<Occupant> OCCUPANTS = new Nested<>("occupants", "occupant",
+            Resident::getOccupants, Resident::setOccupants, Occupant::getNom);
+
+    public static final Nested<HappixAccount> HAPPIX_ACCOUNTS = new Nested<>("happixAccounts", "compte Happix",
+            Resident::getHappixAccounts, Resident::setHappixAccounts, HappixAccount::getNom);
+
+    private final ResidentService residentService;
+    private final ResidentRepository residentRepository;
+    private final ResidentHistoryService residentHistoryService;
+    private final ResidentChangeService residentChangeService;
+    private final ResidentByIdCache residentByIdCache;
+    private final ResidentValidator residentValidator;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Applique un JSON Merge Patch : une valeur null retire le champ, un tableau remplace la liste
+     */
+    public Resident patchResident(String id, JsonNode patch) {
+        log.info("Patching resident with id: {}", id);
+        if (patch == null || !patch.isObject()) {
+            throw new ValidationException("Le correctif doit être un objet JSON");
+        }
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!PATCHABLE.contains(name)) {
+                throw new ValidationException("Le champ '" + name + "' ne peut pas être modifié");
+            }
+        }
+
+        Resident current = residentService.getResidentById(id);
+        ObjectNode merged = objectMapper.valueToTree(current);
+        mergePatch(merged, (ObjectNode) patch);
+        Resident patched = toResident(merged);
+        ResidentService.normalizeResidentData(patched);
+        validate(patched);
+        if (patch.has("lot_id")) {
+            residentValidator.validateForUpdate(id, patched);
+        }
+
+        // $set / $unset des seuls champs nommés par le correctif (et des clés de tri qui en
+        // dérivent), sans les comparer au cache : il peut être en retard sur la base
+        List<Field> touched = Stream.concat(FIELDS.stream(), SORT_KEYS.stream())
+                .filter(field -> field.json() == null ? patch.has("etage") || patch.has("porte") : patch.has(field.json()))
+                .toList();
+        Update update = new Update();
+        for (Field field : touched) {
+            Object value = field.getter().apply(patched);
+            if (value == null) {
+                update.unset(field.mongo());
+            } else {
+                update.set(field.mongo(), value);
+            }
+        }
+
+        // Correctif sans effet sur la copie en cache : on ne saute l'écriture que si la base le confirme
+        if (sameValues(touched, current, patched)) {
+            Resident stored = residentRepository.findById(id)
+                    .orElseThrow(() -> new ResidentNotFoundException(id));
+            if (sameValues(touched, stored, patched)) {
+                return skipped(stored);
+            }
+            log.debug("Cached copy of resident {} is stale, writing patch against stored state", id);
+            residentByIdCache.invalidate(id);
+            current = stored;
+        }
+        return apply(current, patched, update, null);
+    }
+
+    public <T> Resident addElement(String id, Nested<T> nested, T element) {
+        log.info("Adding {} to resident {}", nested.label(), id);
+        Resident current = residentService.getResidentById(id);
+        Resident patched = copyOf(current);
+        List<T> elements = new ArrayList<>(nested.getter().apply(patched));
+        elements.add(element);
+        nested.setter().accept(patched, elements);
+        ResidentService.normalizeResidentData(patched);
+        validate(patched);
+
+        return apply(current, patched, new Update().push(nested.field(), element), null);
+    }
+
+    public <T> Resident replaceElement(String id, Nested<T> nested, int index, T element) {
+        log.info("Replacing {} {} of resident {}", nested.label(), index, id);
+        Resident current = residentService.getResidentById(id);
+        checkIndex(current, nested, index);
+        Resident patched = copyOf(current);
+        List<T> elements = new ArrayList<>(nested.getter().apply(patched));
+        elements.set(index, element);
+        nested.setter().accept(patched, elements);
+        ResidentService.normalizeResidentData(patched);
+        validate(patched);
+
+        return apply(current, patched, new Update().set(nested.field() + "." + index, element), unchangedSince(current));
+    }
+
+    public <T> Resident removeElement(String id, Nested<T> nested, int index) {
+        log.info("Removing {} {} of resident {}", nested.label(), index, id);
+        Resident current = residentService.getResidentById(id);
+        checkIndex(current, nested, index);
+        Resident patched = copyOf(current);
+        List<T> elements = new ArrayList<>(nested.getter().apply(patched));
+        T removed = elements.remove(index);
+        nested.setter().accept(patched, elements);
+
+        // $pull retire tous les éléments correspondant aux champs renseignés : si un autre élément
+        // porte le même nom, on réécrit la liste
+        String name = nested.name().apply(removed);
+        boolean ambiguous = nested.getter().apply(current).stream()
+                .filter(element -> Objects.equals(nested.name().apply(element), name))
+                .count() > 1;
+        Update update = ambiguous
+                ? new Update().set(nested.field(), elements)
+                : new Update().pull(nested.field(), removed);
+        return apply(current, patched, update, unchangedSince(current));
+    }
+
+    /**
+     * Écrit la mise à jour avec la séquence, la date et l'empreinte, puis publie l'état obtenu
+     * @param expected état attendu (courant + correctif), base de l'historique et de l'empreinte
+     */
+    private Resident apply(Resident current, Resident expected, Update update, Criteria condition) {
+        String id = current.getId();
+        if (update.getUpdateObject().isEmpty()) {
+            return skipped(current);
+        }
+
+        String contentHash = ResidentFingerprint.of(expected);
+        Resident updated;
+        long seq = residentChangeService.begin();
+        try {
+            update.set("changeSeq", seq)
+                    .set("updatedAt", Instant.now())
+                    .set("contentHash", contentHash);
+            updated = residentRepository.updateAndGet(id, condition, update);
+            if (updated != null) {
+                // Un autre champ a pu être modifié entre la lecture et l'écriture
+                String actualHash = ResidentFingerprint.of(updated);
+                if (!actualHash.equals(contentHash)) {
+                    residentRepository.setContentHash(id, seq, actualHash);
+                    updated.setContentHash(actualHash);
+                }
+                eventPublisher.publishEvent(ResidentChangedEvent.updated(current, updated));
+            }
+        } finally {
+            residentChangeService.complete(seq);
+        }
+
+        if (updated == null) {
+            // Le cache a pu servir un état déjà dépassé : la prochaine lecture ira en base
+            residentByIdCache.invalidate(id);
+            if (condition != null) {
+                throw new ConcurrentModificationException(id);
+            }
+            throw new ResidentNotFoundException(id);
+        }
+
+        try {
+            residentHistoryService.recordUpdate(current, expected);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'enregistrement de l'historique pour le résident {}", id, e);
+            // On continue même si l'historique échoue pour ne pas bloquer la mise à jour
+        }
+        return updated;
+    }
+
+    private Resident skipped(Resident resident) {
+        log.debug("Resident {} unchanged, skipping write", resident.getId());
+        meterRegistry.counter("residents.updates.skipped").increment();
+        return resident;
+    }
+
+    private static boolean sameValues(List<Field> fields, Resident resident, Resident patched) {
+        return fields.stream().allMatch(field ->
+                Objects.equals(field.getter().apply(resident), field.getter().apply(patched)));
+    }
+
+    /**
+     * Fusion RFC 7396 : null retire la clé, un objet est fusionné récursivement, le reste remplace
+     */
+    static void mergePatch(ObjectNode target, ObjectNode patch) {
+        patch.fields().forEachRemaining(entry -> {
+            String name = entry.getKey();
+            JsonNode value = entry.getValue();
+            if (value.isNull()) {
+                target.remove(name);
+            } else if (value.isObject()) {
+                JsonNode existing = target.get(name);
+                ObjectNode child = existing instanceof ObjectNode object ? object : target.objectNode();
+                mergePatch(child, (ObjectNode) value);
+                target.set(name, child);
+            } else {
+                target.set(name, value.deepCopy());
+            }
+        });
+    }
+
+    private Resident copyOf(Resident resident) {
+        return toResident(objectMapper.valueToTree(resident));
+    }
+
+    private Resident toResident(JsonNode node) {
+        try {
+            Resident resident = objectMapper.treeToValue(node, Resident.class);
+            resident.setContentHash(null);
+            // Liste retirée par le correctif (ou absente d'un document ancien) : liste vide
+            if (resident.getOccupants() == null) {
+                resident.setOccupants(new ArrayList<>());
+            }
+            if (resident.getHappixAccounts() == null) {
+                resident.setHappixAccounts(new ArrayList<>());
+            }
+            return resident;
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Correctif invalide : " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private void validate(Resident resident) {
+        Set<ConstraintViolation<Resident>> violations = validator.validate(resident);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+
+    private static <T> void checkIndex(Resident resident, Nested<T> nested, int index) {
+        List<T> elements = nested.getter().apply(resident);
+        if (index < 0 || elements == null || index >= elements.size()) {
+            throw new ValidationException("Aucun " + nested.label() + " à la position " + index);
+        }
+    }
+
+    private static Criteria unchangedSince(Resident resident) {
+        return Criteria.where("changeSeq").is(resident.getChangeSeq());
+    }
+
+    private record Field(String json, String mongo, Function<Resident, Object> getter) {}
+
+    /**
+     * Liste imbriquée modifiable élément par élément
+     */
+    public record Nested<T>(String field, String label,
+                            Function<Resident, List<T>> getter, BiConsumer<Resident, List<T>> setter,
+                            Function<T, String> name) {}
+}
@@ -0,0 +1,233 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentImportReport;
+import com.copro.connect.dto.ResidentReconcileReport;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Application d'un registre complet (fourni par le syndic) sur la collection des résidents.
+ * <p>
+ * Les lots sont rapprochés par numéro de lot en une seule passe sur les empreintes stockées
+ * ({@link ResidentFingerprint}) : seuls les lots créés, réellement modifiés ou disparus
+ * donnent lieu à une écriture et à une entrée d'historique. Une ligne invalide n'est
+ * jamais interprétée comme la disparition de son lot.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResidentReconcileService {
+
+    private final ResidentRepository residentRepository;
+    private final ResidentHistoryService residentHistoryService;
+    private final ResidentChangeService residentChangeService;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ResidentReconcileReport reconcile(List<Resident> roster, boolean dryRun) {
+        if (roster == null || roster.isEmpty()) {
+            throw new ValidationException("Le registre ne contient aucun lot");
+        }
+        long start = System.nanoTime();
+        List<ResidentImportReport.RowError> errors = new ArrayList<>();
+
+        // Normalisation, empreinte et contraintes Bean Validation, en parallèle
+        List<List<String>> violations = IntStream.range(0, roster.size()).parallel()
+                .mapToObj(i -> {
+                    Resident resident = roster.get(i);
+                    ResidentService.normalizeResidentData(resident);
+                    resident.setContentHash(ResidentFingerprint.of(resident));
+                    return validator.validate(resident).stream()
+                            .map(violation -> violation.getPropertyPath() + " : " + violation.getMessage())
+                            .toList();
+                })
+                .toList();
+
+        Map<String, Resident> incoming = new LinkedHashMap<>();
+        Map<String, Integer> rows = new HashMap<>();
+        Set<String> listedLots = new HashSet<>();
+        for (int i = 0; i < roster.size(); i++) {
+            Resident resident = roster.get(i);
+            String lot = lotKey(resident.getLotId());
+            List<String> messages = new ArrayList<>(violations.get(i));
+            if (messages.isEmpty() && incoming.containsKey(lot)) {
+                messages.add("Le numéro de lot " + resident.getLotId() + " apparaît plusieurs fois");
+            }
+            if (!lot.isEmpty()) {
+                listedLots.add(lot);
+            }
+            if (!messages.isEmpty()) {
+                errors.add(new ResidentImportReport.RowError(i + 1, resident.getLotId(), messages));
+                continue;
+            }
+            incoming.put(lot, resident);
+            rows.put(lot, i + 1);
+        }
+
+        // Rapprochement sur les empreintes stockées ; documents complets lus seulement si nécessaire
+        List<String> candidateIds = new ArrayList<>();
+        Map<String, Resident> candidates = new HashMap<>();
+        List<String> deletedIds = new ArrayList<>();
+        Set<String> matched = new HashSet<>();
+        int unchanged = 0;
+        for (Resident existing : residentRepository.findAllFingerprints()) {
+            String lot = lotKey(existing.getLotId());
+            Resident replacement = incoming.get(lot);
+            if (replacement == null) {
+                if (!listedLots.contains(lot)) {
+                    deletedIds.add(existing.getId());
+                }
+                continue;
+            }
+            matched.add(lot);
+            if (replacement.getContentHash().equals(existing.getContentHash())) {
+                unchanged++;
+            } else {
+                candidateIds.add(existing.getId());
+                candidates.put(existing.getId(), replacement);
+            }
+        }
+
+        List<String> toLoad = new ArrayList<>(candidateIds);
+        toLoad.addAll(deletedIds);
+        Map<String, Resident> current = toLoad.isEmpty() ? Map.of()
+                : residentRepository.findAllById(toLoad).stream()
+                        .collect(Collectors.toMap(Resident::getId, Function.identity()));
+
+        List<Update> updates = new ArrayList<>();
+        for (String id : candidateIds) {
+            Resident previous = current.get(id);
+            Resident replacement = candidates.get(id);
+            if (previous == null) {
+                continue;
+            }
+            // Document antérieur aux empreintes : comparaison sur son contenu réel
+            if (previous.getContentHash() == null && ResidentFingerprint.of(previous).equals(replacement.getContentHash())) {
+                unchanged++;
+                continue;
+            }
+            replacement.setId(previous.getId());
+            replacement.setCreatedAt(previous.getCreatedAt());
+            updates.add(new Update(previous, replacement));
+        }
+
+        List<Resident> creations = incoming.entrySet().stream()
+                .filter(entry -> !matched.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        List<Resident> deletions = deletedIds.stream().map(current::get).filter(Objects::nonNull).toList();
+
+        if (dryRun) {
+            return report(roster.size(), unchanged, creations.size(), updates.size(), deletions.size(), true, start, errors);
+        }
+
+        int created = 0;
+        int updated = 0;
+        int writes = creations.size() + updates.size() + deletions.size();
+        if (writes > 0) {
+            long firstSeq = residentChangeService.beginBatch(writes);
+            try {
+                long seq = firstSeq;
+                Instant now = Instant.now();
+                for (Resident resident : creations) {
+                    resident.setId(null);
+                    resident.setChangeSeq(seq++);
+                    resident.setCreatedAt(now);
+                    resident.setUpdatedAt(now);
+                }
+                for (Update update : updates) {
+                    update.replacement().setChangeSeq(seq++);
+                    update.replacement().setUpdatedAt(now);
+                }
+                Map<String, Long> deletionSeqs = new LinkedHashMap<>();
+                for (Resident resident : deletions) {
+                    deletionSeqs.put(resident.getId(), seq++);
+                }
+
+                Map<Integer, String> createFailures = residentRepository.insertUnordered(creations);
+                for (int i = 0; i < creations.size(); i++) {
+                    if (createFailures.containsKey(i)) {
+                        errors.add(writeError(rows, creations.get(i), createFailures.get(i)));
+                    } else {
+                        created++;
+                    }
+                }
+
+                Map<Integer, String> updateFailures = residentRepository.replaceUnordered(
+                        updates.stream().map(Update::replacement).toList());
+                for (int i = 0; i < updates.size(); i++) {
+                    Update update = updates.get(i);
+                    if (updateFailures.containsKey(i)) {
+                        errors.add(writeError(rows, update.replacement(), updateFailures.get(i)));
+                        continue;
+                    }
+                    updated++;
+                    recordHistory(() -> residentHistoryService.recordUpdate(update.previous(), update.replacement()), update.previous());
+                }
+
+                if (!deletions.isEmpty()) {
+                    // La trace est écrite avant la suppression, comme pour une suppression unitaire
+                    residentChangeService.recordDeletions(deletionSeqs);
+                    deletions.forEach(resident -> recordHistory(() -> residentHistoryService.recordDelete(resident), resident));
+                    residentRepository.deleteAllById(deletionSeqs.keySet());
+                }
+            } finally {
+                residentChangeService.completeBatch(firstSeq, writes);
+            }
+            eventPublisher.publishEvent(ResidentChangedEvent.reload());
+        }
+
+        ResidentReconcileReport report = report(roster.size(), unchanged, created, updated, deletions.size(), false, start, errors);
+        log.info("Roster reconciled: {} rows, {} unchanged, {} created, {} updated, {} deleted, {} rejected in {} ms",
+                report.getTotalRows(), report.getUnchanged(), report.getCreated(), report.getUpdated(),
+                report.getDeleted(), report.getRejected(), report.getDurationMs());
+        return report;
+    }
+
+    private void recordHistory(Runnable record, Resident resident) {
+        try {
+            record.run();
+        } catch (Exception e) {
+            log.error("Erreur lors de l'enregistrement de l'historique pour le résident {}", resident.getId(), e);
+            // On continue même si l'historique échoue pour ne pas bloquer la réconciliation
+        }
+    }
+
+    private static ResidentImportReport.RowError writeError(Map<String, Integer> rows, Resident resident, String failure) {
+        return new ResidentImportReport.RowError(rows.getOrDefault(lotKey(resident.getLotId()), 0),
+                resident.getLotId(), List.of("Échec de l'écriture : " + failure));
+    }
+
+    private static ResidentReconcileReport report(int totalRows, int unchanged, int created, int updated, int deleted,
+                                                  boolean dryRun, long start, List<ResidentImportReport.RowError> errors) {
+        return new ResidentReconcileReport(totalRows, unchanged, created, updated, deleted, errors.size(), dryRun,
+                (System.nanoTime() - start) / 1_000_000, errors);
+    }
+
+    private record Update(Resident previous, Resident replacement) {}
+
+    private static String lotKey(String lotId) {
+        return lotId == null ? "" : lotId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,12 +1,26 @@
 package com.copro.connect.service;
 
+import com.copro.connect.cache.RequestCoalescer;
+import com.copro.connect.cache.ResidentByIdCache;
+import com.copro.connect.cache.ResidentPageCache;
+import com.copro.connect.cache.ResidentSnapshot;
+import com.copro.connect.dto.PagedResidentSummariesResponse;
 import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.dto.ResidentBatchResponse;
+import com.copro.connect.dto.ResidentScrollResponse;
+import com.copro.connect.dto.ResidentSummary;
 import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
 import com.copro.connect.exception.ResidentNotFoundException;
+import com.copro.connect.exception.ValidationException;
 import com.copro.connect.model.Resident;
 import com.copro.connect.repository.ResidentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,38 +28,179 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ResidentService {
     
+    /**
+     * Ordre des listes (index batiment_porteSortKey_id)
+     */
+    static final Sort DEFAULT_SORT = Sort.by("batiment", "porteSortKey", "id");
+    
     private final ResidentRepository residentRepository;
     private final ResidentHistoryService residentHistoryService;
+    private final ResidentSnapshot residentSnapshot;
+    private final ResidentByIdCache residentByIdCache;
+    private final ResidentPageCache residentPageCache;
+    private final RequestCoalescer requestCoalescer;
+    private final ResidentChangeService residentChangeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
     
     public List<Resident> getAllResidents() {
         log.debug("Fetching all residents");
-        return residentRepository.findAllByOrderByBatimentAscPorteAsc();
+        if (residentSnapshot.isReady()) {
+            return residentSnapshot.residents();
+        }
+        return residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc();
+    }
+    
+    /**
+     * Parcourt tous les résidents un par un, sans matérialiser la collection :
+     * depuis le snapshot s'il est chargé, sinon via un curseur Mongo
+     */
+    public void forEachResident(Consumer<Resident> action) {
+        if (residentSnapshot.isReady()) {
+            residentSnapshot.residents().forEach(action);
+            return;
+        }
+        try (Stream<Resident> residents = residentRepository.streamAllSorted()) {
+            residents.forEach(action);
+        }
     }
     
     public PagedResidentsResponse getResidentsPaginated(int page, int size, String search, String batiment, String statutLot, String sort) {
         log.debug("Fetching residents - page: {}, size: {}, search: {}, batiment: {}, statut: {}, sort: {}", 
                   page, size, search, batiment, statutLot, sort);
         
+        ResidentPageCache.Key key = pageKey(page, size, search, batiment, statutLot, sort, null);
+        return residentPageCache.get(key, () -> loadPage(key.search(), key.batiment(), key.statutLot(), key.pageable()));
+    }
+    
+    /**
+     * Page de résumés (liste des résidents sans coordonnées des occupants) ; seuls les champs
+     * demandés sont lus en base, tous ceux du résumé si {@code fields} est vide
+     */
+    public PagedResidentSummariesResponse getResidentSummaries(int page, int size, String search, String batiment,
+                                                               String statutLot, String sort, List<String> fields) {
+        log.debug("Fetching resident summaries - page: {}, size: {}, search: {}, batiment: {}, statut: {}, sort: {}, fields: {}",
+                  page, size, search, batiment, statutLot, sort, fields);
+        
+        Set<String> properties = summaryProperties(fields);
+        ResidentPageCache.Key key = pageKey(page, size, search, batiment, statutLot, sort, properties);
+        return residentPageCache.get(key, () -> {
+            Page<ResidentSummary> summaries = residentRepository.findSummaries(
+                    key.search(), key.batiment(), key.statutLot(), properties, key.pageable());
+            return new PagedResidentSummariesResponse(
+                summaries.getContent(),
+                summaries.getNumber(),
+                summaries.getTotalPages(),
+                summaries.getTotalElements(),
+                summaries.getSize()
+            );
+        });
+    }
+    
+    /**
+     * Pagination par clé dans l'ordre naturel : le coût d'une page ne dépend pas de sa position
+     * @param after curseur renvoyé par la page précédente (null pour la première)
+     */
+    public ResidentScrollResponse getResidentsAfter(String after, int size, String search, String batiment, String statutLot) {
+        log.debug("Fetching residents after {} - size: {}, search: {}, batiment: {}, statut: {}",
+                  after, size, search, batiment, statutLot);
+        ResidentRepository.Position position = after != null && !after.isBlank() ? decodeCursor(after) : null;
+        
+        // Un résident de plus pour savoir s'il reste une page
+        List<Resident> residents = residentRepository.findAfter(searchFilter(search), filter(batiment), filter(statutLot),
+                position, size + 1);
+        if (residents.size() <= size) {
+            return new ResidentScrollResponse(residents, null);
+        }
+        List<Resident> page = residents.subList(0, size);
+        return new ResidentScrollResponse(List.copyOf(page), encodeCursor(page.get(size - 1)));
+    }
+    
+    private ResidentPageCache.Key pageKey(int page, int size, String search, String batiment, String statutLot,
+                                          String sort, Set<String> fields) {
         Pageable pageable = createPageable(page, size, sort);
+        return new ResidentPageCache.Key(searchFilter(search), filter(batiment), filter(statutLot), pageable, fields);
+    }
+    
+    private static String searchFilter(String search) {
+        return (search != null && !search.trim().isEmpty()) ? search.trim() : null;
+    }
+    
+    /**
+     * Filtre de liste : null si absent ou « Tous »
+     */
+    private static String filter(String value) {
+        return (value != null && !value.trim().isEmpty() && !value.equals("Tous")) ? value : null;
+    }
+    
+    private static String encodeCursor(Resident last) {
+        String position = String.join("\u0000", last.getBatiment(), Objects.toString(last.getPorteSortKey(), ""), last.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static ResidentRepository.Position decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\u0000", -1);
+            if (parts.length == 3) {
+                return new ResidentRepository.Position(parts[0], parts[1], parts[2]);
+            }
+        } catch (IllegalArgumentException e) {
+            // Curseur mal encodé : traité ci-dessous
+        }
+        throw new ValidationException("Curseur de pagination invalide");
+    }
+    
+    /**
+     * Noms JSON demandés (fields=lot_id,porte) → propriétés du résumé, dans l'ordre du résumé
+     */
+    private static Set<String> summaryProperties(List<String> fields) {
+        if (fields == null || fields.stream().allMatch(field -> field == null || field.isBlank())) {
+            return new LinkedHashSet<>(ResidentSummary.FIELDS.values());
+        }
+        Set<String> requested = new HashSet<>();
+        for (String field : fields) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            String name = field.trim();
+            if (!ResidentSummary.FIELDS.containsKey(name)) {
+                throw new ValidationException("Champ inconnu : '" + name + "' (champs disponibles : "
+                        + String.join(", ", ResidentSummary.FIELDS.keySet()) + ")");
+            }
+            requested.add(name);
+        }
+        Set<String> properties = new LinkedHashSet<>();
+        ResidentSummary.FIELDS.forEach((json, property) -> {
+            if (requested.contains(json)) {
+                properties.add(property);
+            }
+        });
+        return properties;
+    }
+    
+    private PagedResidentsResponse loadPage(String searchTerm, String batFilter, String statutFilter, Pageable pageable) {
         Page<Resident> residentPage;
         
         // Si des filtres sont appliqués
-        if ((search != null && !search.trim().isEmpty()) || 
-            (batiment != null && !batiment.equals("Tous")) || 
-            (statutLot != null && !statutLot.equals("Tous"))) {
-            
-            String searchTerm = (search != null && !search.trim().isEmpty()) ? search.trim() : "";
-            String batFilter = (batiment != null && !batiment.equals("Tous")) ? batiment : null;
-            String statutFilter = (statutLot != null && !statutLot.equals("Tous")) ? statutLot : null;
-            
-            residentPage = residentRepository.findWithFilters(searchTerm, batFilter, statutFilter, pageable);
+        if (searchTerm != null || batFilter != null || statutFilter != null) {
+            residentPage = residentRepository.findWithFilters(searchTerm != null ? searchTerm : "", batFilter, statutFilter, pageable);
         } else {
             // Pas de filtres, requête normale avec tri du Pageable
             // Le tri par défaut est géré dans createPageable()
@@ -61,17 +216,66 @@ public class ResidentService {
         );
     }
     
+    /**
+     * Statistiques globales ; les demandes simultanées partagent le même calcul
+     */
     public StatisticsResponse getStatistics() {
-        log.debug("Calculating statistics");
-        return residentRepository.calculateStatistics();
+        return requestCoalescer.execute("statistics", () -> {
+            log.debug("Calculating statistics");
+            if (residentSnapshot.isReady()) {
+                return residentSnapshot.statistics();
+            }
+            return residentRepository.calculateStatistics();
+        });
     }
     
     public Resident getResidentById(String id) {
         log.debug("Fetching resident with id: {}", id);
-        return residentRepository.findById(id)
+        return residentByIdCache.find(id)
                 .orElseThrow(() -> new ResidentNotFoundException(id));
     }
     
+    /**
+     * Plusieurs résidents en un aller-retour (cache puis une requête $in pour le reste),
+     * dans l'ordre demandé ; les doublons ne sont renvoyés qu'une fois
+     */
+    public ResidentBatchResponse getResidentsByIds(List<String> ids) {
+        log.debug("Fetching {} residents by id", ids.size());
+        Set<String> distinct = new LinkedHashSet<>(ids);
+        Map<String, Resident> found = residentByIdCache.findAll(distinct);
+        
+        List<Resident> residents = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : distinct) {
+            Resident resident = found.get(id);
+            if (resident != null) {
+                residents.add(resident);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ResidentBatchResponse(residents, missing);
+    }
+    
+    /**
+     * Calcule les clés de tri des résidents enregistrés avant leur introduction
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSortKeys() {
+        List<Resident> residents = residentRepository.findWithoutSortKeys();
+        if (residents.isEmpty()) {
+            return;
+        }
+        residents.forEach(resident -> {
+            resident.setEtageSortKey(NaturalSortKey.of(resident.getEtage()));
+            resident.setPorteSortKey(NaturalSortKey.of(resident.getPorte()));
+        });
+        residentRepository.assignSortKeys(residents);
+        log.info("Assigned sort keys to {} existing residents", residents.size());
+        // Les caches ont pu être chargés sans les clés
+        eventPublisher.publishEvent(ResidentChangedEvent.reload());
+    }
+    
     @Transactional
     public Resident createResident(Resident resident) {
         log.info("Creating new resident: {}", resident.getLotId());
@@ -84,35 +288,56 @@ public class ResidentService {
             resident.setId(null); // MongoDB génèrera automatiquement un ObjectId
         }
         
-        return residentRepository.save(resident);
+        resident.setContentHash(ResidentFingerprint.of(resident));
+        
+        long seq = residentChangeService.begin();
+        try {
+            resident.setChangeSeq(seq);
+            Resident savedResident = residentRepository.save(resident);
+            eventPublisher.publishEvent(ResidentChangedEvent.created(savedResident));
+            return savedResident;
+        } finally {
+            residentChangeService.complete(seq);
+        }
     }
     
     @Transactional
     public Resident updateResident(String id, Resident residentDetails) {
         log.info("Updating resident with id: {}", id);
         
-        Resident resident = getResidentById(id);
-        
-        // Créer une copie de l'ancien résident pour l'historique
-        Resident oldResident = createCopy(resident);
-        
         // Normaliser les données
         normalizeResidentData(residentDetails);
         
-        // Mise à jour des champs
-        resident.setLotId(residentDetails.getLotId());
-        resident.setBatiment(residentDetails.getBatiment());
-        resident.setEtage(residentDetails.getEtage());
-        resident.setPorte(residentDetails.getPorte());
-        resident.setCaveId(residentDetails.getCaveId());
-        resident.setStatutLot(residentDetails.getStatutLot());
-        resident.setProprietaireNom(residentDetails.getProprietaireNom());
-        resident.setProprietaireMobile(residentDetails.getProprietaireMobile());
-        resident.setProprietaireEmail(residentDetails.getProprietaireEmail());
-        resident.setOccupants(residentDetails.getOccupants());
-        resident.setHappixAccounts(residentDetails.getHappixAccounts());
+        // L'instance lue est partagée par le cache : on modifie une copie
+        Resident oldResident = getResidentById(id);
+        Resident resident = withDetails(oldResident, residentDetails);
         
-        Resident updatedResident = residentRepository.save(resident);
+        // Formulaire renvoyé sans modification : aucune écriture, ni séquence, ni historique.
+        // Le cache peut être en retard sur une écriture d'une autre instance : on ne saute
+        // l'écriture que si l'empreinte en base est identique
+        if (hashOf(oldResident).equals(resident.getContentHash())) {
+            Resident stored = residentRepository.findById(id)
+                    .orElseThrow(() -> new ResidentNotFoundException(id));
+            if (hashOf(stored).equals(resident.getContentHash())) {
+                log.debug("Resident {} unchanged, skipping write", id);
+                meterRegistry.counter("residents.updates.skipped").increment();
+                return stored;
+            }
+            log.debug("Cached copy of resident {} is stale, writing against stored state", id);
+            residentByIdCache.invalidate(id);
+            oldResident = stored;
+            resident = withDetails(stored, residentDetails);
+        }
+        
+        Resident updatedResident;
+        long seq = residentChangeService.begin();
+        try {
+            resident.setChangeSeq(seq);
+            updatedResident = residentRepository.save(resident);
+            eventPublisher.publishEvent(ResidentChangedEvent.updated(oldResident, updatedResident));
+        } finally {
+            residentChangeService.complete(seq);
+        }
         
         // Enregistrer dans l'historique
         try {
@@ -138,7 +363,15 @@ public class ResidentService {
             // On continue même si l'historique échoue pour ne pas bloquer la suppression
         }
         
-        residentRepository.delete(resident);
+        // La trace est écrite avant la suppression : un client ne peut pas manquer la suppression
+        long seq = residentChangeService.begin();
+        try {
+            residentChangeService.recordDeletion(id, seq);
+            residentRepository.delete(resident);
+            eventPublisher.publishEvent(ResidentChangedEvent.deleted(resident, seq));
+        } finally {
+            residentChangeService.complete(seq);
+        }
     }
     
     public List<Resident> getResidentsByBatiment(String batiment) {
@@ -158,7 +391,7 @@ public class ResidentService {
         if (sort != null && !sort.trim().isEmpty()) {
             // Parser le paramètre sort: "field,direction" (ex: "lotId,asc")
             String[] sortParams = sort.split(",");
-            String field = sortParams[0].trim();
+            String field = sortField(sortParams[0].trim());
             String direction = sortParams.length > 1 ? sortParams[1].trim() : "asc";
             
             Sort sortObj = direction.equalsIgnoreCase("desc") 
@@ -167,14 +400,25 @@ public class ResidentService {
             
             return PageRequest.of(page, size, sortObj);
         }
-        // Tri par défaut: batiment asc, porte asc
-        return PageRequest.of(page, size, Sort.by("batiment").ascending().and(Sort.by("porte").ascending()));
+        // Tri par défaut: batiment asc, porte asc (ordre naturel), l'id départageant les égalités
+        return PageRequest.of(page, size, DEFAULT_SORT);
+    }
+    
+    /**
+     * Étage et porte sont triés sur leur clé de tri naturel ("9" avant "10")
+     */
+    private static String sortField(String field) {
+        return switch (field) {
+            case "etage" -> "etageSortKey";
+            case "porte" -> "porteSortKey";
+            default -> field;
+        };
     }
     
     /**
      * Normalise les données du résident (trim des espaces, mise en forme)
      */
-    private void normalizeResidentData(Resident resident) {
+    static void normalizeResidentData(Resident resident) {
         if (resident.getLotId() != null) {
             resident.setLotId(resident.getLotId().trim());
         }
@@ -187,6 +431,8 @@ public class ResidentService {
         if (resident.getPorte() != null) {
             resident.setPorte(resident.getPorte().trim());
         }
+        resident.setEtageSortKey(NaturalSortKey.of(resident.getEtage()));
+        resident.setPorteSortKey(NaturalSortKey.of(resident.getPorte()));
         if (resident.getProprietaireNom() != null) {
             resident.setProprietaireNom(resident.getProprietaireNom().trim());
         }
@@ -228,6 +474,36 @@ public class ResidentService {
         }
     }
     
+    /**
+     * Copie de {@code original} portant les champs modifiables de {@code details} (déjà normalisés)
+     * et l'empreinte correspondante
+     */
+    private Resident withDetails(Resident original, Resident details) {
+        Resident resident = createCopy(original);
+        resident.setLotId(details.getLotId());
+        resident.setBatiment(details.getBatiment());
+        resident.setEtage(details.getEtage());
+        resident.setPorte(details.getPorte());
+        resident.setEtageSortKey(details.getEtageSortKey());
+        resident.setPorteSortKey(details.getPorteSortKey());
+        resident.setCaveId(details.getCaveId());
+        resident.setStatutLot(details.getStatutLot());
+        resident.setProprietaireNom(details.getProprietaireNom());
+        resident.setProprietaireMobile(details.getProprietaireMobile());
+        resident.setProprietaireEmail(details.getProprietaireEmail());
+        resident.setOccupants(details.getOccupants());
+        resident.setHappixAccounts(details.getHappixAccounts());
+        resident.setContentHash(ResidentFingerprint.of(resident));
+        return resident;
+    }
+    
+    /**
+     * Empreinte enregistrée, ou calculée pour un document antérieur qui n'en a pas
+     */
+    private static String hashOf(Resident resident) {
+        return resident.getContentHash() != null ? resident.getContentHash() : ResidentFingerprint.of(resident);
+    }
+    
     /**
      * Crée une copie profonde d'un résident pour l'historique
      */
@@ -238,6 +514,8 @@ public class ResidentService {
         copy.setBatiment(original.getBatiment());
         copy.setEtage(original.getEtage());
         copy.setPorte(original.getPorte());
+        copy.setEtageSortKey(original.getEtageSortKey());
+        copy.setPorteSortKey(original.getPorteSortKey());
         copy.setCaveId(original.getCaveId());
         copy.setStatutLot(original.getStatutLot());
         copy.setProprietaireNom(original.getProprietaireNom());
@@ -245,6 +523,8 @@ public class ResidentService {
         copy.setProprietaireEmail(original.getProprietaireEmail());
         copy.setCreatedAt(original.getCreatedAt());
         copy.setUpdatedAt(original.getUpdatedAt());
+        copy.setChangeSeq(original.getChangeSeq());
+        copy.setContentHash(original.getContentHash());
         
         // Copie des occupants
         if (original.getOccupants() != null) {
@@ -0,0 +1,67 @@
+package com.copro.connect.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Sérialise tous les résidents au fil de l'eau, sans construire de liste intermédiaire :
+ * chaque document lu est écrit puis libéré.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResidentStreamWriter {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final ResidentService residentService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Écrit {@code {"data":[...]}}, même format que {@code ResidentsResponse}
+     */
+    public void writeJson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("data");
+            residentService.forEachResident(resident -> {
+                try {
+                    objectMapper.writeValue(generator, resident);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Écrit un résident JSON par ligne (NDJSON), envoyé au client dès qu'il est lu
+     */
+    public void writeNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            residentService.forEachResident(resident -> {
+                try {
+                    writer.writeValue(out, resident);
+                    out.write(NEW_LINE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+}
@@ -1,5 +1,6 @@
 package com.copro.connect.validator;
 
+import com.copro.connect.cache.ResidentByIdCache;
 import com.copro.connect.exception.DuplicateResidentException;
 import com.copro.connect.exception.ValidationException;
 import com.copro.connect.model.Resident;
@@ -16,6 +17,7 @@ import java.util.Optional;
 public class ResidentValidator {
     
     private final ResidentRepository residentRepository;
+    private final ResidentByIdCache residentByIdCache;
     
     /**
      * Valide qu'un résident peut être créé (pas de doublon de lotId)
@@ -45,7 +47,7 @@ public class ResidentValidator {
         }
         
         // Vérifier que le résident existe
-        Resident existingResident = residentRepository.findById(id)
+        Resident existingResident = residentByIdCache.find(id)
             .orElseThrow(() -> new ValidationException("Le résident avec l'id " + id + " n'existe pas"));
         
         // Vérifier si le nouveau lot ID n'existe pas déjà (sauf pour le résident actuel)
@@ -0,0 +1,69 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentHistoryChangedEvent;
+import com.copro.connect.model.ResidentHistory;
+import com.copro.connect.repository.ResidentHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests RecentHistoryCache")
+class RecentHistoryCacheTest {
+
+    @Mock
+    private ResidentHistoryRepository residentHistoryRepository;
+
+    private RecentHistoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentHistoryCache(residentHistoryRepository, new SimpleMeterRegistry(), 60);
+    }
+
+    private static List<ResidentHistory> entries(int count) {
+        List<ResidentHistory> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ResidentHistory history = new ResidentHistory();
+            history.setResidentId("r" + i);
+            entries.add(history);
+        }
+        return entries;
+    }
+
+    @Test
+    @DisplayName("Les entrées les plus récentes sont chargées une fois et servies pour toute taille")
+    void get_loadsOnceForAllLimits() {
+        when(residentHistoryRepository.findAllByOrderByChangedAtDesc(PageRequest.of(0, RecentHistoryCache.MAX_ENTRIES)))
+                .thenReturn(entries(30));
+
+        assertThat(cache.get(10)).hasSize(10).first().extracting(ResidentHistory::getResidentId).isEqualTo("r0");
+        assertThat(cache.get(50)).hasSize(30);
+
+        verify(residentHistoryRepository, times(1)).findAllByOrderByChangedAtDesc(any());
+    }
+
+    @Test
+    @DisplayName("Une écriture d'historique observée par le change stream invalide le cache")
+    void onHistoryChanged_reloads() {
+        when(residentHistoryRepository.findAllByOrderByChangedAtDesc(PageRequest.of(0, RecentHistoryCache.MAX_ENTRIES)))
+                .thenReturn(entries(1), entries(2));
+
+        assertThat(cache.get(10)).hasSize(1);
+        cache.onHistoryChanged(new ResidentHistoryChangedEvent("r1"));
+
+        assertThat(cache.get(10)).hasSize(2);
+        verify(residentHistoryRepository, times(2)).findAllByOrderByChangedAtDesc(any());
+    }
+}
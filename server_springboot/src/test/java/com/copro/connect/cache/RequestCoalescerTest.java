@@ -0,0 +1,101 @@
+package com.copro.connect.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests RequestCoalescer")
+class RequestCoalescerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+
+    private double count(String key, String outcome) {
+        return meterRegistry.get("coalescer.requests").tag("key", key).tag("outcome", outcome).counter().count();
+    }
+
+    private <V> List<Future<V>> runConcurrently(int callers, Callable<V> call) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch ready = new CountDownLatch(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<V>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(pool.submit(() -> {
+                ready.countDown();
+                start.await();
+                return call.call();
+            }));
+        }
+        ready.await(5, TimeUnit.SECONDS);
+        start.countDown();
+        pool.shutdown();
+        return futures;
+    }
+
+    @Test
+    @DisplayName("Des appels simultanés partagent un seul calcul et son résultat")
+    void concurrentCalls_shareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        List<Future<Object>> results = runConcurrently(20, () -> coalescer.execute("statistics", () -> {
+            computations.incrementAndGet();
+            sleep(200);
+            return new Object();
+        }));
+
+        Object first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(count("statistics", "executed")).isEqualTo(1);
+        assertThat(count("statistics", "coalesced")).isEqualTo(19);
+    }
+
+    @Test
+    @DisplayName("L'exception du calcul est propagée à tous les appelants regroupés")
+    void failure_propagatesToAllCallers() throws Exception {
+        List<Future<Object>> results = runConcurrently(5, () -> coalescer.execute("pdf", () -> {
+            sleep(100);
+            throw new IllegalStateException("Erreur lors de la génération du PDF");
+        }));
+
+        for (Future<Object> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Rien n'est conservé : un appel ultérieur relance le calcul")
+    void sequentialCalls_recompute() {
+        AtomicInteger computations = new AtomicInteger();
+
+        assertThat(coalescer.execute("k", computations::incrementAndGet)).isEqualTo(1);
+        assertThat(coalescer.execute("k", computations::incrementAndGet)).isEqualTo(2);
+        assertThat(coalescer.execute("autre", computations::incrementAndGet)).isEqualTo(3);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentByIdCache")
+class ResidentByIdCacheTest {
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    private MeterRegistry meterRegistry;
+    private ResidentByIdCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ResidentByIdCache(residentRepository, meterRegistry, 100, 300);
+    }
+
+    private static Resident resident(String id, long changeSeq) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setLotId("LOT-" + id);
+        resident.setChangeSeq(changeSeq);
+        return resident;
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", ResidentByIdCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("Une seule lecture en base, puis hits comptés dans les métriques")
+    void find_loadsOnceThenHits() {
+        when(residentRepository.findById("r1")).thenReturn(Optional.of(resident("r1", 1)));
+
+        assertThat(cache.find("r1")).isPresent();
+        assertThat(cache.find("r1")).isPresent();
+        assertThat(cache.find("r1")).isPresent();
+
+        verify(residentRepository, times(1)).findById("r1");
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(meterRegistry.find("cache.evictions").functionCounter()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Un résident absent n'est pas mis en cache")
+    void find_absentIsNotCached() {
+        when(residentRepository.findById("r1")).thenReturn(Optional.empty(), Optional.of(resident("r1", 1)));
+
+        assertThat(cache.find("r1")).isEmpty();
+        assertThat(cache.find("r1")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Écritures et suppressions remplacent l'entrée sans relire la base")
+    void writes_replaceEntries() {
+        when(residentRepository.findById("r1")).thenReturn(Optional.of(resident("r1", 1)));
+        Resident previous = cache.find("r1").orElseThrow();
+
+        Resident updated = resident("r1", 2);
+        cache.onResidentChanged(ResidentChangedEvent.updated(previous, updated));
+        assertThat(cache.find("r1")).containsSame(updated);
+
+        cache.onResidentChanged(ResidentChangedEvent.deleted(updated, 3));
+        when(residentRepository.findById("r1")).thenReturn(Optional.empty());
+        assertThat(cache.find("r1")).isEmpty();
+        verify(residentRepository, times(2)).findById("r1");
+    }
+
+    @Test
+    @DisplayName("Aucune lecture obsolète sous écritures concurrentes")
+    void concurrentReadsAndWrites_neverReturnStaleVersion() throws Exception {
+        // « Base » simulée : lecture lente pour que les chargements chevauchent les écritures
+        AtomicReference<Resident> stored = new AtomicReference<>(resident("r1", 0));
+        when(residentRepository.findById("r1")).thenAnswer(invocation -> {
+            Resident snapshot = stored.get();
+            Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+            return Optional.of(snapshot);
+        });
+
+        AtomicLong committed = new AtomicLong();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> staleReads = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(9);
+        CountDownLatch start = new CountDownLatch(1);
+        // L'écrivain attend que chaque lecteur ait fait une première lecture (chargement en base) :
+        // sans cela il peut finir avant que la base simulée ne soit interrogée
+        CountDownLatch readersStarted = new CountDownLatch(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int reader = 0; reader < 8; reader++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                cache.find("r1").orElseThrow();
+                readersStarted.countDown();
+                while (writing.get()) {
+                    // Toute écriture terminée avant la lecture doit être visible
+                    long expectedAtLeast = committed.get();
+                    long seen = cache.find("r1").orElseThrow().getChangeSeq();
+                    if (seen < expectedAtLeast) {
+                        staleReads.add(seen + " < " + expectedAtLeast);
+                    }
+                    if (ThreadLocalRandom.current().nextInt(20) == 0) {
+                        cache.invalidateAll(); // force de nouveaux chargements concurrents
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(pool.submit(() -> {
+            start.await();
+            readersStarted.await();
+            for (long version = 1; version <= 500; version++) {
+                Resident previous = stored.get();
+                Resident updated = resident("r1", version);
+                stored.set(updated);
+                cache.onResidentChanged(ResidentChangedEvent.updated(previous, updated));
+                committed.set(version);
+            }
+            writing.set(false);
+            return null;
+        }));
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(staleReads).isEmpty();
+        assertThat(cache.find("r1").orElseThrow().getChangeSeq()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("findAll ne lit en base que les absents, en une seule requête, sans mettre les introuvables en cache")
+    void findAll_loadsMissesInOneQuery() {
+        Resident cached = resident("1", 1);
+        Resident stored = resident("2", 1);
+        cache.onResidentChanged(ResidentChangedEvent.created(cached));
+        List<List<String>> queries = new ArrayList<>();
+        when(residentRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<String> ids = new ArrayList<>();
+            invocation.<Iterable<String>>getArgument(0).forEach(ids::add);
+            queries.add(ids);
+            return ids.contains("2") ? List.of(stored) : List.of();
+        });
+
+        assertThat(cache.findAll(List.of("1", "2", "3"))).containsOnlyKeys("1", "2")
+                .containsEntry("1", cached).containsEntry("2", stored);
+        assertThat(cache.findAll(List.of("2", "3"))).containsOnlyKeys("2");
+
+        assertThat(queries).hasSize(2);
+        assertThat(queries.get(0)).containsExactlyInAnyOrder("2", "3");
+        assertThat(queries.get(1)).containsExactly("3");
+    }
+}
@@ -0,0 +1,204 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.event.ResidentHistoryChangedEvent;
+import com.copro.connect.model.ChangeStreamToken;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ChangeStreamTokenRepository;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Les événements du change stream sont injectés directement dans le listener, à la place
+ * d'un replica set MongoDB local : on vérifie la traduction en événements et la gestion des tokens.
+ * Le listener n'étant pas démarré, la fin de la fenêtre de regroupement et l'enregistrement
+ * périodique des tokens sont déclenchés à la main.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentChangeStreamListener")
+class ResidentChangeStreamListenerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ChangeStreamTokenRepository tokenRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ResidentChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ResidentChangeStreamListener(mongoTemplate, tokenRepository, eventPublisher, true, "node-1", 1000,
+                10_000, 200, 5);
+    }
+
+    private static Resident resident(String id, long changeSeq) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setBatiment("A");
+        resident.setPorte("101");
+        resident.setChangeSeq(changeSeq);
+        return resident;
+    }
+
+    private static BsonDocument token(String value) {
+        return new BsonDocument("_data", new BsonString(value));
+    }
+
+    @Test
+    @DisplayName("Une écriture d'une autre instance est republiée comme événement distant")
+    void remoteUpdate_publishesRemoteEvent() {
+        Resident updated = resident("r1", 42);
+
+        listener.handleResidentChange("update", "r1", updated, token("t1"));
+        verifyNoInteractions(eventPublisher, tokenRepository);
+
+        listener.drainRemoteEvents();
+        listener.flushTokens();
+
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().isRemote()).isTrue();
+        assertThat(event.getValue().getAction()).isEqualTo(ResidentChangedEvent.Action.UPDATE);
+        assertThat(event.getValue().getResident()).isSameAs(updated);
+        assertThat(event.getValue().getChangeSeq()).isEqualTo(42);
+
+        ArgumentCaptor<ChangeStreamToken> saved = ArgumentCaptor.forClass(ChangeStreamToken.class);
+        verify(tokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getId()).isEqualTo("residents:node-1");
+        assertThat(BsonDocument.parse(saved.getValue().getToken())).isEqualTo(token("t1"));
+    }
+
+    @Test
+    @DisplayName("L'écho d'une écriture locale est ignoré mais le token avance, enregistré une seule fois")
+    void localWriteEcho_isSkipped() {
+        Resident local = resident("r1", 7);
+        listener.onResidentChanged(ResidentChangedEvent.created(local));
+        listener.onResidentChanged(ResidentChangedEvent.deleted(resident("r2", 3), 8));
+
+        listener.handleResidentChange("insert", "r1", local, token("t1"));
+        listener.handleResidentChange("delete", "r2", null, token("t2"));
+        listener.drainRemoteEvents();
+        listener.flushTokens();
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        verify(tokenRepository).save(argThat(saved -> BsonDocument.parse(saved.getToken()).equals(token("t2"))));
+
+        // Une écriture ultérieure du même résident par une autre instance reste propagée
+        listener.handleResidentChange("update", "r1", resident("r1", 9), token("t3"));
+        listener.drainRemoteEvents();
+        verify(eventPublisher).publishEvent(any(ResidentChangedEvent.class));
+
+        // Rien de nouveau depuis le dernier enregistrement, hormis t3
+        listener.flushTokens();
+        listener.flushTokens();
+        verify(tokenRepository, times(2)).save(any(ChangeStreamToken.class));
+    }
+
+    @Test
+    @DisplayName("Suppression distante et document disparu avant lecture donnent une suppression")
+    void remoteDelete_publishesDeletion() {
+        listener.handleResidentChange("delete", "r1", null, token("t1"));
+        listener.handleResidentChange("update", "r2", null, token("t2"));
+        listener.drainRemoteEvents();
+
+        ArgumentCaptor<ResidentChangedEvent> events = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).allSatisfy(event -> {
+            assertThat(event.getAction()).isEqualTo(ResidentChangedEvent.Action.DELETE);
+            assertThat(event.getResident()).isNull();
+        });
+        assertThat(events.getAllValues()).extracting(ResidentChangedEvent::getResidentId).containsExactly("r1", "r2");
+    }
+
+    @Test
+    @DisplayName("Collection supprimée ou historique perdu : rechargement complet et token effacé")
+    void invalidateOrHistoryLost_reloadsAndClearsToken() {
+        listener.handleResidentChange("update", "r1", resident("r1", 4), token("t0"));
+        listener.handleResidentChange("drop", null, null, token("t1"));
+
+        MongoCommandException historyLost = new MongoCommandException(
+                new BsonDocument("code", new BsonInt32(286)).append("codeName", new BsonString("ChangeStreamHistoryLost")),
+                new ServerAddress());
+        listener.onStreamError(ResidentChangeStreamListener.RESIDENTS, historyLost);
+
+        ArgumentCaptor<ResidentChangedEvent> events = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(ResidentChangedEvent::getAction)
+                .containsOnly(ResidentChangedEvent.Action.RELOAD);
+        verify(tokenRepository, times(2)).deleteById("residents:node-1");
+
+        // Les corrections en attente sont rendues inutiles par le rechargement
+        listener.drainRemoteEvents();
+        listener.flushTokens();
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+        verify(tokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Une rafale d'écritures distantes au-delà du seuil donne un seul rechargement")
+    void remoteBurst_coalescesIntoSingleReload() {
+        for (int i = 0; i < 50; i++) {
+            listener.handleResidentChange("insert", "r" + i, resident("r" + i, i + 1), token("t" + i));
+        }
+
+        listener.drainRemoteEvents();
+        listener.flushTokens();
+
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getAction()).isEqualTo(ResidentChangedEvent.Action.RELOAD);
+        verify(tokenRepository).save(argThat(saved -> BsonDocument.parse(saved.getToken()).equals(token("t49"))));
+
+        // La fenêtre suivante repart de zéro
+        listener.handleResidentChange("update", "r1", resident("r1", 60), token("t50"));
+        listener.drainRemoteEvents();
+        verify(eventPublisher, times(2)).publishEvent(event.capture());
+        assertThat(event.getValue().getAction()).isEqualTo(ResidentChangedEvent.Action.UPDATE);
+    }
+
+    @Test
+    @DisplayName("Une entrée d'historique écrite ailleurs invalide l'historique du résident")
+    void historyInsert_publishesHistoryEvent() {
+        listener.handleHistoryChange("insert", "r1", token("h1"));
+        listener.flushTokens();
+
+        ArgumentCaptor<ResidentHistoryChangedEvent> event = ArgumentCaptor.forClass(ResidentHistoryChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getResidentId()).isEqualTo("r1");
+        verify(tokenRepository).save(argThat(saved -> saved.getId().equals("residents_history:node-1")));
+    }
+
+    @Test
+    @DisplayName("Le token enregistré est relu au démarrage pour reprendre le flux")
+    void loadToken_resumesFromPersistedPosition() {
+        when(tokenRepository.findById("residents:node-1"))
+                .thenReturn(Optional.of(new ChangeStreamToken("residents:node-1", token("t9").toJson(), Instant.now())));
+        when(tokenRepository.findById("residents_history:node-1")).thenReturn(Optional.empty());
+
+        assertThat(listener.loadToken(ResidentChangeStreamListener.RESIDENTS)).isEqualTo(token("t9"));
+        assertThat(listener.loadToken(ResidentChangeStreamListener.HISTORY)).isNull();
+    }
+}
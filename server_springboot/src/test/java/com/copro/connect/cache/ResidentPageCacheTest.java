@@ -0,0 +1,110 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Resident;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests ResidentPageCache")
+class ResidentPageCacheTest {
+
+    private final ResidentPageCache cache = new ResidentPageCache(new SimpleMeterRegistry(), 100, 60);
+
+    private static ResidentPageCache.Key key(String batiment) {
+        return new ResidentPageCache.Key(null, batiment, null, PageRequest.of(0, 20));
+    }
+
+    private static PagedResidentsResponse page(int marker) {
+        return new PagedResidentsResponse(List.of(), marker, 1, 0, 20);
+    }
+
+    private static Resident resident() {
+        Resident resident = new Resident();
+        resident.setId("r1");
+        return resident;
+    }
+
+    @Test
+    @DisplayName("Des requêtes identiques simultanées n'exécutent qu'un seul chargement")
+    void concurrentIdenticalRequests_loadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<PagedResidentsResponse>> results = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return cache.get(key("A"), () -> {
+                    loads.incrementAndGet();
+                    sleep(50);
+                    return page(1);
+                });
+            }));
+        }
+        start.countDown();
+
+        PagedResidentsResponse first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<PagedResidentsResponse> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        pool.shutdown();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Une écriture invalide toutes les pages, y compris un chargement en cours")
+    void write_invalidatesAllPages() throws Exception {
+        cache.get(key("A"), () -> page(1));
+        cache.get(key("B"), () -> page(2));
+
+        // Chargement commencé avant l'écriture : son résultat ne doit pas être servi ensuite
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        Thread slowLoad = new Thread(() -> cache.get(key("C"), () -> {
+            loading.countDown();
+            await(written);
+            return page(3);
+        }));
+        slowLoad.start();
+        loading.await(5, TimeUnit.SECONDS);
+
+        cache.onResidentChanged(ResidentChangedEvent.updated(resident(), resident()));
+        written.countDown();
+        slowLoad.join(5000);
+
+        assertThat(cache.get(key("A"), () -> page(10)).getCurrentPage()).isEqualTo(10);
+        assertThat(cache.get(key("B"), () -> page(20)).getCurrentPage()).isEqualTo(20);
+        assertThat(cache.get(key("C"), () -> page(30)).getCurrentPage()).isEqualTo(30);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.copro.connect.cache;
+
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentSnapshot")
+class ResidentSnapshotTest {
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    private static Resident resident(String id, String batiment, String porte) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setLotId("LOT-" + id);
+        resident.setBatiment(batiment);
+        resident.setEtage("1");
+        resident.setPorte(porte);
+        resident.setProprietaireNom("Propriétaire " + id);
+        resident.setStatutLot("Propriétaire Résident");
+        return resident;
+    }
+
+    private ResidentSnapshot loadedSnapshot(List<Resident> residents) {
+        when(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc()).thenReturn(residents);
+        ResidentSnapshot snapshot = new ResidentSnapshot(residentRepository, true);
+        snapshot.onApplicationReady();
+        return snapshot;
+    }
+
+    @Test
+    @DisplayName("Le snapshot désactivé n'est jamais chargé")
+    void disabled_neverLoads() {
+        ResidentSnapshot snapshot = new ResidentSnapshot(residentRepository, false);
+
+        snapshot.onApplicationReady();
+        snapshot.onResidentChanged(ResidentChangedEvent.created(resident("1", "A", "101")));
+
+        assertThat(snapshot.isReady()).isFalse();
+        assertThatThrownBy(snapshot::residents).isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(residentRepository);
+    }
+
+    @Test
+    @DisplayName("Création, mise à jour et suppression corrigent la liste en gardant le tri")
+    void onResidentChanged_patchesSortedList() {
+        Resident a101 = resident("1", "A", "101");
+        Resident b201 = resident("2", "B", "201");
+        ResidentSnapshot snapshot = loadedSnapshot(List.of(a101, b201));
+        List<Resident> before = snapshot.residents();
+
+        Resident a102 = resident("3", "A", "102");
+        snapshot.onResidentChanged(ResidentChangedEvent.created(a102));
+        assertThat(snapshot.residents()).extracting(Resident::getId).containsExactly("1", "3", "2");
+
+        Resident movedToC = resident("1", "C", "301");
+        snapshot.onResidentChanged(ResidentChangedEvent.updated(a101, movedToC));
+        assertThat(snapshot.residents()).extracting(Resident::getId).containsExactly("3", "2", "1");
+        assertThat(snapshot.residents()).contains(movedToC).doesNotContain(a101);
+
+        snapshot.onResidentChanged(ResidentChangedEvent.deleted(b201));
+        assertThat(snapshot.residents()).extracting(Resident::getId).containsExactly("3", "1");
+
+        // Les lecteurs qui tenaient l'ancienne version ne voient aucune modification
+        assertThat(before).containsExactly(a101, b201);
+        assertThatThrownBy(() -> snapshot.residents().add(a101)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Les statistiques sont recalculées après une écriture")
+    void statistics_followPatches() {
+        Resident a101 = resident("1", "A", "101");
+        a101.setOccupants(new ArrayList<>(List.of(new Occupant())));
+        ResidentSnapshot snapshot = loadedSnapshot(List.of(a101));
+
+        StatisticsResponse first = snapshot.statistics();
+        assertThat(first.getTotalLots()).isEqualTo(1);
+        assertThat(first.getTotalOccupants()).isEqualTo(1);
+        assertThat(snapshot.statistics()).isSameAs(first);
+
+        snapshot.onResidentChanged(ResidentChangedEvent.created(resident("2", "B", "201")));
+
+        StatisticsResponse second = snapshot.statistics();
+        assertThat(second.getTotalLots()).isEqualTo(2);
+        assertThat(second.getTotalBatiments()).isEqualTo(2);
+        assertThat(second.getLotsVides()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un rechargement demandé par le change stream relit toute la collection")
+    void reload_rebuildsFromDatabase() {
+        ResidentSnapshot snapshot = loadedSnapshot(List.of(resident("1", "A", "101")));
+        when(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc())
+                .thenReturn(List.of(resident("1", "A", "101"), resident("2", "B", "201")));
+
+        snapshot.onResidentChanged(ResidentChangedEvent.reload());
+
+        assertThat(snapshot.residents()).extracting(Resident::getId).containsExactly("1", "2");
+        verify(residentRepository, times(2)).findAllByOrderByBatimentAscPorteSortKeyAscIdAsc();
+    }
+
+    @Test
+    @DisplayName("Les écritures publiées pendant la relecture ne sont pas écrasées par le rechargement")
+    void rebuild_replaysWritesMadeDuringTheRead() {
+        Resident a101 = resident("1", "A", "101");
+        a101.setChangeSeq(5L);
+        ResidentSnapshot snapshot = loadedSnapshot(List.of(a101));
+
+        Resident created = resident("2", "B", "201");
+        created.setChangeSeq(6L);
+        Resident staleUpdate = resident("1", "A", "101");
+        staleUpdate.setChangeSeq(4L);
+        Resident reloadedA101 = resident("1", "A", "101");
+        reloadedA101.setChangeSeq(7L);
+        when(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc()).thenAnswer(invocation -> {
+            // Écritures concurrentes : la création est publiée après la lecture de la base,
+            // la mise à jour est plus ancienne que la version relue
+            snapshot.onResidentChanged(ResidentChangedEvent.created(created));
+            snapshot.onResidentChanged(ResidentChangedEvent.updated(a101, staleUpdate));
+            return List.of(reloadedA101);
+        });
+
+        snapshot.onResidentChanged(ResidentChangedEvent.reload());
+
+        assertThat(snapshot.residents()).containsExactly(reloadedA101, created);
+
+        // Hors rechargement, les corrections ne sont plus mises de côté
+        snapshot.onResidentChanged(ResidentChangedEvent.deleted(created));
+        assertThat(snapshot.residents()).containsExactly(reloadedA101);
+    }
+
+    @Test
+    @DisplayName("Une écriture publiée pendant le chargement initial est rejouée")
+    void initialLoad_replaysConcurrentWrite() {
+        Resident created = resident("2", "B", "201");
+        created.setChangeSeq(3L);
+        ResidentSnapshot snapshot = new ResidentSnapshot(residentRepository, true);
+        when(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc()).thenAnswer(invocation -> {
+            snapshot.onResidentChanged(ResidentChangedEvent.created(created));
+            return List.of(resident("1", "A", "101"));
+        });
+
+        snapshot.onApplicationReady();
+
+        assertThat(snapshot.residents()).extracting(Resident::getId).containsExactly("1", "2");
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Coût mémoire et latence de rafraîchissement à 10k et 100k lots")
+    void heapAndRefreshLatency_at10kAnd100k() {
+        for (int size : new int[]{10_000, 100_000}) {
+            long heapBefore = usedHeap();
+            List<Resident> residents = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Resident r = resident("id-" + i, "B" + (i % 20), String.format("%05d", i));
+                r.setOccupants(new ArrayList<>(List.of(new Occupant())));
+                residents.add(r);
+            }
+            reset(residentRepository);
+
+            long start = System.nanoTime();
+            ResidentSnapshot snapshot = loadedSnapshot(residents);
+            long loadMs = (System.nanoTime() - start) / 1_000_000;
+            long heapAfter = usedHeap();
+
+            int patches = 200;
+            start = System.nanoTime();
+            for (int i = 0; i < patches; i++) {
+                Resident updated = resident("id-" + i, "B" + ((i + 7) % 20), String.format("%05d", i));
+                snapshot.onResidentChanged(ResidentChangedEvent.updated(residents.get(i), updated));
+            }
+            double patchMs = (System.nanoTime() - start) / 1_000_000.0 / patches;
+
+            System.out.printf("Snapshot %d lots: load %d ms, patch %.2f ms/write, heap ~%d MB%n",
+                    size, loadMs, patchMs, Math.max(0, heapAfter - heapBefore) / (1024 * 1024));
+            assertThat(snapshot.residents()).hasSize(size);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -2,20 +2,27 @@ package com.copro.connect.controller;
 
 import com.copro.connect.dto.LoginRequest;
 import com.copro.connect.dto.LoginResponse;
+import com.copro.connect.exception.TooManyRequestsException;
+import com.copro.connect.security.ClientIpResolver;
+import com.copro.connect.security.LoginRateLimiter;
 import com.copro.connect.service.AuthService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("Tests AuthController")
@@ -24,6 +31,12 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Spy
+    private ClientIpResolver clientIpResolver = new ClientIpResolver(List.of("10.0.0.0/8"));
+
     @InjectMocks
     private AuthController authController;
 
@@ -31,17 +44,44 @@ class AuthControllerTest {
     @DisplayName("login retourne token et userInfo")
     void login_returnsTokenAndUser() {
         LoginResponse response = LoginResponse.success("jwt-token-123",
-                new com.copro.connect.model.User("user-1", "admin", "password", "Admin", "admin@test.fr", "ADMIN", true, null, null));
+                new com.copro.connect.model.User("user-1", "admin", "password", "Admin", "admin@test.fr", "ADMIN", true, 0L, null, null));
         when(authService.login(any(LoginRequest.class))).thenReturn(response);
 
         LoginRequest request = new LoginRequest("admin", "password");
-        ResponseEntity<LoginResponse> result = authController.login(request);
+        ResponseEntity<LoginResponse> result = authController.login(request, new MockHttpServletRequest());
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(result.getBody()).isNotNull();
         assertThat(result.getBody().getToken()).isEqualTo("jwt-token-123");
         assertThat(result.getBody().getUser().getUsername()).isEqualTo("admin");
         assertThat(result.getBody().getUser().getName()).isEqualTo("Admin");
+        verify(loginRateLimiter).acquire("admin", "127.0.0.1");
         verify(authService).login(any(LoginRequest.class));
     }
+
+    @Test
+    @DisplayName("login limite le débit sur l'IP du client transmise par le répartiteur de charge")
+    void login_behindTrustedProxy_usesForwardedClientIp() {
+        when(authService.login(any(LoginRequest.class))).thenReturn(LoginResponse.mfaRequired("admin"));
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("10.0.0.5");
+        httpRequest.addHeader("X-Forwarded-For", "203.0.113.7");
+
+        authController.login(new LoginRequest("admin", "password"), httpRequest);
+
+        verify(loginRateLimiter).acquire("admin", "203.0.113.7");
+    }
+
+    @Test
+    @DisplayName("login propage le refus de la limitation de débit sans authentifier")
+    void login_whenThrottled_throwsBeforeAuthentication() {
+        doThrow(new TooManyRequestsException("Trop de tentatives", 30))
+                .when(loginRateLimiter).acquire("admin", "127.0.0.1");
+
+        LoginRequest request = new LoginRequest("admin", "password");
+
+        assertThatThrownBy(() -> authController.login(request, new MockHttpServletRequest()))
+                .isInstanceOf(TooManyRequestsException.class);
+        verifyNoInteractions(authService);
+    }
 }
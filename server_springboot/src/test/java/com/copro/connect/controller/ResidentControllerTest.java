@@ -1,24 +1,44 @@
 package com.copro.connect.controller;
 
+import com.copro.connect.cache.ResidentJsonCache;
 import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.dto.ResidentBatchResponse;
+import com.copro.connect.dto.ResidentImportReport;
 import com.copro.connect.dto.ResidentsResponse;
 import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
 import com.copro.connect.exception.ResidentNotFoundException;
+import com.copro.connect.exception.ValidationException;
 import com.copro.connect.model.Resident;
+import com.copro.connect.service.ResidentBulkService;
+import com.copro.connect.service.ResidentChangeService;
+import com.copro.connect.service.ResidentEventBroadcaster;
+import com.copro.connect.service.ResidentImportService;
+import com.copro.connect.service.ResidentPatchService;
+import com.copro.connect.service.ResidentReconcileService;
 import com.copro.connect.service.ResidentService;
+import com.copro.connect.service.ResidentStreamWriter;
 import com.copro.connect.validator.ResidentValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -35,13 +55,40 @@ class ResidentControllerTest {
     @Mock
     private ResidentValidator residentValidator;
 
-    @InjectMocks
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Mock
+    private ResidentEventBroadcaster residentEventBroadcaster;
+
+    @Mock
+    private ResidentImportService residentImportService;
+
+    @Mock
+    private ResidentReconcileService residentReconcileService;
+
+    @Mock
+    private ResidentPatchService residentPatchService;
+
+    @Mock
+    private ResidentBulkService residentBulkService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ResidentJsonCache residentJsonCache;
+
     private ResidentController residentController;
 
     private Resident resident;
 
     @BeforeEach
     void setUp() {
+        residentJsonCache = new ResidentJsonCache(objectMapper, 30);
+        residentController = new ResidentController(residentService, residentValidator, residentJsonCache,
+                new ResidentStreamWriter(residentService, objectMapper), residentChangeService,
+                residentEventBroadcaster, residentImportService, residentReconcileService, residentPatchService,
+                residentBulkService);
+
         resident = new Resident();
         resident.setId("res-1");
         resident.setLotId("LOT-001");
@@ -73,32 +120,104 @@ class ResidentControllerTest {
 
     @Test
     @DisplayName("getAllResidentsNoPagination retourne tous les résidents")
-    void getAllResidentsNoPagination_returnsList() {
-        when(residentService.getAllResidents()).thenReturn(List.of(resident));
+    void getAllResidentsNoPagination_returnsList() throws Exception {
+        stubResidents(resident);
 
-        ResponseEntity<ResidentsResponse> result = residentController.getAllResidentsNoPagination();
+        ResponseEntity<StreamingResponseBody> result = residentController.getAllResidentsNoPagination(null, null);
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(result.getBody()).isNotNull();
-        assertThat(result.getBody().getData()).hasSize(1).first().extracting(Resident::getLotId).isEqualTo("LOT-001");
-        verify(residentService).getAllResidents();
+        ResidentsResponse body = objectMapper.readValue(bytesOf(result), ResidentsResponse.class);
+        assertThat(body.getData()).hasSize(1).first().extracting(Resident::getLotId).isEqualTo("LOT-001");
+        verify(residentService).forEachResident(any());
+    }
+
+    @Test
+    @DisplayName("getAllResidentsNoPagination écrit en flux au premier appel, puis sert le cache avec ETag et 304")
+    void getAllResidentsNoPagination_cachedWithEtag() throws Exception {
+        stubResidents(resident);
+
+        // Absent du cache : écrit directement (gzip), sans ETag, et remplit le cache au passage
+        ResponseEntity<StreamingResponseBody> streamed = residentController.getAllResidentsNoPagination(null, "gzip, deflate");
+        assertThat(streamed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(streamed.getHeaders().getETag()).isNull();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytesOf(streamed)))) {
+            assertThat(objectMapper.readValue(gzip, ResidentsResponse.class).getData()).hasSize(1);
+        }
+
+        ResponseEntity<StreamingResponseBody> first = residentController.getAllResidentsNoPagination(null, "gzip, deflate");
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<StreamingResponseBody> notModified = residentController.getAllResidentsNoPagination(etag, "gzip");
+        // Même version sans gzip : autre représentation, donc autre validateur fort
+        ResponseEntity<StreamingResponseBody> identity = residentController.getAllResidentsNoPagination(etag, null);
+
+        assertThat(etag).isNotNull().endsWith("-gz\"");
+        assertThat(identity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(identity.getHeaders().getETag()).isNotNull().isNotEqualTo(etag);
+        assertThat(residentController.getAllResidentsNoPagination(identity.getHeaders().getETag(), null).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(first.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytesOf(first)))) {
+            assertThat(objectMapper.readValue(gzip, ResidentsResponse.class).getData()).hasSize(1);
+        }
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getBody()).isNull();
+        verify(residentService, times(1)).forEachResident(any());
+
+        // Une écriture change la version : nouvelle écriture en flux
+        residentJsonCache.onResidentChanged(ResidentChangedEvent.updated(resident, resident));
+        ResponseEntity<StreamingResponseBody> afterWrite = residentController.getAllResidentsNoPagination(etag, "gzip");
+
+        assertThat(afterWrite.getStatusCode()).isEqualTo(HttpStatus.OK);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytesOf(afterWrite)))) {
+            assertThat(objectMapper.readValue(gzip, ResidentsResponse.class).getData()).hasSize(1);
+        }
+        verify(residentService, times(2)).forEachResident(any());
+        assertThat(residentController.getAllResidentsNoPagination(null, "gzip").getHeaders().getETag())
+                .isNotNull().isNotEqualTo(etag);
+    }
+
+    private static byte[] bytesOf(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("streamAllResidents écrit un résident JSON par ligne")
+    void streamAllResidents_writesNdjson() throws Exception {
+        Resident other = new Resident();
+        other.setId("res-2");
+        other.setLotId("LOT-002");
+        stubResidents(resident, other);
+
+        ResponseEntity<StreamingResponseBody> result = residentController.streamAllResidents();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(result.getHeaders().getContentType()).hasToString("application/x-ndjson");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], Resident.class).getLotId()).isEqualTo("LOT-002");
     }
 
     @Test
     @DisplayName("getStatistics retourne les stats")
-    void getStatistics_returnsStats() {
+    void getStatistics_returnsStats() throws Exception {
         StatisticsResponse stats = new StatisticsResponse(
                 10L, 2L, 15L, 5L,
                 Map.of(), Map.of(), 7L, 3L, 1.5, Map.of()
         );
         when(residentService.getStatistics()).thenReturn(stats);
 
-        ResponseEntity<StatisticsResponse> result = residentController.getStatistics();
+        ResponseEntity<byte[]> result = residentController.getStatistics(null, null);
 
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(result.getBody()).isNotNull();
-        assertThat(result.getBody().getTotalLots()).isEqualTo(10L);
-        assertThat(result.getBody().getTotalBatiments()).isEqualTo(2L);
+        StatisticsResponse body = objectMapper.readValue(result.getBody(), StatisticsResponse.class);
+        assertThat(body.getTotalLots()).isEqualTo(10L);
+        assertThat(body.getTotalBatiments()).isEqualTo(2L);
         verify(residentService).getStatistics();
     }
 
@@ -131,6 +250,20 @@ class ResidentControllerTest {
         verify(residentService).getResidentById("inconnu");
     }
 
+    @Test
+    @DisplayName("getResidentsByIds valide les ids et délègue au service")
+    void getResidentsByIds_delegatesToService() {
+        ResidentBatchResponse response = new ResidentBatchResponse(List.of(resident), List.of("inconnu"));
+        when(residentService.getResidentsByIds(List.of("res-1", "inconnu"))).thenReturn(response);
+
+        ResponseEntity<ResidentBatchResponse> result = residentController.getResidentsByIds(List.of("res-1", "inconnu"));
+
+        assertThat(result.getBody()).isSameAs(response);
+        verify(residentValidator).validateId("inconnu");
+        assertThatThrownBy(() -> residentController.getResidentsByIdsPost(List.of()))
+                .isInstanceOf(ValidationException.class);
+    }
+
     @Test
     @DisplayName("createResident retourne 201")
     void createResident_returns201() {
@@ -174,4 +307,31 @@ class ResidentControllerTest {
         verify(residentValidator).validateId("res-1");
         verify(residentService).deleteResident("res-1");
     }
+
+    @Test
+    @DisplayName("importResidents choisit le format selon le Content-Type")
+    void importResidents_dispatchesOnContentType() throws Exception {
+        ResidentImportReport report = new ResidentImportReport(1, 1, 0, 5, 200.0, List.of(), false);
+        when(residentImportService.importCsv(any())).thenReturn(report);
+        when(residentImportService.importJson(any())).thenReturn(report);
+
+        ResponseEntity<ResidentImportReport> csv = residentController.importResidents("text/csv; charset=UTF-8",
+                new ByteArrayInputStream(new byte[0]));
+        residentController.importResidents("application/json", new ByteArrayInputStream(new byte[0]));
+
+        assertThat(csv.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(csv.getBody()).isSameAs(report);
+        verify(residentImportService).importCsv(any());
+        verify(residentImportService).importJson(any());
+    }
+
+    private void stubResidents(Resident... residents) {
+        doAnswer(invocation -> {
+            Consumer<Resident> action = invocation.getArgument(0);
+            for (Resident r : residents) {
+                action.accept(r);
+            }
+            return null;
+        }).when(residentService).forEachResident(any());
+    }
 }
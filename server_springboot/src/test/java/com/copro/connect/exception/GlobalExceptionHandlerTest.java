@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -43,6 +44,34 @@ class GlobalExceptionHandlerTest {
         when(webRequest.getDescription(false)).thenReturn("uri=/api/residents");
     }
 
+    @Test
+    @DisplayName("handleTooManyRequests retourne 429 avec Retry-After")
+    void handleTooManyRequests_returns429WithRetryAfter() {
+        stubWebRequest();
+        TooManyRequestsException ex = new TooManyRequestsException("Trop de tentatives", 12);
+
+        ResponseEntity<ErrorResponse> response = handler.handleTooManyRequests(ex, webRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("handleServiceUnavailable retourne 503 avec Retry-After")
+    void handleServiceUnavailable_returns503WithRetryAfter() {
+        stubWebRequest();
+        ServiceUnavailableException ex = new ServiceUnavailableException("Indisponible", 1);
+
+        ResponseEntity<ErrorResponse> response = handler.handleServiceUnavailable(ex, webRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(503);
+    }
+
     @Test
     @DisplayName("handleBadCredentials retourne 401")
     void handleBadCredentials_returns401() {
@@ -0,0 +1,82 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.Counter;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests CounterRepository")
+class CounterRepositoryTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private CounterRepository repository;
+
+    @Test
+    @DisplayName("reserve incrémente et inscrit la plage en cours dans la même mise à jour, conditionnée à la valeur lue")
+    void reserve_pushesPendingRangeAtomically() {
+        when(mongoTemplate.findById("residents", Counter.class))
+                .thenReturn(new Counter("residents", 5, new ArrayList<>()))
+                .thenReturn(new Counter("residents", 7, new ArrayList<>()));
+        // Une autre instance a réservé entre la lecture et la mise à jour : la première tentative échoue
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Counter.class)))
+                .thenReturn(null)
+                .thenReturn(new Counter("residents", 10, new ArrayList<>()));
+
+        long first = repository.reserve("residents", 3);
+
+        assertThat(first).isEqualTo(8);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Counter.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("_id", "residents").containsEntry("seq", 7L);
+        Document updateObject = update.getValue().getUpdateObject();
+        assertThat((Document) updateObject.get("$inc")).containsEntry("seq", 3);
+        Counter.Pending pending = (Counter.Pending) ((Document) updateObject.get("$push")).get("pending");
+        assertThat(pending.getFirst()).isEqualTo(8);
+        assertThat(pending.getLast()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("release retire la plage et les réservations périmées")
+    void release_pullsRangeAndStaleReservations() {
+        Instant staleBefore = Instant.parse("2026-01-01T10:00:00Z");
+
+        repository.release("residents", 8, staleBefore);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Counter.class));
+        Document condition = (Document) ((Document) update.getValue().getUpdateObject().get("$pull")).get("pending");
+        assertThat(condition.getList("$or", Document.class)).containsExactly(
+                new Document("first", 8L),
+                new Document("reservedAt", new Document("$lt", staleBefore)));
+    }
+
+    @Test
+    @DisplayName("find retourne null tant que la séquence n'existe pas")
+    void find_missingSequence() {
+        assertThat(repository.find("residents")).isNull();
+        verify(mongoTemplate).findById("residents", Counter.class);
+        verifyNoMoreInteractions(mongoTemplate);
+    }
+}
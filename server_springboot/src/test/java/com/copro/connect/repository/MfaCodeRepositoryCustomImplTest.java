@@ -0,0 +1,103 @@
+package com.copro.connect.repository;
+
+import com.copro.connect.model.MfaCode;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests MfaCodeRepositoryCustomImpl")
+class MfaCodeRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private MfaCodeRepositoryCustomImpl repository;
+
+    private final Instant now = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Test
+    @DisplayName("upsertCode remplace le code de l'utilisateur en un seul findAndModify, sur _id = username")
+    void upsertCode_usesUpsert() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+
+        repository.upsertCode("admin", "123456", now, now.plusSeconds(300));
+
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(MfaCode.class));
+        assertThat(options.getValue().isUpsert()).isTrue();
+        // L'unicité de _id empêche deux documents pour un même utilisateur
+        assertThat(query.getValue().getQueryObject()).containsOnlyKeys("_id").containsEntry("_id", "admin");
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set).containsEntry("username", "admin").containsEntry("code", "123456").containsEntry("attempts", 0).containsEntry("used", false);
+    }
+
+    @Test
+    @DisplayName("reserveAttempt incrémente les tentatives du seul code actif, sans filtrer sur le code")
+    void reserveAttempt_filtersActiveCode() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        MfaCode reserved = new MfaCode();
+        when(mongoTemplate.findAndModify(query.capture(), update.capture(), options.capture(), eq(MfaCode.class)))
+                .thenReturn(reserved);
+
+        Optional<MfaCode> result = repository.reserveAttempt("admin", 5, now);
+
+        assertThat(result).containsSame(reserved);
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter).containsEntry("username", "admin").containsEntry("used", false).doesNotContainKey("code");
+        assertThat((Document) filter.get("attempts")).containsEntry("$lt", 5);
+        assertThat((Document) filter.get("expiresAt")).containsEntry("$gt", now);
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc")).containsEntry("attempts", 1);
+        assertThat(update.getValue().getUpdateObject()).doesNotContainKey("$set");
+        assertThat(options.getValue().isReturnNew()).isTrue();
+    }
+
+    @Test
+    @DisplayName("reserveAttempt retourne vide si aucun code actif")
+    void reserveAttempt_returnsEmptyWhenNoActiveCode() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MfaCode.class)))
+                .thenReturn(null);
+
+        assertThat(repository.reserveAttempt("admin", 5, now)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("markUsed ne consomme que le code attendu, encore inutilisé")
+    void markUsed_isConditional() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.updateFirst(query.capture(), update.capture(), eq(MfaCode.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(repository.markUsed("id-1", "123456")).isTrue();
+        assertThat(repository.markUsed("id-1", "123456")).isFalse();
+
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("_id", "id-1").containsEntry("code", "123456").containsEntry("used", false);
+        assertThat((Document) update.getValue().getUpdateObject().get("$set")).containsEntry("used", true);
+    }
+}
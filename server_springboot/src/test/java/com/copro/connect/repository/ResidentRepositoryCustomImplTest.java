@@ -1,9 +1,13 @@
 package com.copro.connect.repository;
 
+import com.copro.connect.dto.BuildingSummary;
+import com.copro.connect.dto.FloorSummary;
+import com.copro.connect.dto.ResidentSummary;
 import com.copro.connect.dto.StatisticsResponse;
 import com.copro.connect.model.HappixAccount;
 import com.copro.connect.model.Occupant;
 import com.copro.connect.model.Resident;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,6 +21,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Query;
 
 import java.util.List;
@@ -143,6 +149,108 @@ class ResidentRepositoryCustomImplTest {
         verify(mongoTemplate).count(any(Query.class), eq(Resident.class));
     }
 
+    // --- findSummaries ---
+
+    @Test
+    @DisplayName("findSummaries ne charge que les champs demandés et fait compter les listes par Mongo")
+    void findSummaries_projectsFieldsAndCounts() {
+        ResidentSummary summary = new ResidentSummary("res-1", "LOT-001", null, null, "101", null, null, 1, null);
+        when(mongoTemplate.getCollectionName(Resident.class)).thenReturn("residents");
+        when(mongoTemplate.count(any(Query.class), eq(Resident.class))).thenReturn(1L);
+        when(mongoTemplate.find(any(Query.class), eq(ResidentSummary.class), eq("residents"))).thenReturn(List.of(summary));
+
+        Page<ResidentSummary> result = residentRepositoryCustom.findSummaries("Dupont", "A", null,
+                List.of("lotId", "porte", "occupantsCount"), PageRequest.of(0, 10, Sort.by("porte")));
+
+        assertThat(result.getContent()).containsExactly(summary);
+        assertThat(result.getTotalElements()).isOne();
+
+        ArgumentCaptor<Query> count = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(count.capture(), eq(Resident.class));
+        assertThat(count.getValue().getFieldsObject()).isEmpty();
+        assertThat(count.getValue().getLimit()).isZero();
+
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(find.capture(), eq(ResidentSummary.class), eq("residents"));
+        Document fields = find.getValue().getFieldsObject();
+        assertThat(fields).containsOnlyKeys("lotId", "porte", "occupantsCount");
+        assertThat(fields.get("occupantsCount").toString()).contains("$size", "$occupants");
+        assertThat(find.getValue().getLimit()).isEqualTo(10);
+        assertThat(find.getValue().getSortObject()).containsKey("porte");
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Resident.class));
+    }
+
+    // --- findAfter ---
+
+    @Test
+    @DisplayName("findAfter reprend strictement après la position, dans l'ordre naturel")
+    void findAfter_continuesAfterPosition() {
+        when(mongoTemplate.find(any(Query.class), eq(Resident.class))).thenReturn(List.of(resident));
+
+        ResidentRepositoryCustom.Position after = new ResidentRepositoryCustom.Position("A", "0000000009", "res-0");
+        assertThat(residentRepositoryCustom.findAfter(null, "A", null, after, 51)).containsExactly(resident);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Resident.class));
+        assertThat(query.getValue().getSortObject())
+                .isEqualTo(new Document("batiment", 1).append("porteSortKey", 1).append("_id", 1));
+        assertThat(query.getValue().getLimit()).isEqualTo(51);
+        assertThat(query.getValue().getQueryObject().toJson())
+                .contains("\"batiment\": {\"$gt\": \"A\"}")
+                .contains("\"porteSortKey\": {\"$gt\": \"0000000009\"}")
+                .contains("\"_id\": {\"$gt\": \"res-0\"}");
+    }
+
+    @Test
+    @DisplayName("findAfter sans position commence au début")
+    void findAfter_withoutPosition_startsAtBeginning() {
+        when(mongoTemplate.find(any(Query.class), eq(Resident.class))).thenReturn(List.of());
+
+        residentRepositoryCustom.findAfter(null, null, null, null, 10);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Resident.class));
+        assertThat(query.getValue().getQueryObject()).isEmpty();
+    }
+
+    // --- aggregateBuildings / aggregateFloors ---
+
+    @Test
+    @DisplayName("aggregateBuildings regroupe par bâtiment en comptant étages et occupants")
+    void aggregateBuildings_groupsByBatiment() {
+        BuildingSummary building = new BuildingSummary("A", 12, 4, 20, 3);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Resident.class), eq(BuildingSummary.class)))
+                .thenReturn(new AggregationResults<>(List.of(building), new Document()));
+
+        assertThat(residentRepositoryCustom.aggregateBuildings()).containsExactly(building);
+
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Resident.class), eq(BuildingSummary.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document group = (Document) pipeline.get(1).get("$group");
+        assertThat(group.get("_id")).isEqualTo("$batiment");
+        assertThat(group).containsKeys("lots", "etages", "occupants", "happixAccounts");
+        assertThat(pipeline.get(pipeline.size() - 1)).containsKey("$sort");
+    }
+
+    @Test
+    @DisplayName("aggregateFloors filtre le bâtiment et trie par étage puis porte (ordre naturel) avant de regrouper")
+    void aggregateFloors_matchesAndSortsBeforeGrouping() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Resident.class), eq(FloorSummary.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        assertThat(residentRepositoryCustom.aggregateFloors("A")).isEmpty();
+
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Resident.class), eq(FloorSummary.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline.get(0).get("$match")).isEqualTo(new Document("batiment", "A"));
+        assertThat(pipeline.get(1).get("$sort")).isEqualTo(new Document("etageSortKey", 1).append("porteSortKey", 1));
+        Document group = (Document) pipeline.get(3).get("$group");
+        assertThat(group.get("_id")).isEqualTo("$etage");
+        assertThat(group.get("doors")).isEqualTo(new Document("$push", "$$ROOT"));
+    }
+
     // --- calculateStatistics ---
 
     @Test
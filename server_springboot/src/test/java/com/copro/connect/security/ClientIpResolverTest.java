@@ -0,0 +1,47 @@
+package com.copro.connect.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests ClientIpResolver")
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = new ClientIpResolver(List.of("10.0.0.0/8", " 192.168.1.10 ", ""));
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader(ClientIpResolver.X_FORWARDED_FOR, forwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("X-Forwarded-For est ignoré si la requête ne vient pas d'un proxy de confiance")
+    void untrustedRemote_ignoresHeader() {
+        assertThat(resolver.resolve(request("203.0.113.7", "198.51.100.1"))).isEqualTo("203.0.113.7");
+        assertThat(new ClientIpResolver(List.of()).resolve(request("10.0.0.5", "198.51.100.1"))).isEqualTo("10.0.0.5");
+    }
+
+    @Test
+    @DisplayName("Derrière des proxies de confiance, retient la dernière adresse qui n'en est pas un")
+    void trustedChain_returnsRightmostUntrustedHop() {
+        // La première adresse est forgée par le client, la dernière ajoutée par un proxy interne
+        MockHttpServletRequest request = request("10.0.0.5", "1.2.3.4, 203.0.113.7, 192.168.1.10");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    @DisplayName("Une valeur qui n'est pas une adresse IP n'est jamais prise pour un proxy")
+    void invalidHop_isNotTrusted() {
+        assertThat(resolver.resolve(request("10.0.0.5", "unknown"))).isEqualTo("unknown");
+        assertThat(resolver.resolve(request("10.0.0.5", " "))).isEqualTo("10.0.0.5");
+    }
+}
@@ -0,0 +1,143 @@
+package com.copro.connect.security;
+
+import com.copro.connect.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests JwtAuthenticationFilter")
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserVersionCache userVersionCache;
+
+    private JwtUtils jwtUtils;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = spy(new JwtUtils());
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "MaCleSecreteTresLonguePourTestHMAC256Minimum");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000L);
+        jwtUtils.init();
+        filter = new JwtAuthenticationFilter(jwtUtils, userDetailsService, userVersionCache);
+
+        user = new User();
+        user.setUsername("admin");
+        user.setPassword("encoded");
+        user.setRole("ADMIN");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("un token valide authentifie la requête avec un seul parsing")
+    void doFilter_withValidToken_authenticatesWithSingleParse() throws Exception {
+        when(userDetailsService.loadUserByUsername("admin")).thenReturn(user);
+        String token = jwtUtils.generateToken("admin");
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("admin");
+        verify(jwtUtils, times(1)).parseClaims(token);
+        verify(jwtUtils, never()).validateToken(anyString());
+        verify(jwtUtils, never()).getUsernameFromToken(anyString());
+    }
+
+    @Test
+    @DisplayName("un token avec rôle et version authentifie sans charger l'utilisateur")
+    void doFilter_withClaimsToken_authenticatesWithoutUserLookup() throws Exception {
+        user.setTokenVersion(3);
+        when(userVersionCache.isCurrent("admin", 3)).thenReturn(true);
+        String token = jwtUtils.generateToken(user);
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("admin");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("un token dont la version est révoquée n'authentifie pas")
+    void doFilter_withRevokedVersion_leavesContextEmpty() throws Exception {
+        when(userVersionCache.isCurrent("admin", 0)).thenReturn(false);
+        String token = jwtUtils.generateToken(user);
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("un token invalide laisse la requête non authentifiée")
+    void doFilter_withInvalidToken_leavesContextEmpty() throws Exception {
+        filter.doFilter(requestWithToken("invalid-token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("micro-benchmark : coût par requête authentifiée")
+    void doFilter_microbenchmark() throws Exception {
+        when(userVersionCache.isCurrent("admin", 0)).thenReturn(true);
+        String token = jwtUtils.generateToken(user);
+        int warmup = 2_000;
+        int iterations = 20_000;
+
+        for (int i = 0; i < warmup; i++) {
+            runAuthenticatedRequest(token);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            runAuthenticatedRequest(token);
+        }
+        double microsPerRequest = (System.nanoTime() - start) / 1_000.0 / iterations;
+
+        System.out.printf("JwtAuthenticationFilter : %.2f µs par requête authentifiée (%d itérations)%n",
+                microsPerRequest, iterations);
+        assertThat(microsPerRequest).isPositive();
+    }
+
+    private void runAuthenticatedRequest(String token) throws Exception {
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/residents");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -1,5 +1,6 @@
 package com.copro.connect.security;
 
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,6 +30,7 @@ class JwtUtilsTest {
         jwtUtils = new JwtUtils();
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
         ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", EXPIRATION_MS);
+        jwtUtils.init();
     }
 
     @Test
@@ -68,4 +70,31 @@ class JwtUtilsTest {
         String token = jwtUtils.generateToken("user123");
         assertThat(jwtUtils.getUsernameFromToken(token)).isEqualTo("user123");
     }
+
+    @Test
+    @DisplayName("parseClaims vérifie le token une seule fois puis sert le cache")
+    void parseClaims_returnsCachedClaimsForSameToken() {
+        String token = jwtUtils.generateToken("admin");
+
+        Claims first = jwtUtils.parseClaims(token);
+        Claims second = jwtUtils.parseClaims(token);
+
+        assertThat(first).isNotNull();
+        assertThat(first.getSubject()).isEqualTo("admin");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("parseClaims retourne null pour un token signé avec une autre clé")
+    void parseClaims_withForeignSignature_returnsNull() {
+        JwtUtils other = new JwtUtils();
+        ReflectionTestUtils.setField(other, "jwtSecret", "UneAutreCleSecreteTresLonguePourTestHMAC256");
+        ReflectionTestUtils.setField(other, "jwtExpirationMs", EXPIRATION_MS);
+        other.init();
+
+        String foreignToken = other.generateToken("admin");
+
+        assertThat(jwtUtils.parseClaims(foreignToken)).isNull();
+        assertThat(jwtUtils.validateToken(foreignToken)).isFalse();
+    }
 }
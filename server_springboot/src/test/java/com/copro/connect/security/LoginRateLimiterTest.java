@@ -0,0 +1,49 @@
+package com.copro.connect.security;
+
+import com.copro.connect.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests LoginRateLimiter")
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new LoginRateLimiter(meterRegistry, 3, 1, 5, 1, 100);
+    }
+
+    @Test
+    @DisplayName("acquire refuse au-delà de la capacité par utilisateur avec un Retry-After")
+    void acquire_overUserCapacity_throwsWithRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("admin", "10.0.0." + i);
+        }
+
+        assertThatThrownBy(() -> rateLimiter.acquire("Admin", "10.0.0.9"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(ex -> assertThat(((TooManyRequestsException) ex).getRetryAfterSeconds()).isPositive());
+        assertThat(meterRegistry.counter("auth.login.throttled").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("acquire limite aussi par adresse IP, tous utilisateurs confondus")
+    void acquire_overIpCapacity_throws() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire("user" + i, "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> rateLimiter.acquire("autre", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThatCode(() -> rateLimiter.acquire("autre", "10.0.0.2")).doesNotThrowAnyException();
+    }
+}
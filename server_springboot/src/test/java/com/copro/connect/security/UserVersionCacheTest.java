@@ -0,0 +1,69 @@
+package com.copro.connect.security;
+
+import com.copro.connect.model.User;
+import com.copro.connect.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests UserVersionCache")
+class UserVersionCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserVersionCache userVersionCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userVersionCache = new UserVersionCache(userRepository, 100, 60);
+        user = new User();
+        user.setUsername("admin");
+        user.setTokenVersion(2);
+    }
+
+    @Test
+    @DisplayName("isCurrent ne lit l'utilisateur qu'une fois tant que le cache est valide")
+    void isCurrent_loadsUserOnce() {
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
+
+        assertThat(userVersionCache.isCurrent("admin", 2)).isTrue();
+        assertThat(userVersionCache.isCurrent("admin", 2)).isTrue();
+        assertThat(userVersionCache.isCurrent("admin", 1)).isFalse();
+
+        verify(userRepository, times(1)).findByUsername("admin");
+    }
+
+    @Test
+    @DisplayName("isCurrent retourne false pour un utilisateur inconnu")
+    void isCurrent_unknownUser_returnsFalse() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThat(userVersionCache.isCurrent("ghost", 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("la sauvegarde d'un User invalide sa version en cache")
+    void onAfterSave_invalidatesCachedVersion() {
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
+        assertThat(userVersionCache.isCurrent("admin", 2)).isTrue();
+
+        user.setTokenVersion(3);
+        userVersionCache.onAfterSave(new AfterSaveEvent<>(user, null, "users"));
+
+        assertThat(userVersionCache.isCurrent("admin", 2)).isFalse();
+        assertThat(userVersionCache.isCurrent("admin", 3)).isTrue();
+        verify(userRepository, times(2)).findByUsername("admin");
+    }
+}
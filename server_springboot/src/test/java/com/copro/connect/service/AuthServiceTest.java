@@ -4,17 +4,23 @@ import com.copro.connect.dto.LoginRequest;
 import com.copro.connect.dto.LoginResponse;
 import com.copro.connect.model.User;
 import com.copro.connect.repository.UserRepository;
+import com.copro.connect.security.CustomUserDetailsService;
 import com.copro.connect.security.JwtUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
 
@@ -66,7 +72,7 @@ class AuthServiceTest {
     void login_noMfa_shouldReturnTokenAndUserInfo() {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(jwtUtils.generateToken("admin")).thenReturn("jwt-token-123");
+        when(jwtUtils.generateToken(user)).thenReturn("jwt-token-123");
         when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
 
         LoginResponse response = authService.login(loginRequest);
@@ -79,7 +85,7 @@ class AuthServiceTest {
         assertThat(response.getUser().getRole()).isEqualTo("ADMIN");
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtils).generateToken("admin");
+        verify(jwtUtils).generateToken(user);
         verify(userRepository).findByUsername("admin");
         verifyNoInteractions(mfaService);
     }
@@ -92,7 +98,7 @@ class AuthServiceTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
-        when(mfaService.getMaskedEmail("admin")).thenReturn("ad***@test.fr");
+        when(mfaService.maskEmail("admin@test.fr")).thenReturn("ad***@test.fr");
 
         LoginResponse response = authService.login(loginRequest);
 
@@ -100,8 +106,8 @@ class AuthServiceTest {
         assertThat(response.getMfaRequired()).isTrue();
         assertThat(response.getMaskedEmail()).isEqualTo("ad***@test.fr");
 
-        verify(mfaService).generateAndSendCode("admin");
-        verify(mfaService).getMaskedEmail("admin");
+        verify(mfaService).generateAndSendCode(user);
+        verify(mfaService).maskEmail("admin@test.fr");
         verifyNoInteractions(jwtUtils);
     }
 
@@ -119,4 +125,46 @@ class AuthServiceTest {
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userRepository).findByUsername("admin");
     }
+
+    @Test
+    @DisplayName("login réutilise le User chargé par l'authentification sans relire la base")
+    void login_withUserPrincipal_doesNotReloadUser() {
+        user.setMfaEnabled(true);
+        Authentication userAuthentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(userAuthentication);
+        when(mfaService.maskEmail("admin@test.fr")).thenReturn("ad***@test.fr");
+
+        LoginResponse response = authService.login(loginRequest);
+
+        assertThat(response.getMfaRequired()).isTrue();
+        verify(mfaService).generateAndSendCode(user);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("benchmark : débit de login avec une seule lecture du User + BCrypt")
+    void login_throughputBenchmark() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        user.setPassword(encoder.encode("password"));
+        UserRepository countingRepository = mock(UserRepository.class);
+        when(countingRepository.findByUsername("admin")).thenReturn(Optional.of(user));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(new CustomUserDetailsService(countingRepository));
+        provider.setPasswordEncoder(encoder);
+        when(jwtUtils.generateToken(user)).thenReturn("jwt-token-123");
+        AuthService realAuthService = new AuthService(new ProviderManager(provider), countingRepository, jwtUtils, mfaService);
+
+        int logins = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            assertThat(realAuthService.login(loginRequest).getToken()).isEqualTo("jwt-token-123");
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("AuthService.login : %.1f logins/s (%d logins)%n", logins / seconds, logins);
+        verify(countingRepository, times(logins)).findByUsername("admin");
+    }
 }
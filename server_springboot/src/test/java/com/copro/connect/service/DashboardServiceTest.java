@@ -0,0 +1,142 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.DashboardResponse;
+import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.exception.ServiceUnavailableException;
+import com.copro.connect.model.ResidentHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests DashboardService")
+class DashboardServiceTest {
+
+    @Mock
+    private ResidentService residentService;
+
+    @Mock
+    private ResidentHistoryService residentHistoryService;
+
+    private DashboardService service;
+
+    private DashboardService newService(int threads, long timeoutMs) {
+        return newService(threads, 10, timeoutMs);
+    }
+
+    private DashboardService newService(int threads, int queueSize, long timeoutMs) {
+        service = new DashboardService(residentService, residentHistoryService, new SimpleMeterRegistry(),
+                threads, queueSize, timeoutMs);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("getDashboard lance les trois lectures en parallèle")
+    void getDashboard_runsPartsConcurrently() {
+        // Chaque lecture attend les deux autres : en séquentiel, le délai serait dépassé
+        CountDownLatch started = new CountDownLatch(3);
+        StatisticsResponse statistics = new StatisticsResponse();
+        PagedResidentsResponse page = new PagedResidentsResponse();
+        ResidentHistory history = new ResidentHistory();
+        history.setResidentId("res-1");
+        when(residentService.getStatistics()).thenAnswer(inv -> awaitOthers(started, statistics));
+        when(residentService.getResidentsPaginated(0, 20, null, null, null, null)).thenAnswer(inv -> awaitOthers(started, page));
+        when(residentHistoryService.getRecentHistory(5)).thenAnswer(inv -> awaitOthers(started, List.of(history)));
+
+        DashboardResponse response = newService(3, 2000).getDashboard(20, 5);
+
+        assertThat(response.getStatistics()).isSameAs(statistics);
+        assertThat(response.getResidents()).isSameAs(page);
+        assertThat(response.getRecentHistory()).singleElement()
+                .satisfies(entry -> assertThat(entry.getResidentId()).isEqualTo("res-1"));
+    }
+
+    @Test
+    @DisplayName("getDashboard propage l'erreur d'une des lectures")
+    void getDashboard_propagatesFailure() {
+        when(residentService.getStatistics()).thenThrow(new IllegalStateException("mongo indisponible"));
+
+        assertThatThrownBy(() -> newService(3, 2000).getDashboard(10, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("mongo indisponible");
+    }
+
+    @Test
+    @DisplayName("getDashboard répond 503 si les lectures dépassent le délai et interrompt la lecture lente")
+    void getDashboard_timeout_throwsServiceUnavailable() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(residentService.getStatistics()).thenAnswer(inv -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new StatisticsResponse();
+        });
+
+        assertThatThrownBy(() -> newService(3, 50).getDashboard(10, 10))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .satisfies(e -> assertThat(((ServiceUnavailableException) e).getRetryAfterSeconds()).isPositive());
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("getDashboard répond 503 si le pool est saturé et annule les lectures déjà soumises")
+    void getDashboard_rejected_cancelsSubmittedParts() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean started = new AtomicBoolean();
+        lenient().when(residentService.getStatistics()).thenAnswer(inv -> {
+            started.set(true);
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new StatisticsResponse();
+        });
+
+        // Un thread, une place en file : la troisième lecture est refusée
+        assertThatThrownBy(() -> newService(1, 1, 2000).getDashboard(10, 10))
+                .isInstanceOf(ServiceUnavailableException.class);
+        // Lecture en cours interrompue, ou annulée avant d'avoir démarré
+        Thread.sleep(100);
+        if (started.get()) {
+            assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        }
+        // La lecture restée en file a été annulée avant de démarrer
+        verify(residentService, never()).getResidentsPaginated(anyInt(), anyInt(), any(), any(), any(), any());
+        verifyNoInteractions(residentHistoryService);
+    }
+
+    private static <T> T awaitOthers(CountDownLatch started, T result) throws InterruptedException {
+        started.countDown();
+        if (!started.await(1, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("lectures non parallèles");
+        }
+        return result;
+    }
+}
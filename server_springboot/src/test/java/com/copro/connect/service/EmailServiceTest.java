@@ -0,0 +1,156 @@
+package com.copro.connect.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Tests EmailService")
+class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private EmailService emailService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        if (emailService != null) {
+            emailService.stop();
+        }
+    }
+
+    private EmailService createService(JavaMailSender mailSender, int queueCapacity) {
+        return createService(mailSender, queueCapacity, 2);
+    }
+
+    private EmailService createService(JavaMailSender mailSender, int queueCapacity, int senderThreads) {
+        meterRegistry = new SimpleMeterRegistry();
+        EmailService service = new EmailService(mailSender, meterRegistry);
+        ReflectionTestUtils.setField(service, "senderEmail", "noreply@copro.fr");
+        ReflectionTestUtils.setField(service, "senderName", "CoPro Connect");
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "senderThreads", senderThreads);
+        ReflectionTestUtils.setField(service, "batchSize", 20);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "initialRetryDelayMs", 10L);
+        service.start();
+        return service;
+    }
+
+    private JavaMailSenderImpl greenMailSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(greenMail.getSmtp().getPort());
+        return sender;
+    }
+
+    @Test
+    @DisplayName("sendMfaCode livre le code et échappe le nom dans le HTML")
+    void sendMfaCode_deliversEscapedHtml() {
+        emailService = createService(greenMailSender(), 10);
+
+        emailService.sendMfaCode("jean@test.fr", "123456", "<b>Jean</b>");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        String body = GreenMailUtil.getBody(received);
+        assertThat(body).contains("123456");
+        assertThat(body).contains("&lt;b&gt;Jean&lt;/b&gt;");
+        assertThat(body).doesNotContain("<b>Jean</b>");
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Débit : la file envoie une rafale de codes MFA par lots")
+    void sendMfaCode_burst_throughput() {
+        emailService = createService(greenMailSender(), 500);
+        int messages = 200;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            emailService.sendMfaCode("user" + i + "@test.fr", "123456", "User " + i);
+        }
+        long enqueuedNanos = System.nanoTime() - start;
+
+        assertThat(greenMail.waitForIncomingEmail(30000, messages)).isTrue();
+        long totalNanos = System.nanoTime() - start;
+
+        System.out.printf("Mail queue: %d messages enqueued in %.1f ms, delivered at %.0f msg/s%n",
+                messages, enqueuedNanos / 1_000_000.0, messages / (totalNanos / 1_000_000_000.0));
+        assertThat(greenMail.getReceivedMessages()).hasSize(messages);
+    }
+
+    @Test
+    @DisplayName("Un échec SMTP transitoire est ré-essayé")
+    void sendMfaCode_transientFailure_isRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        JavaMailSenderImpl delegate = greenMailSender();
+        JavaMailSenderImpl flaky = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new MailSendException("Connexion refusée");
+                }
+                delegate.send(mimeMessages);
+            }
+        };
+        emailService = createService(flaky, 10);
+
+        emailService.sendMfaCode("jean@test.fr", "654321", "Jean");
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("mail.failed").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("sendMfaCode lève une exception quand la file est pleine")
+    void sendMfaCode_queueFull_throws() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JavaMailSenderImpl blocking = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        emailService = createService(blocking, 1, 1);
+
+        emailService.sendMfaCode("a@test.fr", "111111", "A");
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        emailService.sendMfaCode("b@test.fr", "222222", "B");
+
+        try {
+            assertThatThrownBy(() -> emailService.sendMfaCode("c@test.fr", "333333", "C"))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessage("Impossible d'envoyer l'email de vérification");
+            assertThat(meterRegistry.get("mail.queue.depth").gauge().value()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.copro.connect.service;
+
+import com.copro.connect.model.MfaCode;
+import com.copro.connect.model.User;
+import com.copro.connect.repository.MfaCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests MfaService")
+class MfaServiceTest {
+
+    private static final int THREADS = 32;
+
+    @Mock
+    private MfaCodeRepository mfaCodeRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private MfaService mfaService;
+
+    private InMemoryMfaStore store;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mfaService, "codeLength", 6);
+        ReflectionTestUtils.setField(mfaService, "expirationMinutes", 5);
+        store = new InMemoryMfaStore();
+    }
+
+    @Test
+    @DisplayName("generateAndSendCode remplace le code par upsert et envoie l'email")
+    void generateAndSendCode_upsertsAndSendsEmail() {
+        User user = new User();
+        user.setUsername("admin");
+        user.setName("Admin");
+        user.setEmail("admin@test.fr");
+
+        mfaService.generateAndSendCode(user);
+
+        verify(mfaCodeRepository).upsertCode(eq("admin"), matches("\\d{6}"), any(Instant.class), any(Instant.class));
+        verify(emailService).sendMfaCode(eq("admin@test.fr"), matches("\\d{6}"), eq("Admin"));
+    }
+
+    @Test
+    @DisplayName("verifyCode accepte le bon code une seule fois")
+    void verifyCode_correctCode_isAcceptedOnce() {
+        stubStore();
+        store.reset("123456");
+
+        assertThat(mfaService.verifyCode("admin", " 123456 ")).isTrue();
+        assertThat(mfaService.verifyCode("admin", "123456")).isFalse();
+    }
+
+    @Test
+    @DisplayName("verifyCode en parallèle : un bon code n'est accepté que par un seul thread")
+    void verifyCode_concurrentCorrectGuesses_onlyOneSucceeds() throws Exception {
+        stubStore();
+        store.reset("123456");
+
+        List<Boolean> results = hammer(i -> "123456");
+
+        assertThat(results).filteredOn(Boolean::booleanValue).hasSize(1);
+        // Des essais réservés avant le marquage "used" sont décomptés, jamais au-delà de la limite
+        assertThat(store.attempts.get()).isBetween(1, 5);
+    }
+
+    @Test
+    @DisplayName("verifyCode en parallèle : au plus MAX_ATTEMPTS codes comparés, bon code compris")
+    void verifyCode_concurrentWrongGuesses_neverExceedMaxAttempts() throws Exception {
+        stubStore();
+        store.reset("123456");
+
+        // Le bon code est mêlé à plus de MAX_ATTEMPTS essais envoyés en même temps
+        List<Boolean> results = hammer(i -> i % 4 == 3 ? "123456" : String.format("%06d", i));
+
+        // Un bon code n'est accepté que s'il a obtenu l'une des MAX_ATTEMPTS tentatives
+        long accepted = results.stream().filter(Boolean::booleanValue).count();
+        assertThat(accepted).isLessThanOrEqualTo(1);
+        assertThat(store.attempts.get()).isLessThanOrEqualTo(5);
+        if (accepted == 0) {
+            assertThat(store.attempts.get()).isEqualTo(5);
+        }
+        // Code consommé ou limite atteinte : le bon code est désormais refusé, sans nouvelle tentative
+        int attempts = store.attempts.get();
+        assertThat(mfaService.verifyCode("admin", "123456")).isFalse();
+        assertThat(store.attempts.get()).isEqualTo(attempts);
+    }
+
+    @Test
+    @DisplayName("verifyCode refuse le bon code une fois la limite atteinte")
+    void verifyCode_correctCodeAfterLimit_isRejected() throws Exception {
+        stubStore();
+        store.reset("123456");
+        for (int i = 0; i < 5; i++) {
+            assertThat(mfaService.verifyCode("admin", "000000")).isFalse();
+        }
+
+        List<Boolean> results = hammer(i -> "123456");
+
+        assertThat(results).doesNotContain(true);
+        assertThat(store.attempts.get()).isEqualTo(5);
+        verify(mfaCodeRepository, never()).markUsed(anyString(), anyString());
+    }
+
+    private List<Boolean> hammer(java.util.function.IntFunction<String> guess) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String code = guess.apply(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return mfaService.verifyCode("admin", code);
+            }));
+        }
+        start.countDown();
+
+        List<Boolean> results = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    private void stubStore() {
+        when(mfaCodeRepository.reserveAttempt(anyString(), anyInt(), any(Instant.class)))
+                .thenAnswer(inv -> store.reserveAttempt(inv.getArgument(1), inv.getArgument(2)));
+        lenient().when(mfaCodeRepository.markUsed(anyString(), anyString()))
+                .thenAnswer(inv -> store.markUsed(inv.getArgument(0), inv.getArgument(1)));
+    }
+
+    /**
+     * Reproduit la sémantique atomique de findAndModify sur un seul document
+     */
+    private static class InMemoryMfaStore {
+
+        private static final String ID = "mfa-admin";
+
+        private final AtomicInteger attempts = new AtomicInteger();
+        private String code;
+        private boolean used;
+        private Instant expiresAt;
+
+        synchronized void reset(String code) {
+            this.code = code;
+            this.used = false;
+            this.attempts.set(0);
+            this.expiresAt = Instant.now().plus(5, ChronoUnit.MINUTES);
+        }
+
+        synchronized Optional<MfaCode> reserveAttempt(int maxAttempts, Instant now) {
+            if (!isActive(maxAttempts, now)) {
+                return Optional.empty();
+            }
+            attempts.incrementAndGet();
+            return Optional.of(snapshot());
+        }
+
+        synchronized boolean markUsed(String id, String submitted) {
+            if (!ID.equals(id) || used || !code.equals(submitted)) {
+                return false;
+            }
+            used = true;
+            return true;
+        }
+
+        private boolean isActive(int maxAttempts, Instant now) {
+            return !used && expiresAt.isAfter(now) && attempts.get() < maxAttempts;
+        }
+
+        private MfaCode snapshot() {
+            return new MfaCode(ID, "admin", code, attempts.get(), null, expiresAt, used);
+        }
+    }
+}
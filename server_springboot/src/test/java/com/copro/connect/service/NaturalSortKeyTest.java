@@ -0,0 +1,42 @@
+package com.copro.connect.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests NaturalSortKey")
+class NaturalSortKeyTest {
+
+    private static List<String> sorted(String... values) {
+        return Stream.of(values)
+                .sorted(Comparator.comparing(NaturalSortKey::of))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("les numéros sont triés par valeur, lettres comprises")
+    void of_ordersNumbersNaturally() {
+        assertThat(sorted("10", "9", "101", "2", "10A", "9b", "B2", "B10"))
+                .containsExactly("2", "9", "9b", "10", "10A", "101", "B2", "B10");
+    }
+
+    @Test
+    @DisplayName("les sous-sols précèdent le rez-de-chaussée, du plus profond au moins profond")
+    void of_ordersBasementsFirst() {
+        assertThat(sorted("1", "0", "-1", "-10", "-2")).containsExactly("-10", "-2", "-1", "0", "1");
+    }
+
+    @Test
+    @DisplayName("les zéros en tête, la casse et les espaces n'entrent pas dans la clé")
+    void of_ignoresLeadingZerosCaseAndSpaces() {
+        assertThat(NaturalSortKey.of("01")).isEqualTo(NaturalSortKey.of("1"));
+        assertThat(NaturalSortKey.of(" 12b ")).isEqualTo(NaturalSortKey.of("12B"));
+        assertThat(NaturalSortKey.of("0")).isEqualTo("0".repeat(NaturalSortKey.WIDTH));
+        assertThat(NaturalSortKey.of(null)).isNull();
+    }
+}
@@ -0,0 +1,253 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentBulkReport;
+import com.copro.connect.dto.ResidentBulkRequest;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.HappixAccount;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.repository.ResidentRepositoryCustom.GuardedUpdate;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentBulkService")
+class ResidentBulkServiceTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    @Mock
+    private ResidentHistoryService residentHistoryService;
+
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ResidentBulkService service;
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new ResidentBulkService(residentRepository, residentHistoryService, residentChangeService,
+                validatorFactory.getValidator(), Jackson2ObjectMapperBuilder.json().build(), eventPublisher, 3);
+        lenient().when(residentChangeService.beginBatch(anyInt())).thenReturn(100L);
+        lenient().when(residentRepository.updateAllUnchanged(anyList()))
+                .thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+    }
+
+    private static Resident resident(String id, String statut, HappixAccount... accounts) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setLotId("LOT-" + id);
+        resident.setBatiment("A");
+        resident.setEtage("1");
+        resident.setPorte(id);
+        resident.setProprietaireNom("Dupont");
+        resident.setStatutLot(statut);
+        resident.setChangeSeq(10L);
+        resident.setHappixAccounts(new ArrayList<>(List.of(accounts)));
+        resident.setContentHash(ResidentFingerprint.of(resident));
+        return resident;
+    }
+
+    private static ResidentBulkRequest request(ResidentBulkRequest.Operation operation) {
+        ResidentBulkRequest request = new ResidentBulkRequest();
+        request.setOperation(operation);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GuardedUpdate> capturedUpdates() {
+        ArgumentCaptor<List<GuardedUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(residentRepository).updateAllUnchanged(updates.capture());
+        return updates.getValue();
+    }
+
+    @Test
+    @DisplayName("SET_STATUT par filtre écrit chaque résident avec sa séquence et son empreinte")
+    void setStatut_byFilter_writesEachResidentOnce() {
+        Resident first = resident("1", "Propriétaire Résident");
+        Resident second = resident("2", "Propriétaire Résident");
+        when(residentRepository.findAllWithFilters(isNull(), eq("A"), isNull(), any(Criteria.class), eq(4)))
+                .thenReturn(List.of(first, second));
+        ResidentBulkRequest request = request(ResidentBulkRequest.Operation.SET_STATUT);
+        request.setFilter(new ResidentBulkRequest.Filter(null, "A", null));
+        request.setStatutLot("Propriétaire Bailleur");
+
+        ResidentBulkReport report = service.execute(request);
+
+        assertThat(report.getMatched()).isEqualTo(2);
+        assertThat(report.getModified()).isEqualTo(2);
+        assertThat(report.getConflicts()).isEmpty();
+        List<GuardedUpdate> updates = capturedUpdates();
+        assertThat(updates).extracting(GuardedUpdate::id).containsExactly("1", "2");
+        assertThat(updates).extracting(GuardedUpdate::expectedChangeSeq).containsOnly(10L);
+        Document set = (Document) updates.get(1).update().getUpdateObject().get("$set");
+        assertThat(set.get("statutLot")).isEqualTo("Propriétaire Bailleur");
+        assertThat(set.get("changeSeq")).isEqualTo(101L);
+        Resident expected = resident("2", "Propriétaire Bailleur");
+        assertThat(set.get("contentHash")).isEqualTo(ResidentFingerprint.of(expected));
+
+        assertThat(first.getStatutLot()).isEqualTo("Propriétaire Résident");
+        verify(residentHistoryService).recordUpdates(eq(List.of(first, second)), argThat(after -> after.size() == 2
+                && after.stream().allMatch(r -> "Propriétaire Bailleur".equals(r.getStatutLot()))));
+        verify(residentChangeService).completeBatch(100L, 2);
+        verify(eventPublisher).publishEvent(argThat((ResidentChangedEvent event) ->
+                event.getAction() == ResidentChangedEvent.Action.RELOAD));
+    }
+
+    @Test
+    @DisplayName("REMOVE_HAPPIX_ACCOUNT par ids ne touche que les lots portant le compte")
+    void removeHappixAccount_byIds_pullsMatchingAccount() {
+        HappixAccount departed = new HappixAccount("Paul Martin", null, null, null, "autorisé", null);
+        HappixAccount owner = new HappixAccount("Paul Martin", null, null, null, "resident", null);
+        Resident withAccount = resident("1", "Propriétaire Résident", owner, departed);
+        Resident without = resident("2", "Propriétaire Résident", owner);
+        when(residentRepository.findAllById(anyIterable())).thenReturn(List.of(withAccount, without));
+        ResidentBulkRequest request = request(ResidentBulkRequest.Operation.REMOVE_HAPPIX_ACCOUNT);
+        request.setIds(List.of("1", "2", "1"));
+        request.setNom(" Paul Martin ");
+        request.setType("autorisé");
+
+        ResidentBulkReport report = service.execute(request);
+
+        assertThat(report.getMatched()).isEqualTo(2);
+        assertThat(report.getModified()).isEqualTo(1);
+        List<GuardedUpdate> updates = capturedUpdates();
+        assertThat(updates).hasSize(1);
+        Document pull = (Document) updates.get(0).update().getUpdateObject().get("$pull");
+        assertThat(pull.get("happixAccounts")).isEqualTo(new Document("nom", "Paul Martin").append("type", "autorisé"));
+        verify(residentHistoryService).recordUpdates(eq(List.of(withAccount)),
+                argThat(after -> after.get(0).getHappixAccounts().equals(List.of(owner))));
+    }
+
+    @Test
+    @DisplayName("UPDATE_HAPPIX_ACCOUNT modifie l'élément visé via arrayFilters")
+    void updateHappixAccount_usesArrayFilters() {
+        Resident resident = resident("1", "Propriétaire Résident",
+                new HappixAccount("Paul Martin", null, null, null, "autorisé", null));
+        when(residentRepository.findAllById(anyIterable())).thenReturn(List.of(resident));
+        ResidentBulkRequest request = request(ResidentBulkRequest.Operation.UPDATE_HAPPIX_ACCOUNT);
+        request.setIds(List.of("1"));
+        request.setNom("Paul Martin");
+        request.setChanges(Map.of("email", " PAUL@test.com "));
+
+        service.execute(request);
+
+        GuardedUpdate update = capturedUpdates().get(0);
+        Document set = (Document) update.update().getUpdateObject().get("$set");
+        assertThat(set.get("happixAccounts.$[element].email")).isEqualTo("paul@test.com");
+        assertThat(update.update().getArrayFilters()).singleElement()
+                .extracting(filter -> filter.asDocument())
+                .isEqualTo(new Document("element.nom", "Paul Martin"));
+    }
+
+    @Test
+    @DisplayName("Les résidents modifiés entre-temps sont signalés et exclus de l'historique")
+    void update_concurrentModification_reportsConflict() {
+        Resident first = resident("1", "Propriétaire Résident");
+        Resident second = resident("2", "Propriétaire Résident");
+        when(residentRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+        when(residentRepository.updateAllUnchanged(anyList())).thenReturn(1);
+        when(residentRepository.findChangeSeqs(anyCollection())).thenReturn(Map.of("1", 100L, "2", 42L));
+        ResidentBulkRequest request = request(ResidentBulkRequest.Operation.SET_STATUT);
+        request.setIds(List.of("1", "2"));
+        request.setStatutLot("Propriétaire Bailleur");
+
+        ResidentBulkReport report = service.execute(request);
+
+        assertThat(report.getModified()).isEqualTo(1);
+        assertThat(report.getConflicts()).containsExactly("2");
+        verify(residentHistoryService).recordUpdates(eq(List.of(first)), argThat(after -> after.size() == 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("DELETE écrit historique et traces en une fois puis supprime")
+    void delete_recordsTombstonesAndHistoryInBatch() {
+        Resident first = resident("1", "Propriétaire Résident");
+        Resident second = resident("2", "Propriétaire Résident");
+        when(residentRepository.findAllById(anyIterable())).thenReturn(List.of(first, second));
+        ResidentBulkRequest request = request(ResidentBulkRequest.Operation.DELETE);
+        request.setIds(List.of("1", "2"));
+
+        ResidentBulkReport report = service.execute(request);
+
+        assertThat(report.getModified()).isEqualTo(2);
+        InOrder order = inOrder(residentHistoryService, residentChangeService, residentRepository);
+        order.verify(residentHistoryService).recordDeletes(List.of(first, second));
+        order.verify(residentChangeService).recordDeletions(Map.of("1", 100L, "2", 101L));
+        ArgumentCaptor<Iterable<String>> deleted = ArgumentCaptor.forClass(Iterable.class);
+        order.verify(residentRepository).deleteAllById(deleted.capture());
+        assertThat(deleted.getValue()).containsExactly("1", "2");
+        verify(residentChangeService).completeBatch(100L, 2);
+    }
+
+    @Test
+    @DisplayName("execute refuse une sélection ambiguë, trop large ou une valeur invalide")
+    void execute_rejectsInvalidRequests() {
+        ResidentBulkRequest both = request(ResidentBulkRequest.Operation.DELETE);
+        both.setIds(List.of("1"));
+        both.setFilter(new ResidentBulkRequest.Filter(null, "A", null));
+        assertThatThrownBy(() -> service.execute(both)).isInstanceOf(ValidationException.class);
+
+        ResidentBulkRequest emptyFilter = request(ResidentBulkRequest.Operation.DELETE);
+        emptyFilter.setFilter(new ResidentBulkRequest.Filter(" ", null, null));
+        assertThatThrownBy(() -> service.execute(emptyFilter)).isInstanceOf(ValidationException.class);
+
+        ResidentBulkRequest tooMany = request(ResidentBulkRequest.Operation.DELETE);
+        tooMany.setIds(List.of("1", "2", "3", "4"));
+        assertThatThrownBy(() -> service.execute(tooMany)).hasMessageContaining("plus de 3");
+
+        ResidentBulkRequest badStatut = request(ResidentBulkRequest.Operation.SET_STATUT);
+        badStatut.setIds(List.of("1"));
+        badStatut.setStatutLot("Locataire");
+        assertThatThrownBy(() -> service.execute(badStatut)).isInstanceOf(ValidationException.class);
+
+        ResidentBulkRequest badField = request(ResidentBulkRequest.Operation.UPDATE_OCCUPANT);
+        badField.setIds(List.of("1"));
+        badField.setNom("Paul");
+        badField.setChanges(Map.of("nom_borne", "B1"));
+        assertThatThrownBy(() -> service.execute(badField)).hasMessageContaining("nom_borne");
+
+        verifyNoInteractions(residentChangeService, eventPublisher);
+    }
+}
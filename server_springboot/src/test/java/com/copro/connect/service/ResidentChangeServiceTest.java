@@ -0,0 +1,240 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentChangesResponse;
+import com.copro.connect.model.Counter;
+import com.copro.connect.model.Resident;
+import com.copro.connect.model.ResidentTombstone;
+import com.copro.connect.repository.CounterRepository;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.repository.ResidentTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentChangeService")
+class ResidentChangeServiceTest {
+
+    @Mock
+    private CounterRepository counterRepository;
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    @Mock
+    private ResidentTombstoneRepository tombstoneRepository;
+
+    @InjectMocks
+    private ResidentChangeService residentChangeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(residentChangeService, "pendingTimeoutMs", 60_000L);
+    }
+
+    private static Counter counter(long seq, Counter.Pending... pending) {
+        return new Counter("residents", seq, new ArrayList<>(List.of(pending)));
+    }
+
+    private static Resident resident(String id, long seq) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setLotId("LOT-" + id);
+        resident.setChangeSeq(seq);
+        return resident;
+    }
+
+    private static ResidentTombstone tombstone(String id, long seq) {
+        return new ResidentTombstone(id, seq, Instant.now());
+    }
+
+    @Test
+    @DisplayName("getChangesSince fusionne upserts et suppressions par séquence")
+    void getChangesSince_mergesUpsertsAndDeletions() {
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 11), resident("b", 13)));
+        when(tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(tombstone("c", 12)));
+        when(counterRepository.find("residents")).thenReturn(counter(13));
+
+        ResidentChangesResponse response = residentChangeService.getChangesSince(10, 100);
+
+        assertThat(response.getUpserts()).extracting(Resident::getId).containsExactly("a", "b");
+        assertThat(response.getDeletions()).containsExactly("c");
+        assertThat(response.getNextSince()).isEqualTo(13);
+        assertThat(response.getCurrentSeq()).isEqualTo(13);
+        assertThat(response.isHasMore()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Un résident recréé après suppression n'apparaît que dans son dernier état")
+    void getChangesSince_keepsLatestStatePerResident() {
+        when(counterRepository.find("residents")).thenReturn(counter(5));
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 5)));
+        when(tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(tombstone("a", 3)));
+
+        ResidentChangesResponse response = residentChangeService.getChangesSince(0, 100);
+
+        assertThat(response.getUpserts()).extracting(Resident::getId).containsExactly("a");
+        assertThat(response.getDeletions()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Une source tronquée borne la réponse pour ne sauter aucune modification")
+    void getChangesSince_truncatedSource_stopsAtItsLastSeq() {
+        when(counterRepository.find("residents")).thenReturn(counter(9));
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 1), resident("b", 2)));
+        when(tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(tombstone("c", 9)));
+
+        ResidentChangesResponse response = residentChangeService.getChangesSince(0, 2);
+
+        assertThat(response.getUpserts()).extracting(Resident::getId).containsExactly("a", "b");
+        assertThat(response.getDeletions()).isEmpty();
+        assertThat(response.getNextSince()).isEqualTo(2);
+        assertThat(response.isHasMore()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Les séquences encore en cours d'écriture ne sont pas dépassées")
+    void getChangesSince_stopsBeforeInFlightWrite() {
+        when(counterRepository.find("residents"))
+                .thenReturn(counter(5, new Counter.Pending(4, 4, Instant.now())))
+                .thenReturn(counter(5));
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 3), resident("b", 5)));
+
+        ResidentChangesResponse pending = residentChangeService.getChangesSince(0, 100);
+        ResidentChangesResponse completed = residentChangeService.getChangesSince(0, 100);
+
+        assertThat(pending.getUpserts()).extracting(Resident::getId).containsExactly("a");
+        assertThat(pending.getNextSince()).isEqualTo(3);
+        assertThat(pending.isHasMore()).isTrue();
+        assertThat(completed.getUpserts()).extracting(Resident::getId).containsExactly("a", "b");
+    }
+
+    @Test
+    @DisplayName("Une réservation abandonnée par une instance arrêtée ne bloque plus la synchronisation")
+    void getChangesSince_ignoresStaleReservation() {
+        Instant longAgo = Instant.now().minus(Duration.ofHours(1));
+        when(counterRepository.find("residents")).thenReturn(counter(5, new Counter.Pending(4, 4, longAgo)));
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 3), resident("b", 5)));
+
+        ResidentChangesResponse response = residentChangeService.getChangesSince(0, 100);
+
+        assertThat(response.getUpserts()).extracting(Resident::getId).containsExactly("a", "b");
+        assertThat(response.getNextSince()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Une écriture plus récente qu'à la lecture du compteur n'est pas encore rendue")
+    void getChangesSince_stopsAtCounterReadBeforeQuery() {
+        when(counterRepository.find("residents")).thenReturn(counter(3));
+        // Séquences 4 et 5 réservées après la lecture du compteur, seule la 5 est déjà écrite
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(resident("a", 3), resident("b", 5)));
+
+        ResidentChangesResponse response = residentChangeService.getChangesSince(0, 100);
+
+        assertThat(response.getUpserts()).extracting(Resident::getId).containsExactly("a");
+        assertThat(response.getNextSince()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deux instances partageant le compteur : l'écriture en cours sur l'une retient l'autre")
+    void getChangesSince_twoInstances_doNotSkipRemoteInFlightWrite() {
+        SharedCounter shared = new SharedCounter();
+        List<Resident> committed = new CopyOnWriteArrayList<>();
+        when(residentRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> committed.stream()
+                        .filter(resident -> resident.getChangeSeq() > invocation.<Long>getArgument(0))
+                        .sorted(Comparator.comparing(Resident::getChangeSeq))
+                        .toList());
+        when(tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of());
+        ResidentChangeService nodeA = new ResidentChangeService(shared, residentRepository, tombstoneRepository);
+        ResidentChangeService nodeB = new ResidentChangeService(shared, residentRepository, tombstoneRepository);
+        ReflectionTestUtils.setField(nodeA, "pendingTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(nodeB, "pendingTimeoutMs", 60_000L);
+
+        // A réserve N sans l'avoir encore écrite ; B réserve et écrit N+1
+        long seqA = nodeA.begin();
+        long seqB = nodeB.begin();
+        committed.add(resident("b", seqB));
+        nodeB.complete(seqB);
+
+        ResidentChangesResponse whileAWrites = nodeB.getChangesSince(0, 100);
+        assertThat(whileAWrites.getUpserts()).isEmpty();
+        assertThat(whileAWrites.getNextSince()).isZero();
+
+        committed.add(resident("a", seqA));
+        nodeA.complete(seqA);
+
+        ResidentChangesResponse afterA = nodeB.getChangesSince(whileAWrites.getNextSince(), 100);
+        assertThat(afterA.getUpserts()).extracting(Resident::getId).containsExactly("a", "b");
+        assertThat(afterA.getNextSince()).isEqualTo(seqB);
+    }
+
+    @Test
+    @DisplayName("backfillChangeSeqs attribue un bloc de séquences réservé aux résidents existants")
+    void backfillChangeSeqs_assignsConsecutiveBlock() {
+        when(residentRepository.findIdsWithoutChangeSeq()).thenReturn(List.of("a", "b", "c"));
+        when(counterRepository.reserve("residents", 3)).thenReturn(101L);
+
+        residentChangeService.backfillChangeSeqs();
+
+        verify(residentRepository).assignChangeSeqs(List.of("a", "b", "c"), 101L);
+        verify(counterRepository).release(eq("residents"), eq(101L), any(Instant.class));
+    }
+
+    /**
+     * Collection counters commune aux instances, simulée en mémoire
+     */
+    private static final class SharedCounter extends CounterRepository {
+
+        private final Counter counter = counter(0);
+
+        SharedCounter() {
+            super(null);
+        }
+
+        @Override
+        public synchronized long reserve(String name, int count) {
+            long first = counter.getSeq() + 1;
+            counter.setSeq(counter.getSeq() + count);
+            counter.getPending().add(new Counter.Pending(first, first + count - 1, Instant.now()));
+            return first;
+        }
+
+        @Override
+        public synchronized void release(String name, long first, Instant staleBefore) {
+            counter.getPending().removeIf(pending -> pending.getFirst() == first || pending.getReservedAt().isBefore(staleBefore));
+        }
+
+        @Override
+        public synchronized Counter find(String name) {
+            return new Counter(counter.getId(), counter.getSeq(), new ArrayList<>(counter.getPending()));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.copro.connect.service;
+
+import com.copro.connect.cache.ResidentSnapshot;
+import com.copro.connect.dto.ResidentChangeNotification;
+import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.model.Resident;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentEventBroadcaster")
+class ResidentEventBroadcasterTest {
+
+    @Mock
+    private ResidentService residentService;
+
+    @Mock
+    private ResidentSnapshot residentSnapshot;
+
+    private ResidentEventBroadcaster broadcaster;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    private static Resident resident(String nom, String porte) {
+        Resident resident = new Resident();
+        resident.setId("res-1");
+        resident.setLotId("LOT-001");
+        resident.setBatiment("A");
+        resident.setPorte(porte);
+        resident.setProprietaireNom(nom);
+        resident.setChangeSeq(7L);
+        return resident;
+    }
+
+    private ResidentEventBroadcaster broadcaster(int bufferSize, SseEmitter emitter) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new ResidentEventBroadcaster(residentService, residentSnapshot, meterRegistry, bufferSize, 10, 60_000, 1, 3600, 60_000) {
+            @Override
+            SseEmitter createEmitter(long timeout) {
+                return emitter;
+            }
+        };
+    }
+
+    private static ResidentChangeNotification awaitNotification(BlockingQueue<Object> received) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            Object data = received.poll(100, TimeUnit.MILLISECONDS);
+            if (data instanceof ResidentChangeNotification notification) {
+                return notification;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    @DisplayName("changedFields liste les champs modifiés avec leur nom JSON")
+    void changedFields_listsJsonNames() {
+        List<String> changed = ResidentEventBroadcaster.changedFields(resident("Dupont", "101"), resident("Martin", "102"));
+
+        assertThat(changed).containsExactly("porte", "proprietaire_nom");
+        assertThat(ResidentEventBroadcaster.changedFields(null, resident("Dupont", "101"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Une écriture est poussée aux abonnés avec les compteurs à jour")
+    void onResidentChanged_pushesNotification() throws Exception {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(part -> received.add(part.getData()));
+            }
+        };
+        when(residentService.getStatistics()).thenReturn(new StatisticsResponse(
+                12L, 2L, 20L, 4L, Map.of(), Map.of(), 10L, 2L, 1.7, Map.of()));
+        broadcaster = broadcaster(8, emitter);
+        broadcaster.subscribe();
+
+        broadcaster.onResidentChanged(ResidentChangedEvent.updated(resident("Dupont", "101"), resident("Martin", "101")));
+
+        ResidentChangeNotification notification = awaitNotification(received);
+        assertThat(notification).isNotNull();
+        assertThat(notification.getId()).isEqualTo("res-1");
+        assertThat(notification.getAction()).isEqualTo("UPDATE");
+        assertThat(notification.getSeq()).isEqualTo(7L);
+        assertThat(notification.getChangedFields()).containsExactly("proprietaire_nom");
+        assertThat(notification.getTotalLots()).isEqualTo(12L);
+    }
+
+    @Test
+    @DisplayName("Sans snapshot, les statistiques ne sont pas recalculées en base à chaque écriture")
+    void onResidentChanged_withoutSnapshot_throttlesStatistics() throws Exception {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(part -> received.add(part.getData()));
+            }
+        };
+        when(residentService.getStatistics()).thenReturn(new StatisticsResponse(
+                12L, 2L, 20L, 4L, Map.of(), Map.of(), 10L, 2L, 1.7, Map.of()));
+        broadcaster = broadcaster(8, emitter);
+        broadcaster.subscribe();
+
+        broadcaster.onResidentChanged(ResidentChangedEvent.created(resident("Dupont", "101")));
+        broadcaster.onResidentChanged(ResidentChangedEvent.created(resident("Martin", "102")));
+
+        assertThat(awaitNotification(received).getTotalLots()).isEqualTo(12L);
+        assertThat(awaitNotification(received).getTotalLots()).isEqualTo(12L);
+        verify(residentService, times(1)).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Avec le snapshot chargé, les statistiques viennent de la mémoire")
+    void onResidentChanged_withSnapshot_usesSnapshotStatistics() throws Exception {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(part -> received.add(part.getData()));
+            }
+        };
+        when(residentSnapshot.isReady()).thenReturn(true);
+        when(residentSnapshot.statistics()).thenReturn(new StatisticsResponse(
+                13L, 2L, 21L, 4L, Map.of(), Map.of(), 11L, 2L, 1.6, Map.of()));
+        broadcaster = broadcaster(8, emitter);
+        broadcaster.subscribe();
+
+        broadcaster.onResidentChanged(ResidentChangedEvent.created(resident("Dupont", "101")));
+
+        assertThat(awaitNotification(received).getTotalLots()).isEqualTo(13L);
+        verifyNoInteractions(residentService);
+    }
+
+    @Test
+    @DisplayName("Sans abonné, aucune statistique n'est calculée")
+    void onResidentChanged_withoutSubscribers_doesNothing() {
+        broadcaster = broadcaster(8, new SseEmitter());
+
+        broadcaster.onResidentChanged(ResidentChangedEvent.created(resident("Dupont", "101")));
+
+        verifyNoInteractions(residentService);
+    }
+
+    @Test
+    @DisplayName("Un abonné trop lent est déconnecté quand sa file déborde")
+    void slowSubscriber_isDropped() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        when(residentService.getStatistics()).thenReturn(new StatisticsResponse());
+        broadcaster = broadcaster(2, slow);
+        broadcaster.subscribe();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                broadcaster.onResidentChanged(ResidentChangedEvent.created(resident("Dupont", "10" + i)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (broadcaster.getSubscriberCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(broadcaster.getSubscriberCount()).isZero();
+            assertThat(meterRegistry.counter("residents.events.dropped").count()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+        }
+    }
+}
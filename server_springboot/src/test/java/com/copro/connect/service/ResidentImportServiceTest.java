@@ -0,0 +1,226 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentImportReport;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentImportService")
+class ResidentImportServiceTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<Resident> inserted = new ArrayList<>();
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong counter = new AtomicLong();
+        lenient().when(residentChangeService.beginBatch(anyInt()))
+                .thenAnswer(invocation -> counter.getAndAdd(invocation.<Integer>getArgument(0)) + 1);
+        lenient().when(residentRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return Map.of();
+        });
+    }
+
+    private ResidentImportService service(int batchSize) {
+        Validator validator = validatorFactory.getValidator();
+        return new ResidentImportService(residentRepository, residentChangeService, validator,
+                objectMapper, eventPublisher, batchSize);
+    }
+
+    private static InputStream utf8(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String jsonResident(String lotId, String batiment, String porte) {
+        return """
+                {"id": 12, "lot_id": "%s", "batiment": "%s", "etage": "1", "porte": "%s",
+                 "statut_lot": "Propriétaire Résident", "proprietaire_nom": "Nicole Dumont",
+                 "occupants": [{"nom": "Camille Garnier", "email": "camille@orange.fr"}]}
+                """.formatted(lotId, batiment, porte);
+    }
+
+    @Test
+    @DisplayName("Le fichier residentData.json est importé intégralement par lots")
+    void importJson_sampleFile() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of());
+
+        ResidentImportReport report;
+        try (InputStream in = getClass().getResourceAsStream("/residentData.json")) {
+            report = service(100).importJson(in);
+        }
+
+        assertThat(report.getTotalRows()).isGreaterThan(100);
+        assertThat(report.getErrors()).isEmpty();
+        assertThat(report.getImported()).isEqualTo(report.getTotalRows());
+        assertThat(inserted).hasSize(report.getImported());
+        assertThat(inserted).allSatisfy(resident -> {
+            assertThat(resident.getId()).isNull();
+            assertThat(resident.getChangeSeq()).isNotNull();
+            assertThat(resident.getCreatedAt()).isNotNull();
+        });
+        assertThat(inserted).extracting(Resident::getChangeSeq).doesNotHaveDuplicates();
+        verify(residentChangeService, atLeast(2)).beginBatch(anyInt());
+        verify(residentChangeService, atLeast(2)).completeBatch(anyLong(), anyInt());
+
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getAction()).isEqualTo(ResidentChangedEvent.Action.RELOAD);
+    }
+
+    @Test
+    @DisplayName("Lignes invalides, illisibles ou en doublon sont reportées sans bloquer les autres")
+    void importJson_reportsRowErrors() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of("LOT-EXISTANT"));
+        String json = "[" + String.join(",",
+                jsonResident("L1", "A", "101"),
+                jsonResident("", "A", "102"),                 // numéro de lot manquant
+                "{\"lot_id\": \"L3\", \"occupants\": 5}",     // type incorrect
+                jsonResident("l1 ", "B", "201"),              // doublon du fichier (casse et espaces)
+                jsonResident("lot-existant", "B", "202"),     // doublon de la base
+                "42",
+                jsonResident("L7", "C", "301")) + "]";
+
+        ResidentImportReport report = service(3).importJson(utf8(json));
+
+        assertThat(report.getTotalRows()).isEqualTo(7);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(5);
+        assertThat(report.getErrors()).extracting(ResidentImportReport.RowError::getRow).containsExactly(2, 3, 4, 5, 6);
+        assertThat(report.getErrors().get(0).getMessages()).anyMatch(message -> message.startsWith("lotId"));
+        assertThat(report.getErrors().get(2).getMessages()).containsExactly("Le numéro de lot l1 existe déjà");
+        assertThat(inserted).extracting(Resident::getLotId).containsExactly("L1", "L7");
+    }
+
+    @Test
+    @DisplayName("Un échec d'insertion en base est reporté sur la bonne ligne")
+    void importJson_reportsInsertFailures() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of());
+        when(residentRepository.insertUnordered(anyList())).thenReturn(Map.of(1, "E11000 duplicate key"));
+
+        ResidentImportReport report = service(10).importJson(utf8("["
+                + jsonResident("L1", "A", "101") + "," + jsonResident("L2", "A", "102") + "]"));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2);
+            assertThat(error.getLotId()).isEqualTo("L2");
+        });
+    }
+
+    @Test
+    @DisplayName("Un fichier JSON tronqué interrompt la lecture mais conserve les lots déjà lus")
+    void importJson_truncatedFile() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of());
+
+        ResidentImportReport report = service(10).importJson(utf8("[" + jsonResident("L1", "A", "101") + ", {\"lot_id\": "));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getMessages().get(0)).startsWith("Fichier JSON invalide"));
+    }
+
+    @Test
+    @DisplayName("Un corps qui n'est pas un tableau est refusé")
+    void importJson_notAnArray() {
+        assertThatThrownBy(() -> service(10).importJson(utf8("{\"lot_id\": \"L1\"}")))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    @DisplayName("Import CSV avec en-tête, valeurs vides traitées comme absentes")
+    void importCsv() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of());
+        String csv = """
+                lot_id,batiment,etage,porte,cave_id,statut_lot,proprietaire_nom,proprietaire_mobile,proprietaire_email
+                L1,A,1,101,,Propriétaire Résident,Nicole Dumont,0684872351,NICOLE@orange.fr
+                L2,A,1,102,C2,Inconnu,Jean Martin,,
+                """;
+
+        ResidentImportReport report = service(10).importCsv(utf8(csv));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2);
+            assertThat(error.getMessages()).anyMatch(message -> message.startsWith("statutLot"));
+        });
+        Resident imported = inserted.get(0);
+        assertThat(imported.getCaveId()).isNull();
+        assertThat(imported.getProprietaireEmail()).isEqualTo("nicole@orange.fr");
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Débit d'import sur 20k lots (lots/s)")
+    void throughput_20kLots() throws Exception {
+        when(residentRepository.findAllLotIds()).thenReturn(List.of());
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 20_000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(jsonResident("L" + i, "B" + (i % 20), String.valueOf(i)));
+        }
+        json.append(']');
+
+        ResidentImportReport report = service(500).importJson(utf8(json.toString()));
+
+        System.out.printf("Import de %d lots : %d ms, %.0f lots/s (écriture Mongo simulée)%n",
+                report.getImported(), report.getDurationMs(), report.getLotsPerSecond());
+        assertThat(report.getImported()).isEqualTo(20_000);
+        assertThat(report.getLotsPerSecond()).isPositive();
+        verify(residentRepository, times(40)).insertUnordered(anyList());
+    }
+}
@@ -0,0 +1,284 @@
+package com.copro.connect.service;
+
+import com.copro.connect.cache.ResidentByIdCache;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ConcurrentModificationException;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import com.copro.connect.validator.ResidentValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentPatchService")
+class ResidentPatchServiceTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private ResidentService residentService;
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    @Mock
+    private ResidentHistoryService residentHistoryService;
+
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Mock
+    private ResidentByIdCache residentByIdCache;
+
+    @Mock
+    private ResidentValidator residentValidator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ResidentPatchService service;
+    private Resident current;
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new ResidentPatchService(residentService, residentRepository, residentHistoryService,
+                residentChangeService, residentByIdCache, residentValidator, validatorFactory.getValidator(),
+                objectMapper, eventPublisher, meterRegistry);
+
+        current = new Resident();
+        current.setId("res-1");
+        current.setLotId("LOT-001");
+        current.setBatiment("A");
+        current.setEtage("1");
+        current.setPorte("101");
+        current.setCaveId("C-12");
+        current.setProprietaireNom("Dupont");
+        current.setStatutLot("Propriétaire Résident");
+        current.setChangeSeq(7L);
+        current.setOccupants(new ArrayList<>(List.of(
+                new Occupant("Camille Garnier", null, null),
+                new Occupant("Hugo Garnier", null, null))));
+        ResidentService.normalizeResidentData(current);
+        current.setContentHash(ResidentFingerprint.of(current));
+        lenient().when(residentService.getResidentById("res-1")).thenReturn(current);
+        lenient().when(residentChangeService.begin()).thenReturn(8L);
+    }
+
+    private ObjectNode patch(String json) throws Exception {
+        return (ObjectNode) objectMapper.readTree(json);
+    }
+
+    /**
+     * Simule MongoDB : applique le correctif attendu au document courant
+     */
+    private Resident stored(Consumer<Resident> change) {
+        Resident resident = objectMapper.convertValue(objectMapper.valueToTree(current), Resident.class);
+        change.accept(resident);
+        resident.setChangeSeq(8L);
+        resident.setContentHash(ResidentFingerprint.of(resident));
+        return resident;
+    }
+
+    @Test
+    @DisplayName("patchResident n'écrit que les champs du correctif et retire les champs à null")
+    void patchResident_setsOnlyChangedFields() throws Exception {
+        Resident stored = stored(r -> {
+            r.setProprietaireNom("Martin");
+            r.setCaveId(null);
+        });
+        when(residentRepository.updateAndGet(eq("res-1"), isNull(), any(Update.class))).thenReturn(stored);
+
+        Resident result = service.patchResident("res-1",
+                patch("{\"proprietaire_nom\": \" Martin \", \"cave_id\": null, \"batiment\": \"A\"}"));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(residentRepository).updateAndGet(eq("res-1"), isNull(), update.capture());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        Document unset = (Document) update.getValue().getUpdateObject().get("$unset");
+        // Les champs nommés sont écrits même s'ils égalent la copie en cache, qui peut être en retard
+        assertThat(set).containsOnlyKeys("proprietaireNom", "batiment", "changeSeq", "updatedAt", "contentHash");
+        assertThat(set.get("proprietaireNom")).isEqualTo("Martin");
+        assertThat(set.get("contentHash")).isEqualTo(stored.getContentHash());
+        assertThat(unset).containsOnlyKeys("caveId");
+        verify(residentRepository, never()).setContentHash(any(), anyLong(), any());
+
+        assertThat(result).isSameAs(stored);
+        assertThat(current.getProprietaireNom()).isEqualTo("Dupont");
+        ArgumentCaptor<Resident> expected = ArgumentCaptor.forClass(Resident.class);
+        verify(residentHistoryService).recordUpdate(eq(current), expected.capture());
+        assertThat(expected.getValue().getProprietaireNom()).isEqualTo("Martin");
+        assertThat(expected.getValue().getCaveId()).isNull();
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getPrevious()).isSameAs(current);
+        assertThat(event.getValue().getChangeSeq()).isEqualTo(8L);
+        verify(residentChangeService).complete(8L);
+    }
+
+    @Test
+    @DisplayName("patchResident sans effet n'écrit rien")
+    void patchResident_noChange_skipsWrite() throws Exception {
+        when(residentRepository.findById("res-1")).thenReturn(Optional.of(current));
+
+        Resident result = service.patchResident("res-1", patch("{\"proprietaire_nom\": \"Dupont\"}"));
+
+        assertThat(result).isSameAs(current);
+        verify(residentChangeService, never()).begin();
+        verify(residentRepository, never()).updateAndGet(any(), any(), any());
+        verifyNoInteractions(residentHistoryService, eventPublisher);
+        assertThat(meterRegistry.counter("residents.updates.skipped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("patchResident écrit si la base diffère de la copie en cache, même sans effet sur celle-ci")
+    void patchResident_staleCache_writesAgainstStoredState() throws Exception {
+        Resident inDb = stored(r -> r.setProprietaireNom("Martin"));
+        Resident written = stored(r -> r.setProprietaireNom("Dupont"));
+        when(residentRepository.findById("res-1")).thenReturn(Optional.of(inDb));
+        when(residentRepository.updateAndGet(eq("res-1"), isNull(), any(Update.class))).thenReturn(written);
+
+        Resident result = service.patchResident("res-1", patch("{\"proprietaire_nom\": \"Dupont\"}"));
+
+        assertThat(result).isSameAs(written);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(residentRepository).updateAndGet(eq("res-1"), isNull(), update.capture());
+        assertThat((Document) update.getValue().getUpdateObject().get("$set")).containsEntry("proprietaireNom", "Dupont");
+        verify(residentByIdCache).invalidate("res-1");
+        verify(residentHistoryService).recordUpdate(eq(inDb), any(Resident.class));
+        assertThat(meterRegistry.find("residents.updates.skipped").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("patchResident refuse un champ non modifiable ou un résultat invalide")
+    void patchResident_rejectsInvalidPatch() {
+        assertThatThrownBy(() -> service.patchResident("res-1", patch("{\"change_seq\": 1}")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("change_seq");
+        assertThatThrownBy(() -> service.patchResident("res-1", patch("{\"proprietaire_nom\": null}")))
+                .isInstanceOf(ConstraintViolationException.class);
+
+        verifyNoInteractions(residentRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("patchResident recalcule l'empreinte si un autre champ a changé entre-temps")
+    void patchResident_concurrentWrite_fixesContentHash() throws Exception {
+        Resident stored = stored(r -> {
+            r.setProprietaireNom("Martin");
+            r.setEtage("2");
+        });
+        stored.setContentHash("stale");
+        when(residentRepository.updateAndGet(eq("res-1"), isNull(), any(Update.class))).thenReturn(stored);
+
+        Resident result = service.patchResident("res-1", patch("{\"proprietaire_nom\": \"Martin\"}"));
+
+        String actualHash = ResidentFingerprint.of(stored);
+        verify(residentRepository).setContentHash("res-1", 8L, actualHash);
+        assertThat(result.getContentHash()).isEqualTo(actualHash);
+    }
+
+    @Test
+    @DisplayName("addElement ajoute l'occupant normalisé par $push")
+    void addElement_pushesNormalizedOccupant() {
+        Resident stored = stored(r -> r.getOccupants().add(new Occupant("Léa Garnier", null, "lea@test.com")));
+        when(residentRepository.updateAndGet(eq("res-1"), isNull(), any(Update.class))).thenReturn(stored);
+
+        service.addElement("res-1", ResidentPatchService.OCCUPANTS, new Occupant(" Léa Garnier ", null, "LEA@test.com "));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(residentRepository).updateAndGet(eq("res-1"), isNull(), update.capture());
+        Document push = (Document) update.getValue().getUpdateObject().get("$push");
+        assertThat(push.get("occupants")).isEqualTo(new Occupant("Léa Garnier", null, "lea@test.com"));
+        verify(residentRepository, never()).setContentHash(any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("removeElement refuse d'écrire si le résident a changé depuis sa lecture")
+    void removeElement_staleResident_conflicts() {
+        when(residentRepository.updateAndGet(eq("res-1"), any(Criteria.class), any(Update.class))).thenReturn(null);
+
+        assertThatThrownBy(() -> service.removeElement("res-1", ResidentPatchService.OCCUPANTS, 1))
+                .isInstanceOf(ConcurrentModificationException.class);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<Criteria> condition = ArgumentCaptor.forClass(Criteria.class);
+        verify(residentRepository).updateAndGet(eq("res-1"), condition.capture(), update.capture());
+        assertThat(condition.getValue().getCriteriaObject()).isEqualTo(new Document("changeSeq", 7L));
+        Document pull = (Document) update.getValue().getUpdateObject().get("$pull");
+        assertThat(pull.get("occupants")).isEqualTo(new Occupant("Hugo Garnier", null, null));
+        verify(residentByIdCache).invalidate("res-1");
+        verify(residentChangeService).complete(8L);
+        verifyNoInteractions(eventPublisher, residentHistoryService);
+    }
+
+    @Test
+    @DisplayName("removeElement réécrit la liste si un autre élément porte le même nom")
+    void removeElement_sameName_rewritesList() {
+        current.getOccupants().add(new Occupant("Hugo Garnier", "0601020304", null));
+        Resident stored = stored(r -> r.getOccupants().remove(1));
+        when(residentRepository.updateAndGet(eq("res-1"), any(Criteria.class), any(Update.class))).thenReturn(stored);
+
+        service.removeElement("res-1", ResidentPatchService.OCCUPANTS, 1);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(residentRepository).updateAndGet(eq("res-1"), any(Criteria.class), update.capture());
+        assertThat(update.getValue().getUpdateObject()).doesNotContainKey("$pull");
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertThat(set.get("occupants")).isEqualTo(List.of(
+                new Occupant("Camille Garnier", null, null),
+                new Occupant("Hugo Garnier", "0601020304", null)));
+    }
+
+    @Test
+    @DisplayName("removeElement refuse une position inexistante")
+    void removeElement_unknownIndex_throws() {
+        assertThatThrownBy(() -> service.removeElement("res-1", ResidentPatchService.HAPPIX_ACCOUNTS, 0))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("compte Happix");
+        verifyNoInteractions(residentRepository);
+    }
+}
@@ -0,0 +1,237 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentImportReport;
+import com.copro.connect.dto.ResidentReconcileReport;
+import com.copro.connect.event.ResidentChangedEvent;
+import com.copro.connect.exception.ValidationException;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.copro.connect.repository.ResidentRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentReconcileService")
+class ResidentReconcileServiceTest {
+
+    private static ValidatorFactory validatorFactory;
+
+    @Mock
+    private ResidentRepository residentRepository;
+
+    @Mock
+    private ResidentHistoryService residentHistoryService;
+
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ResidentReconcileService service;
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        service = new ResidentReconcileService(residentRepository, residentHistoryService, residentChangeService,
+                validatorFactory.getValidator(), eventPublisher);
+        lenient().when(residentChangeService.beginBatch(anyInt())).thenReturn(100L);
+        lenient().when(residentRepository.insertUnordered(anyList())).thenReturn(Map.of());
+        lenient().when(residentRepository.replaceUnordered(anyList())).thenReturn(Map.of());
+    }
+
+    private static Resident resident(String id, String lotId, String proprietaire) {
+        Resident resident = new Resident();
+        resident.setId(id);
+        resident.setLotId(lotId);
+        resident.setBatiment("A");
+        resident.setEtage("1");
+        resident.setPorte("1" + lotId);
+        resident.setProprietaireNom(proprietaire);
+        resident.setStatutLot("Propriétaire Résident");
+        resident.setOccupants(new ArrayList<>(List.of(new Occupant("Camille Garnier", null, null))));
+        return resident;
+    }
+
+    /**
+     * Document tel que stocké : normalisé, avec son empreinte
+     */
+    private static Resident stored(String id, String lotId, String proprietaire) {
+        Resident resident = resident(id, lotId, proprietaire);
+        resident.setContentHash(ResidentFingerprint.of(resident));
+        return resident;
+    }
+
+    private static Resident projection(Resident stored) {
+        Resident projection = new Resident();
+        projection.setId(stored.getId());
+        projection.setLotId(stored.getLotId());
+        projection.setContentHash(stored.getContentHash());
+        return projection;
+    }
+
+    @Test
+    @DisplayName("Seuls les lots créés, modifiés ou disparus sont écrits et historisés")
+    void reconcile_writesOnlyDifferences() {
+        Resident same = stored("id-1", "L1", "Nicole Dumont");
+        Resident changed = stored("id-2", "L2", "Jean Martin");
+        Resident gone = stored("id-3", "L3", "Paul Durand");
+        when(residentRepository.findAllFingerprints())
+                .thenReturn(List.of(projection(same), projection(changed), projection(gone)));
+        when(residentRepository.findAllById(List.of("id-2", "id-3"))).thenReturn(List.of(changed, gone));
+
+        List<Resident> roster = List.of(
+                resident(null, "L1", "  Nicole Dumont "),   // identique après normalisation
+                resident(null, "L2", "Jeanne Martin"),
+                resident(null, "L4", "Alice Bernard"));
+
+        ResidentReconcileReport report = service.reconcile(roster, false);
+
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getUpdated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        assertThat(report.getErrors()).isEmpty();
+
+        ArgumentCaptor<List<Resident>> replaced = ArgumentCaptor.captor();
+        verify(residentRepository).replaceUnordered(replaced.capture());
+        assertThat(replaced.getValue()).singleElement().satisfies(resident -> {
+            assertThat(resident.getId()).isEqualTo("id-2");
+            assertThat(resident.getContentHash()).isNotEqualTo(changed.getContentHash());
+        });
+        ArgumentCaptor<List<Resident>> inserted = ArgumentCaptor.captor();
+        verify(residentRepository).insertUnordered(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Resident::getLotId).containsExactly("L4");
+
+        verify(residentHistoryService).recordUpdate(eq(changed), argThat(r -> "id-2".equals(r.getId())));
+        verify(residentHistoryService).recordDelete(gone);
+        verify(residentChangeService).recordDeletions(Map.of("id-3", 102L));
+        ArgumentCaptor<Iterable<String>> deleted = ArgumentCaptor.captor();
+        verify(residentRepository).deleteAllById(deleted.capture());
+        assertThat(deleted.getValue()).containsExactly("id-3");
+        verify(residentChangeService).beginBatch(3);
+        verify(residentChangeService).completeBatch(100L, 3);
+
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getAction()).isEqualTo(ResidentChangedEvent.Action.RELOAD);
+    }
+
+    @Test
+    @DisplayName("Un registre identique ne produit aucune écriture")
+    void reconcile_identicalRoster_noWrites() {
+        Resident same = stored("id-1", "L1", "Nicole Dumont");
+        when(residentRepository.findAllFingerprints()).thenReturn(List.of(projection(same)));
+
+        ResidentReconcileReport report = service.reconcile(List.of(resident(null, "L1", "Nicole Dumont")), false);
+
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        verify(residentRepository, never()).findAllById(any());
+        verify(residentChangeService, never()).beginBatch(anyInt());
+        verifyNoInteractions(residentHistoryService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Un document sans empreinte est comparé sur son contenu")
+    void reconcile_legacyDocumentWithoutHash() {
+        Resident legacy = resident("id-1", "L1", "Nicole Dumont");
+        when(residentRepository.findAllFingerprints()).thenReturn(List.of(projection(legacy)));
+        when(residentRepository.findAllById(List.of("id-1"))).thenReturn(List.of(legacy));
+
+        ResidentReconcileReport report = service.reconcile(List.of(resident(null, "L1", "Nicole Dumont")), false);
+
+        assertThat(report.getUnchanged()).isEqualTo(1);
+        assertThat(report.getUpdated()).isZero();
+        verify(residentRepository, never()).replaceUnordered(any());
+    }
+
+    @Test
+    @DisplayName("Une ligne invalide est reportée sans supprimer le lot existant")
+    void reconcile_invalidRowDoesNotDelete() {
+        Resident existing = stored("id-1", "L1", "Nicole Dumont");
+        when(residentRepository.findAllFingerprints()).thenReturn(List.of(projection(existing)));
+        Resident invalid = resident(null, "L1", "Nicole Dumont");
+        invalid.setStatutLot("Inconnu");
+
+        ResidentReconcileReport report = service.reconcile(List.of(invalid, resident(null, "L2", "Jean Martin"),
+                resident(null, "l2", "Jean Martin")), false);
+
+        assertThat(report.getDeleted()).isZero();
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ResidentImportReport.RowError::getRow).containsExactly(1, 3);
+        verify(residentRepository, never()).deleteAllById(any());
+    }
+
+    @Test
+    @DisplayName("En simulation, le rapport est calculé sans aucune écriture")
+    void reconcile_dryRun() {
+        Resident gone = stored("id-1", "L1", "Nicole Dumont");
+        when(residentRepository.findAllFingerprints()).thenReturn(List.of(projection(gone)));
+        when(residentRepository.findAllById(List.of("id-1"))).thenReturn(List.of(gone));
+
+        ResidentReconcileReport report = service.reconcile(List.of(resident(null, "L2", "Jean Martin")), true);
+
+        assertThat(report.isDryRun()).isTrue();
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getDeleted()).isEqualTo(1);
+        verify(residentRepository, never()).insertUnordered(any());
+        verify(residentRepository, never()).deleteAllById(any());
+        verifyNoInteractions(residentChangeService, residentHistoryService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Un registre vide est refusé")
+    void reconcile_emptyRoster() {
+        assertThatThrownBy(() -> service.reconcile(List.of(), false)).isInstanceOf(ValidationException.class);
+        verifyNoInteractions(residentRepository);
+    }
+
+    @Test
+    @DisplayName("L'empreinte ignore id et dates mais distingue chaque champ")
+    void fingerprint_isStableAndUnambiguous() {
+        Resident a = resident("id-1", "L1", "Nicole Dumont");
+        Resident b = resident("id-2", "L1", "Nicole Dumont");
+        b.setChangeSeq(42L);
+        assertThat(ResidentFingerprint.of(a)).isEqualTo(ResidentFingerprint.of(b));
+
+        b.setCaveId("");
+        assertThat(ResidentFingerprint.of(a)).isNotEqualTo(ResidentFingerprint.of(b));
+
+        Resident shifted1 = resident(null, "L1", "Nicole Dumont");
+        shifted1.setBatiment("AB");
+        shifted1.setEtage("1");
+        Resident shifted2 = resident(null, "L1", "Nicole Dumont");
+        shifted2.setBatiment("A");
+        shifted2.setEtage("B1");
+        assertThat(ResidentFingerprint.of(shifted1)).isNotEqualTo(ResidentFingerprint.of(shifted2));
+    }
+}
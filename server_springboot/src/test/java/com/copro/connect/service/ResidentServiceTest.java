@@ -1,25 +1,42 @@
 package com.copro.connect.service;
 
+import com.copro.connect.cache.RequestCoalescer;
+import com.copro.connect.cache.ResidentByIdCache;
+import com.copro.connect.cache.ResidentPageCache;
+import com.copro.connect.cache.ResidentSnapshot;
+import com.copro.connect.dto.PagedResidentSummariesResponse;
 import com.copro.connect.dto.PagedResidentsResponse;
+import com.copro.connect.dto.ResidentBatchResponse;
+import com.copro.connect.dto.ResidentScrollResponse;
+import com.copro.connect.dto.ResidentSummary;
 import com.copro.connect.dto.StatisticsResponse;
+import com.copro.connect.event.ResidentChangedEvent;
 import com.copro.connect.exception.ResidentNotFoundException;
+import com.copro.connect.exception.ValidationException;
 import com.copro.connect.model.Resident;
 import com.copro.connect.repository.ResidentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -33,6 +50,27 @@ class ResidentServiceTest {
     @Mock
     private ResidentRepository residentRepository;
 
+    @Mock
+    private ResidentByIdCache residentByIdCache;
+
+    @Mock
+    private ResidentSnapshot residentSnapshot;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ResidentChangeService residentChangeService;
+
+    @Spy
+    private ResidentPageCache residentPageCache = new ResidentPageCache(new SimpleMeterRegistry(), 100, 60);
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer(new SimpleMeterRegistry());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ResidentService residentService;
 
@@ -55,12 +93,24 @@ class ResidentServiceTest {
     @DisplayName("getAllResidents retourne la liste des résidents")
     void getAllResidents_shouldReturnList() {
         List<Resident> residents = List.of(resident);
-        when(residentRepository.findAllByOrderByBatimentAscPorteAsc()).thenReturn(residents);
+        when(residentRepository.findAllByOrderByBatimentAscPorteSortKeyAscIdAsc()).thenReturn(residents);
 
         List<Resident> result = residentService.getAllResidents();
 
         assertThat(result).hasSize(1).containsExactly(resident);
-        verify(residentRepository).findAllByOrderByBatimentAscPorteAsc();
+        verify(residentRepository).findAllByOrderByBatimentAscPorteSortKeyAscIdAsc();
+    }
+
+    @Test
+    @DisplayName("getAllResidents sert le snapshot en mémoire quand il est chargé")
+    void getAllResidents_whenSnapshotReady_usesSnapshot() {
+        when(residentSnapshot.isReady()).thenReturn(true);
+        when(residentSnapshot.residents()).thenReturn(List.of(resident));
+
+        List<Resident> result = residentService.getAllResidents();
+
+        assertThat(result).containsExactly(resident);
+        verify(residentRepository, never()).findAllByOrderByBatimentAscPorteSortKeyAscIdAsc();
     }
 
     @Test
@@ -91,6 +141,123 @@ class ResidentServiceTest {
         verify(residentRepository).findWithFilters(eq("Dupont"), eq("A"), eq("Propriétaire Résident"), any(Pageable.class));
     }
 
+    @Test
+    @DisplayName("getResidentsPaginated sert les pages identiques depuis le cache jusqu'à la prochaine écriture")
+    void getResidentsPaginated_cachedUntilNextWrite() {
+        Page<Resident> page = new PageImpl<>(List.of(resident), PageRequest.of(0, 10), 1);
+        when(residentRepository.findWithFilters(anyString(), any(), any(), any(Pageable.class))).thenReturn(page);
+
+        PagedResidentsResponse first = residentService.getResidentsPaginated(0, 10, " Dupont ", "A", "Tous", null);
+        // Même requête après normalisation (espaces, « Tous », tri par défaut explicite)
+        PagedResidentsResponse second = residentService.getResidentsPaginated(0, 10, "Dupont", "A", null, "");
+        assertThat(second).isSameAs(first);
+        verify(residentRepository, times(1)).findWithFilters(anyString(), any(), any(), any(Pageable.class));
+
+        residentPageCache.onResidentChanged(ResidentChangedEvent.updated(resident, resident));
+        residentService.getResidentsPaginated(0, 10, "Dupont", "A", null, null);
+        verify(residentRepository, times(2)).findWithFilters(eq("Dupont"), eq("A"), isNull(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("getResidentSummaries charge tous les champs du résumé par défaut, seulement ceux demandés sinon")
+    void getResidentSummaries_projectsRequestedFields() {
+        ResidentSummary summary = new ResidentSummary("res-1", "LOT-001", "A", "1", "101", null, "Dupont", 2, 0);
+        when(residentRepository.findSummaries(any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(summary), PageRequest.of(0, 10), 1));
+
+        PagedResidentSummariesResponse response = residentService.getResidentSummaries(0, 10, null, "A", null, null, null);
+        residentService.getResidentSummaries(0, 10, null, "A", null, null, List.of("porte", " lot_id"));
+
+        assertThat(response.getResidents()).containsExactly(summary);
+        assertThat(response.getTotalElements()).isOne();
+        verify(residentRepository).findSummaries(isNull(), eq("A"), isNull(),
+                eq(Set.copyOf(ResidentSummary.FIELDS.values())), any(Pageable.class));
+        verify(residentRepository).findSummaries(isNull(), eq("A"), isNull(),
+                eq(Set.of("lotId", "porte")), any(Pageable.class));
+        verify(residentRepository, never()).findWithFilters(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("getResidentSummaries refuse un champ inconnu")
+    void getResidentSummaries_unknownField_throws() {
+        assertThatThrownBy(() -> residentService.getResidentSummaries(0, 10, null, null, null, null, List.of("occupants")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("occupants");
+        verifyNoInteractions(residentRepository);
+    }
+
+    @Test
+    @DisplayName("getResidentsPaginated trie étage et porte sur leur clé de tri naturel")
+    void getResidentsPaginated_sortsOnNaturalKeys() {
+        when(residentRepository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+
+        residentService.getResidentsPaginated(0, 10, null, null, null, null);
+        residentService.getResidentsPaginated(0, 10, null, null, null, "porte,desc");
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(residentRepository, times(2)).findAll(pageable.capture());
+        assertThat(pageable.getAllValues().get(0).getSort()).isEqualTo(Sort.by("batiment", "porteSortKey", "id"));
+        assertThat(pageable.getAllValues().get(1).getSort()).isEqualTo(Sort.by("porteSortKey").descending());
+    }
+
+    @Test
+    @DisplayName("getResidentsAfter renvoie un curseur tant qu'il reste des résidents, et le relit")
+    void getResidentsAfter_returnsCursorUntilEnd() {
+        resident.setPorteSortKey(NaturalSortKey.of("101"));
+        Resident next = new Resident();
+        next.setId("res-2");
+        when(residentRepository.findAfter(isNull(), eq("A"), isNull(), isNull(), eq(2))).thenReturn(List.of(resident, next));
+
+        ResidentScrollResponse first = residentService.getResidentsAfter(null, 1, " ", "A", "Tous");
+
+        assertThat(first.getResidents()).containsExactly(resident);
+        assertThat(first.getNext()).isNotBlank();
+
+        when(residentRepository.findAfter(any(), any(), any(), any(), anyInt())).thenReturn(List.of(next));
+        ResidentScrollResponse second = residentService.getResidentsAfter(first.getNext(), 1, null, "A", null);
+
+        assertThat(second.getResidents()).containsExactly(next);
+        assertThat(second.getNext()).isNull();
+        verify(residentRepository).findAfter(isNull(), eq("A"), isNull(),
+                eq(new ResidentRepository.Position("A", NaturalSortKey.of("101"), "res-1")), eq(2));
+    }
+
+    @Test
+    @DisplayName("getResidentsAfter refuse un curseur invalide")
+    void getResidentsAfter_invalidCursor_throws() {
+        assertThatThrownBy(() -> residentService.getResidentsAfter("pas un curseur!", 10, null, null, null))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(residentRepository);
+    }
+
+    @Test
+    @DisplayName("backfillSortKeys calcule les clés manquantes puis recharge les caches")
+    void backfillSortKeys_assignsMissingKeys() {
+        Resident legacy = new Resident();
+        legacy.setId("res-1");
+        legacy.setEtage("2");
+        legacy.setPorte("09");
+        when(residentRepository.findWithoutSortKeys()).thenReturn(List.of(legacy));
+
+        residentService.backfillSortKeys();
+
+        verify(residentRepository).assignSortKeys(List.of(legacy));
+        assertThat(legacy.getEtageSortKey()).isEqualTo(NaturalSortKey.of("2"));
+        assertThat(legacy.getPorteSortKey()).isEqualTo(NaturalSortKey.of("9"));
+        verify(eventPublisher).publishEvent(any(ResidentChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("backfillSortKeys ne fait rien si toutes les clés existent")
+    void backfillSortKeys_nothingToDo() {
+        when(residentRepository.findWithoutSortKeys()).thenReturn(List.of());
+
+        residentService.backfillSortKeys();
+
+        verify(residentRepository, never()).assignSortKeys(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     @DisplayName("getStatistics retourne les statistiques")
     void getStatistics_shouldReturnStatistics() {
@@ -113,24 +280,38 @@ class ResidentServiceTest {
     @Test
     @DisplayName("getResidentById retourne le résident quand il existe")
     void getResidentById_whenExists_returnsResident() {
-        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
 
         Resident result = residentService.getResidentById("res-1");
 
         assertThat(result).isEqualTo(resident);
         assertThat(result.getId()).isEqualTo("res-1");
-        verify(residentRepository).findById("res-1");
+        verify(residentByIdCache).find("res-1");
     }
 
     @Test
     @DisplayName("getResidentById lance ResidentNotFoundException quand absent")
     void getResidentById_whenNotExists_throws() {
-        when(residentRepository.findById("inconnu")).thenReturn(Optional.empty());
+        when(residentByIdCache.find("inconnu")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> residentService.getResidentById("inconnu"))
                 .isInstanceOf(ResidentNotFoundException.class)
                 .hasMessageContaining("inconnu");
-        verify(residentRepository).findById("inconnu");
+        verify(residentByIdCache).find("inconnu");
+    }
+
+    @Test
+    @DisplayName("getResidentsByIds conserve l'ordre demandé et liste les ids introuvables")
+    void getResidentsByIds_preservesOrderAndReportsMissing() {
+        Resident other = new Resident();
+        other.setId("res-2");
+        when(residentByIdCache.findAll(anyCollection())).thenReturn(Map.of("res-1", resident, "res-2", other));
+
+        ResidentBatchResponse result = residentService.getResidentsByIds(List.of("res-2", "inconnu", "res-1", "res-2"));
+
+        assertThat(result.getResidents()).containsExactly(other, resident);
+        assertThat(result.getMissing()).containsExactly("inconnu");
+        verify(residentByIdCache).findAll(argThat(ids -> List.copyOf(ids).equals(List.of("res-2", "inconnu", "res-1"))));
     }
 
     @Test
@@ -166,44 +347,121 @@ class ResidentServiceTest {
         details.setProprietaireNom("Dupont Modifié");
         details.setStatutLot("Propriétaire Résident");
 
-        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
         when(residentRepository.save(any(Resident.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Resident result = residentService.updateResident("res-1", details);
 
         assertThat(result.getPorte()).isEqualTo("102");
         assertThat(result.getProprietaireNom()).isEqualTo("Dupont Modifié");
-        verify(residentRepository).findById("res-1");
-        verify(residentRepository).save(resident);
+        verify(residentByIdCache).find("res-1");
+        verify(residentRepository).save(result);
+        // L'instance partagée par le cache n'est jamais modifiée
+        assertThat(result).isNotSameAs(resident);
+        assertThat(resident.getPorte()).isEqualTo("101");
+        assertThat(resident.getProprietaireNom()).isEqualTo("Dupont");
+    }
+
+    @Test
+    @DisplayName("updateResident sans modification ne touche pas à la base")
+    void updateResident_unchanged_skipsWrite() {
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
+        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        Resident resubmitted = new Resident();
+        resubmitted.setLotId(" LOT-001 ");
+        resubmitted.setBatiment("A");
+        resubmitted.setEtage("1");
+        resubmitted.setPorte("101");
+        resubmitted.setProprietaireNom("Dupont");
+        resubmitted.setProprietaireEmail("DUPONT@test.com");
+        resubmitted.setStatutLot("Propriétaire Résident");
+
+        Resident result = residentService.updateResident("res-1", resubmitted);
+
+        assertThat(result).isSameAs(resident);
+        verify(residentRepository, never()).save(any());
+        verifyNoInteractions(residentChangeService, eventPublisher);
+        assertThat(meterRegistry.get("residents.updates.skipped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("updateResident écrit quand le cache est en retard sur la base, même sans différence avec le cache")
+    void updateResident_staleCache_writesAgainstStoredState() {
+        Resident stored = new Resident();
+        stored.setId("res-1");
+        stored.setLotId("LOT-001");
+        stored.setBatiment("A");
+        stored.setEtage("1");
+        stored.setPorte("101");
+        stored.setProprietaireNom("Martin");
+        stored.setProprietaireEmail("dupont@test.com");
+        stored.setStatutLot("Propriétaire Résident");
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
+        when(residentRepository.findById("res-1")).thenReturn(Optional.of(stored));
+        when(residentRepository.save(any(Resident.class))).thenAnswer(inv -> inv.getArgument(0));
+        Resident resubmitted = new Resident();
+        resubmitted.setLotId("LOT-001");
+        resubmitted.setBatiment("A");
+        resubmitted.setEtage("1");
+        resubmitted.setPorte("101");
+        resubmitted.setProprietaireNom("Dupont");
+        resubmitted.setProprietaireEmail("dupont@test.com");
+        resubmitted.setStatutLot("Propriétaire Résident");
+
+        Resident result = residentService.updateResident("res-1", resubmitted);
+
+        assertThat(result.getProprietaireNom()).isEqualTo("Dupont");
+        verify(residentRepository).save(result);
+        verify(residentByIdCache).invalidate("res-1");
+        ArgumentCaptor<ResidentChangedEvent> event = ArgumentCaptor.forClass(ResidentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getPrevious()).isSameAs(stored);
+        assertThat(meterRegistry.find("residents.updates.skipped").counter()).isNull();
     }
 
     @Test
     @DisplayName("updateResident lance ResidentNotFoundException si id inconnu")
     void updateResident_whenNotFound_throws() {
-        when(residentRepository.findById("inconnu")).thenReturn(Optional.empty());
+        when(residentByIdCache.find("inconnu")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> residentService.updateResident("inconnu", resident))
                 .isInstanceOf(ResidentNotFoundException.class);
-        verify(residentRepository).findById("inconnu");
+        verify(residentByIdCache).find("inconnu");
         verify(residentRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("deleteResident supprime le résident")
     void deleteResident_shouldDelete() {
-        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
         doNothing().when(residentRepository).delete(resident);
 
         residentService.deleteResident("res-1");
 
-        verify(residentRepository).findById("res-1");
+        verify(residentByIdCache).find("res-1");
         verify(residentRepository).delete(resident);
     }
 
+    @Test
+    @DisplayName("deleteResident publie un événement de suppression")
+    void deleteResident_publishesEvent() {
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
+
+        when(residentChangeService.begin()).thenReturn(42L);
+
+        residentService.deleteResident("res-1");
+
+        verify(residentChangeService).recordDeletion("res-1", 42L);
+        verify(residentChangeService).complete(42L);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ResidentChangedEvent changed
+                && changed.getAction() == ResidentChangedEvent.Action.DELETE
+                && changed.getResidentId().equals("res-1")));
+    }
+
     @Test
     @DisplayName("deleteResident lance exception si résident absent")
     void deleteResident_whenNotFound_throws() {
-        when(residentRepository.findById("inconnu")).thenReturn(Optional.empty());
+        when(residentByIdCache.find("inconnu")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> residentService.deleteResident("inconnu"))
                 .isInstanceOf(ResidentNotFoundException.class);
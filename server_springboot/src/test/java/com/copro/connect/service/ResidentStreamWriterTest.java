@@ -0,0 +1,163 @@
+package com.copro.connect.service;
+
+import com.copro.connect.dto.ResidentsResponse;
+import com.copro.connect.model.Occupant;
+import com.copro.connect.model.Resident;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests ResidentStreamWriter")
+class ResidentStreamWriterTest {
+
+    @Mock
+    private ResidentService residentService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ResidentStreamWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ResidentStreamWriter(residentService, objectMapper);
+    }
+
+    private static Resident resident(int i) {
+        Resident resident = new Resident();
+        resident.setId("id-" + i);
+        resident.setLotId("LOT-" + i);
+        resident.setBatiment("B" + (i % 20));
+        resident.setEtage(String.valueOf(i % 10));
+        resident.setPorte(String.format("%05d", i));
+        resident.setProprietaireNom("Propriétaire " + i);
+        resident.setProprietaireEmail("proprio" + i + "@test.fr");
+        Occupant occupant = new Occupant();
+        occupant.setNom("Occupant " + i);
+        resident.setOccupants(new ArrayList<>(List.of(occupant)));
+        return resident;
+    }
+
+    /**
+     * Simule un curseur Mongo : chaque résident est créé au moment où il est lu
+     */
+    private void stubCursor(int count) {
+        doAnswer(invocation -> {
+            Consumer<Resident> action = invocation.getArgument(0);
+            for (int i = 0; i < count; i++) {
+                action.accept(resident(i));
+            }
+            return null;
+        }).when(residentService).forEachResident(any());
+    }
+
+    @Test
+    @DisplayName("writeJson produit le même document que ResidentsResponse")
+    void writeJson_matchesResidentsResponseShape() throws Exception {
+        stubCursor(3);
+        List<Resident> expected = List.of(resident(0), resident(1), resident(2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeJson(out);
+
+        assertThat(objectMapper.readTree(out.toByteArray()))
+                .isEqualTo(objectMapper.valueToTree(new ResidentsResponse(expected)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Premier octet et pic mémoire : liste complète vs flux")
+    void timeToFirstByteAndPeakHeap_listVsStream() throws Exception {
+        int count = 50_000;
+        stubCursor(count);
+        List<Resident> materialized = new ArrayList<>(count);
+        when(residentService.getAllResidents()).thenAnswer(invocation -> {
+            materialized.clear();
+            for (int i = 0; i < count; i++) {
+                materialized.add(resident(i));
+            }
+            return materialized;
+        });
+
+        Measure list = measure(out -> objectMapper.writeValue(out, new ResidentsResponse(residentService.getAllResidents())));
+        materialized.clear();
+        Measure stream = measure(writer::writeJson);
+
+        System.out.printf("/all %d residents - list: first byte %d ms, peak heap +%d MB | stream: first byte %d ms, peak heap +%d MB%n",
+                count, list.firstByteMs, list.peakHeapMb, stream.firstByteMs, stream.peakHeapMb);
+        assertThat(stream.bytes).isEqualTo(list.bytes);
+    }
+
+    private Measure measure(ResponseBody body) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                Thread.onSpinWait();
+            }
+        });
+        sampler.start();
+
+        long start = System.nanoTime();
+        FirstByteOutputStream out = new FirstByteOutputStream();
+        body.write(out);
+        running.set(false);
+        sampler.join();
+
+        return new Measure((out.firstByteAt - start) / 1_000_000, (peak.get() - baseline) / (1024 * 1024), out.count);
+    }
+
+    @FunctionalInterface
+    private interface ResponseBody {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private record Measure(long firstByteMs, long peakHeapMb, long bytes) {}
+
+    /**
+     * Sortie qui jette les octets (comme une socket) et note l'instant du premier octet
+     */
+    private static class FirstByteOutputStream extends OutputStream {
+
+        private long firstByteAt;
+        private long count;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (count == 0 && len > 0) {
+                firstByteAt = System.nanoTime();
+            }
+            count += len;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.copro.connect.validator;
 
+import com.copro.connect.cache.ResidentByIdCache;
 import com.copro.connect.exception.DuplicateResidentException;
 import com.copro.connect.exception.ValidationException;
 import com.copro.connect.model.Resident;
@@ -25,6 +26,9 @@ class ResidentValidatorTest {
     @Mock
     private ResidentRepository residentRepository;
 
+    @Mock
+    private ResidentByIdCache residentByIdCache;
+
     @InjectMocks
     private ResidentValidator residentValidator;
 
@@ -72,13 +76,13 @@ class ResidentValidatorTest {
     @Test
     @DisplayName("validateForUpdate OK quand id valide et résident existe")
     void validateForUpdate_whenValid_ok() {
-        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
 
         Resident details = new Resident();
         details.setLotId("LOT-001"); // même lotId que existing -> pas de vérif doublon
 
         assertThatCode(() -> residentValidator.validateForUpdate("res-1", details)).doesNotThrowAnyException();
-        verify(residentRepository).findById("res-1");
+        verify(residentByIdCache).find("res-1");
         verify(residentRepository, never()).findByLotIdIgnoreCase(any());
     }
 
@@ -88,18 +92,18 @@ class ResidentValidatorTest {
         assertThatThrownBy(() -> residentValidator.validateForUpdate("", resident))
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("vide");
-        verify(residentRepository, never()).findById(any());
+        verify(residentByIdCache, never()).find(any());
     }
 
     @Test
     @DisplayName("validateForUpdate lance ValidationException si résident inexistant")
     void validateForUpdate_whenResidentNotFound_throws() {
-        when(residentRepository.findById("inconnu")).thenReturn(Optional.empty());
+        when(residentByIdCache.find("inconnu")).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> residentValidator.validateForUpdate("inconnu", resident))
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("n'existe pas");
-        verify(residentRepository).findById("inconnu");
+        verify(residentByIdCache).find("inconnu");
     }
 
     @Test
@@ -108,7 +112,7 @@ class ResidentValidatorTest {
         Resident other = new Resident();
         other.setId("res-2");
         other.setLotId("LOT-002");
-        when(residentRepository.findById("res-1")).thenReturn(Optional.of(resident));
+        when(residentByIdCache.find("res-1")).thenReturn(Optional.of(resident));
         when(residentRepository.findByLotIdIgnoreCase("LOT-002")).thenReturn(Optional.of(other));
 
         Resident details = new Resident();